@@ -6,6 +6,8 @@ import de.bybackfish.sql.core.FishDatabase;
 import example.model.Employee;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 public class Insert {
 
@@ -32,6 +34,16 @@ public class Insert {
         // Insert and return model
         // Employee newEmployee = employee.insertAndReturnModel(Employee.class);
 
+        // Insert many models in JDBC batches, their ids are written back as well
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Employee batched = new Employee();
+            batched.name = STR."Employee \{i}";
+            batched.type = Employee.EmployeeType.STAFF;
+            employees.add(batched);
+        }
+        Employee.insertAll(employees);
+
     }
 
 }
@@ -4,6 +4,7 @@ import de.bybackfish.sql.core.DatabaseOptions;
 import de.bybackfish.sql.core.DatabaseProvider;
 import de.bybackfish.sql.core.FishDatabase;
 import de.bybackfish.sql.core.FishSQLException;
+import de.bybackfish.sql.query.FetchMode;
 import de.bybackfish.sql.query.QueryBuilder;
 import de.bybackfish.sql.util.JointClasses;
 import example.model.Department;
@@ -31,6 +32,17 @@ public class Join {
             System.out.printf("%s is in %s\n", pair.first(), pair.second());
         }
 
+        // Any number of models can be decoded from the same row, in a single pass over the result
+        List<JointClasses.JointRow> rows =
+                QueryBuilder.select("*").from("employee_department_link")
+                        .join(EmployeeDepartmentLink.class, Employee.class)
+                        .join(EmployeeDepartmentLink.class, Department.class).build(fishDatabase)
+                        .unwrapJoint(EmployeeDepartmentLink.class, Employee.class, Department.class);
+
+        for (JointClasses.JointRow row : rows) {
+            System.out.printf("%s is in %s\n", row.get(Employee.class).name, row.get(Department.class).name);
+        }
+
 
         // Joining one employee with one (or multiple via #linkMany) department(s)
         Employee employee = Employee.findOne(Employee.class, QueryBuilder.select("*")).get();
@@ -41,10 +53,26 @@ public class Join {
         System.out.println(STR."\{employee.name} is in \{
                 departmentLinks.stream().map(link -> link.department.get().name).collect(Collectors.joining(", "))}");
 
+        // Same, but loading the departments through the link table in one query
+        System.out.println(STR."\{employee.name} is in \{
+                employee.departments.get().stream().map(linked -> linked.name).collect(Collectors.joining(", "))}");
+
         // Alternative: Join one employee with its department using the field name.
         // This will not work when using Link Tables, like in this scenario and will only work with direct foreign keys.
         Department department = employee.linkOne(Department.class, "departmentId");
 
         System.out.println(STR."\{employee.name} is in \{department.name}");
+
+        // When the relations are needed anyway, fetch them with the same query instead of loading them lazily
+        List<EmployeeDepartmentLink> links = EmployeeDepartmentLink.findMany(EmployeeDepartmentLink.class, QueryBuilder.select("*"), "employee", "department");
+        for (EmployeeDepartmentLink link : links) {
+            System.out.println(STR."\{link.employee.get().name} is in \{link.department.get().name}");
+        }
+
+        // Nested relations are fetched as JSON documents, still with a single query
+        List<EmployeeDepartmentLink> graph = EmployeeDepartmentLink.findMany(EmployeeDepartmentLink.class, QueryBuilder.select("*"), FetchMode.JSON, "employee.departments");
+        for (EmployeeDepartmentLink link : graph) {
+            System.out.println(STR."\{link.employee.get().name} is in \{link.employee.get().departments.get().size()} departments");
+        }
         }
 }
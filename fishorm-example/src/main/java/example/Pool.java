@@ -0,0 +1,28 @@
+package example;
+
+import de.bybackfish.sql.core.DatabaseOptions;
+import de.bybackfish.sql.core.DatabaseProvider;
+import de.bybackfish.sql.core.FishDatabase;
+import de.bybackfish.sql.core.FishSQLException;
+import de.bybackfish.sql.core.PoolOptions;
+import de.bybackfish.sql.core.PooledDatabaseAdapter;
+import example.model.Employee;
+
+import java.time.Duration;
+import java.util.List;
+
+public class Pool {
+
+    public static void main() throws FishSQLException, ClassNotFoundException {
+        // Every query leases its own connection instead of sharing a single one
+        DatabaseProvider.setup(new PooledDatabaseAdapter(PostgresAdapter::open, PoolOptions.defaults()
+                .withSize(2, 20)
+                .withLeakDetectionThreshold(Duration.ofSeconds(30))));
+        FishDatabase fishDatabase = DatabaseProvider.getDatabase();
+
+        fishDatabase.connect(new DatabaseOptions("localhost", 5432, "postgres", "prj1_user", "prj1_password"));
+
+        List<Employee> all = Employee.all(Employee.class);
+        System.out.println(STR."Loaded \{all.size()} employees");
+    }
+}
@@ -15,14 +15,18 @@ public class PostgresAdapter implements DatabaseAdapter {
     public void connect(DatabaseOptions databaseOptions) throws ClassNotFoundException, FishSQLException {
         Class.forName("org.postgresql.Driver");
 
-        String jdbcUrl = STR."jdbc:postgresql://\{databaseOptions.host()}:\{databaseOptions.port()}/\{databaseOptions.database()}";
         try {
-            connection = DriverManager.getConnection(jdbcUrl, databaseOptions.username(), databaseOptions.password());
+            connection = open(databaseOptions);
         } catch (SQLException e) {
             throw new FishSQLException(e);
         }
     }
 
+    public static Connection open(DatabaseOptions databaseOptions) throws SQLException {
+        String jdbcUrl = STR."jdbc:postgresql://\{databaseOptions.host()}:\{databaseOptions.port()}/\{databaseOptions.database()}";
+        return DriverManager.getConnection(jdbcUrl, databaseOptions.username(), databaseOptions.password());
+    }
+
     @Override
     public void disconnect() throws FishSQLException {
         try {
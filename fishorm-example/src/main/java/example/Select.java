@@ -9,6 +9,7 @@ import de.bybackfish.sql.query.SelectQueryBuilder;
 import example.model.Employee;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public class Select {
 
@@ -32,5 +33,18 @@ public class Select {
     Employee.findOne(Employee.class, selectQueryBuilder).ifPresent(employee -> {
       System.out.println(employee.name);
     });
+
+    // Any number of ids is bound as a single array parameter
+    List<Employee> someEmployees = Employee.findMany(Employee.class, QueryBuilder.select("*").where(where -> where.in("id", List.of(1, 2, 3))));
+    System.out.println(someEmployees.size());
+
+    // Only fetch the name (and the primary key) of every employee
+    List<Employee> names = Employee.findMany(Employee.class, QueryBuilder.select(Employee.class, "name"));
+    System.out.println(names.size());
+
+    // Stream large results row by row instead of loading them into memory at once
+    try (Stream<Employee> employees = Employee.stream(Employee.class, QueryBuilder.select("*"))) {
+      employees.forEach(employee -> System.out.println(employee.name));
+    }
   }
 }
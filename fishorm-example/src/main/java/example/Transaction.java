@@ -4,8 +4,11 @@ import de.bybackfish.sql.core.DatabaseOptions;
 import de.bybackfish.sql.core.DatabaseProvider;
 import de.bybackfish.sql.core.FishDatabase;
 import de.bybackfish.sql.core.FishSQLException;
+import de.bybackfish.sql.core.TransactionOptions;
 import example.model.Employee;
 
+import java.sql.Connection;
+
 public class Transaction {
 
     public static void main() throws FishSQLException, ClassNotFoundException {
@@ -28,5 +31,14 @@ public class Transaction {
                     System.out.println("An error occurred: " + error.get());
                 }
         );
+
+        // Every query inside the callable runs on the transaction's connection, even with a pooled adapter
+        fishDatabase.openTransaction(TransactionOptions.defaults()
+                        .withReadOnly(true)
+                        .withIsolationLevel(Connection.TRANSACTION_REPEATABLE_READ),
+                () -> {
+                    System.out.println(STR."\{Employee.all(Employee.class).size()} employees");
+                    return true;
+                });
     }
 }
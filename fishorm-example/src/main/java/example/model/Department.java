@@ -1,11 +1,15 @@
 package example.model;
 
+import de.bybackfish.sql.annotation.Cacheable;
 import de.bybackfish.sql.annotation.Field;
 import de.bybackfish.sql.annotation.PrimaryKey;
 import de.bybackfish.sql.annotation.Table;
 import de.bybackfish.sql.core.DatabaseModel;
 
+import java.util.concurrent.TimeUnit;
+
 @Table("department")
+@Cacheable(maxSize = 1_000, ttl = 10, unit = TimeUnit.MINUTES)
 @SuppressWarnings("unused")
 public class Department extends DatabaseModel {
     /**
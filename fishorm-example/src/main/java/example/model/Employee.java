@@ -25,6 +25,11 @@ public class Employee extends DatabaseModel {
     @LazyLoaded(value = "id")
     public Lazy<List<EmployeeDepartmentLink>> department;
 
+    // Many-to-many relations can skip the link model and load through the link table with a single join.
+    // The link columns default to "<table>_id", i.e. employee_department_link.employee_id and .department_id.
+    @LazyLoaded(value = "id", linkTable = "employee_department_link")
+    public Lazy<List<Department>> departments;
+
     @Field("type")
     public EmployeeType type;
 
@@ -0,0 +1,398 @@
+package de.bybackfish.sql.processor;
+
+import javax.annotation.processing.*;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Generates a {@code de.bybackfish.sql.util.GeneratedModel} next to every model using the FishORM annotations,
+ * holding its table, columns, CRUD statements, and the constructor call, field accessors and row mapper that replace
+ * reflection at runtime. The generated classes are registered in {@code META-INF/services}, where the runtime picks
+ * them up.
+ * <p>
+ * The processor ships in its own artifact; add it to the annotation processor path of the module declaring the
+ * models. Models in a named module must also declare the generated classes with
+ * {@code provides de.bybackfish.sql.util.GeneratedModel with ...} in their {@code module-info}.
+ * <p>
+ * A model is skipped, and keeps being mapped reflectively, when the generated code could not access it: a private
+ * class, a private or missing no-args constructor, or private or final mapped fields.
+ * <p>
+ * The processor runs inside javac, which does not enable preview features, so unlike the runtime it must not use
+ * string templates.
+ */
+@SupportedAnnotationTypes({
+        "de.bybackfish.sql.annotation.Table",
+        "de.bybackfish.sql.annotation.Field",
+        "de.bybackfish.sql.annotation.PrimaryKey",
+        "de.bybackfish.sql.annotation.AutoGenerated",
+        "de.bybackfish.sql.annotation.ForeignKey",
+        "de.bybackfish.sql.annotation.LazyLoaded"
+})
+public class ModelProcessor extends AbstractProcessor {
+    private static final String DATABASE_MODEL = "de.bybackfish.sql.core.DatabaseModel";
+    private static final String LAZY = "de.bybackfish.sql.util.Lazy";
+    private static final String SERVICE_FILE = "META-INF/services/de.bybackfish.sql.util.GeneratedModel";
+
+    private final Set<String> generated = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> models = new LinkedHashSet<>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                Element type = element.getKind() == ElementKind.FIELD ? element.getEnclosingElement() : element;
+                if (type instanceof TypeElement typeElement && isModel(typeElement)) {
+                    models.add(typeElement);
+                }
+            }
+        }
+
+        for (TypeElement model : models) {
+            try {
+                generate(model);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to generate model: " + e.getMessage(), model);
+            }
+        }
+
+        if (roundEnv.processingOver() && !generated.isEmpty()) {
+            writeServiceFile();
+        }
+        return false;
+    }
+
+    private boolean isModel(TypeElement type) {
+        TypeElement databaseModel = processingEnv.getElementUtils().getTypeElement(DATABASE_MODEL);
+        return databaseModel != null
+                && type.getKind() == ElementKind.CLASS
+                && !type.getModifiers().contains(Modifier.ABSTRACT)
+                && processingEnv.getTypeUtils().isSubtype(type.asType(), databaseModel.asType());
+    }
+
+    private void generate(TypeElement model) throws IOException {
+        String reason = inaccessibleReason(model);
+        if (reason != null) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, model.getSimpleName() + " is mapped reflectively: " + reason, model);
+            return;
+        }
+
+        List<Column> columns = new ArrayList<>();
+        List<VariableElement> relations = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(model.getEnclosedElements())) {
+            if (field.getModifiers().contains(Modifier.STATIC)) continue;
+
+            boolean lazyLoaded = hasAnnotation(field, "LazyLoaded");
+            if (isLazy(field.asType())) {
+                if (lazyLoaded) relations.add(field);
+                continue;
+            }
+            if (lazyLoaded) continue;
+
+            String name = annotationValue(field, "Field", "value");
+            columns.add(new Column(field, name != null ? name : field.getSimpleName().toString(),
+                    hasAnnotation(field, "PrimaryKey"), hasAnnotation(field, "AutoGenerated")));
+        }
+
+        String tableName = annotationValue(model, "Table", "value");
+        if (tableName == null) {
+            tableName = model.getSimpleName().toString();
+        }
+
+        String packageName = processingEnv.getElementUtils().getPackageOf(model).getQualifiedName().toString();
+        String className = generatedName(model);
+        String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, model).openWriter()) {
+            writer.write(render(model, packageName, className, tableName, columns, relations));
+        }
+        generated.add(qualifiedName);
+    }
+
+    private String inaccessibleReason(TypeElement model) {
+        for (Element enclosing = model; enclosing instanceof TypeElement type; enclosing = type.getEnclosingElement()) {
+            if (type.getModifiers().contains(Modifier.PRIVATE)) return "the class is private";
+        }
+        if (model.getNestingKind() == NestingKind.MEMBER && !model.getModifiers().contains(Modifier.STATIC)) {
+            return "the class is an inner class";
+        }
+
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(model.getEnclosedElements());
+        boolean accessibleConstructor = constructors.stream().anyMatch(constructor ->
+                constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE));
+        if (!accessibleConstructor) return "no accessible no-args constructor";
+
+        for (VariableElement field : ElementFilter.fieldsIn(model.getEnclosedElements())) {
+            if (field.getModifiers().contains(Modifier.STATIC)) continue;
+            if (!isLazy(field.asType()) && hasAnnotation(field, "LazyLoaded")) continue;
+            if (isLazy(field.asType()) && !hasAnnotation(field, "LazyLoaded")) continue;
+
+            if (field.getModifiers().contains(Modifier.PRIVATE)) return "field " + field.getSimpleName() + " is private";
+            if (field.getModifiers().contains(Modifier.FINAL)) return "field " + field.getSimpleName() + " is final";
+        }
+        return null;
+    }
+
+    private String render(TypeElement model, String packageName, String className, String tableName, List<Column> columns, List<VariableElement> relations) {
+        String type = model.getQualifiedName().toString();
+        List<Column> primaryKeys = columns.stream().filter(Column::primaryKey).toList();
+        List<String> inserted = columns.stream().filter(column -> !column.autoGenerated()).map(Column::name).toList();
+        String primaryKeyCondition = primaryKeys.stream().map(column -> column.name() + " = ?").collect(Collectors.joining(" AND "));
+
+        String insertSql = "INSERT INTO " + tableName + " (" + String.join(", ", inserted) + ") VALUES (" + String.join(", ", Collections.nCopies(inserted.size(), "?")) + ")";
+        String updateSql = primaryKeys.isEmpty() ? null : "UPDATE " + tableName + " SET " + columns.stream().filter(column -> !column.primaryKey()).map(column -> column.name() + " = ?").collect(Collectors.joining(", ")) + " WHERE " + primaryKeyCondition;
+        String deleteSql = primaryKeys.isEmpty() ? null : "DELETE FROM " + tableName + " WHERE " + primaryKeyCondition;
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("""
+                /**
+                 * Generated by {@link de.bybackfish.sql.processor.ModelProcessor} from {@link %1$s}. Do not edit.
+                 */
+                @SuppressWarnings({"unchecked", "rawtypes"})
+                public final class %2$s implements de.bybackfish.sql.util.GeneratedModel<%1$s> {
+                    @Override
+                    public Class<%1$s> type() {
+                        return %1$s.class;
+                    }
+
+                    @Override
+                    public String tableName() {
+                        return %3$s;
+                    }
+
+                    @Override
+                    public java.util.List<String> columnNames() {
+                        return java.util.List.of(%4$s);
+                    }
+
+                    @Override
+                    public java.util.List<String> relationNames() {
+                        return java.util.List.of(%5$s);
+                    }
+
+                    @Override
+                    public String insertSql() {
+                        return %6$s;
+                    }
+
+                    @Override
+                    public String updateSql() {
+                        return %7$s;
+                    }
+
+                    @Override
+                    public String deleteSql() {
+                        return %8$s;
+                    }
+
+                    @Override
+                    public %1$s newInstance() {
+                        return new %1$s();
+                    }
+
+                    @Override
+                    public Object get(%1$s model, int column) {
+                        switch (column) {
+                """.formatted(type, className, literal(tableName),
+                columns.stream().map(column -> literal(column.name())).collect(Collectors.joining(", ")),
+                relations.stream().map(relation -> literal(relation.getSimpleName().toString())).collect(Collectors.joining(", ")),
+                literal(insertSql), literal(updateSql), literal(deleteSql)));
+
+        for (int i = 0; i < columns.size(); i++) {
+            source.append("""
+                                case %d: return model.%s;
+                    """.formatted(i, columns.get(i).field().getSimpleName()));
+        }
+        source.append("""
+                            default: throw new IndexOutOfBoundsException(column);
+                        }
+                    }
+
+                    @Override
+                    public void set(%s model, int column, Object value) {
+                        switch (column) {
+                """.formatted(type));
+        for (int i = 0; i < columns.size(); i++) {
+            VariableElement field = columns.get(i).field();
+            source.append("""
+                                case %d: model.%s = (%s) value; return;
+                    """.formatted(i, field.getSimpleName(), boxedErasure(field.asType())));
+        }
+        source.append("""
+                            default: throw new IndexOutOfBoundsException(column);
+                        }
+                    }
+
+                    @Override
+                    public Object getRelation(%s model, int relation) {
+                        switch (relation) {
+                """.formatted(type));
+        for (int i = 0; i < relations.size(); i++) {
+            source.append("""
+                                case %d: return model.%s;
+                    """.formatted(i, relations.get(i).getSimpleName()));
+        }
+        source.append("""
+                            default: throw new IndexOutOfBoundsException(relation);
+                        }
+                    }
+
+                    @Override
+                    public void setRelation(%s model, int relation, de.bybackfish.sql.util.Lazy<?> value) {
+                        switch (relation) {
+                """.formatted(type));
+        for (int i = 0; i < relations.size(); i++) {
+            source.append("""
+                                case %d: model.%s = (de.bybackfish.sql.util.Lazy) value; return;
+                    """.formatted(i, relations.get(i).getSimpleName()));
+        }
+        source.append("""
+                            default: throw new IndexOutOfBoundsException(relation);
+                        }
+                    }
+
+                    @Override
+                    public de.bybackfish.sql.util.RowMapper<%1$s> rowMapper(de.bybackfish.sql.util.EntityMetadata<%1$s> metadata) {
+                """.formatted(type));
+
+        // the runtime only uses a generated model whose columns and relations match its own, in the same order
+        for (int i = 0; i < columns.size(); i++) {
+            source.append("""
+                            de.bybackfish.sql.util.EntityMetadata.ColumnMetadata column%1$d = metadata.columns().get(%1$d);
+                    """.formatted(i));
+        }
+        for (int i = 0; i < relations.size(); i++) {
+            source.append("""
+                            de.bybackfish.sql.util.EntityMetadata.RelationMetadata relation%1$d = metadata.relations().get(%1$d);
+                    """.formatted(i));
+        }
+
+        source.append("""
+
+                        return (resultSet, plan) -> {
+                            try {
+                                %1$s model = new %1$s();
+                """.formatted(type));
+        for (int i = 0; i < columns.size(); i++) {
+            VariableElement field = columns.get(i).field();
+            source.append("""
+                                    model.%s = %s;
+                    """.formatted(field.getSimpleName(), reader(field.asType(), i)));
+        }
+        for (int i = 0; i < relations.size(); i++) {
+            source.append("""
+                                    model.%s = (de.bybackfish.sql.util.Lazy) de.bybackfish.sql.util.ObjectMapper.createLazy(model, relation%d);
+                    """.formatted(relations.get(i).getSimpleName(), i));
+        }
+        source.append("""
+                                return model;
+                            } catch (java.sql.SQLException e) {
+                                throw new de.bybackfish.sql.core.FishSQLException(e);
+                            }
+                        };
+                    }
+                }
+                """);
+        return source.toString();
+    }
+
+    private String reader(TypeMirror type, int column) {
+        String index = "plan.index(" + column + ")";
+        return switch (type.getKind()) {
+            case INT -> "column" + column + ".readInt(resultSet, " + index + ")";
+            case LONG -> "column" + column + ".readLong(resultSet, " + index + ")";
+            case DOUBLE -> "column" + column + ".readDouble(resultSet, " + index + ")";
+            default -> "(" + boxedErasure(type) + ") column" + column + ".read(resultSet, " + index + ")";
+        };
+    }
+
+    /**
+     * The type to cast a boxed value to before assigning it to a field of {@code type}.
+     */
+    private String boxedErasure(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+        }
+        return processingEnv.getTypeUtils().erasure(type).toString();
+    }
+
+    private boolean isLazy(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED
+                && ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals(LAZY);
+    }
+
+    private static boolean hasAnnotation(Element element, String simpleName) {
+        return annotation(element, simpleName) != null;
+    }
+
+    private static AnnotationMirror annotation(Element element, String simpleName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement annotation = (TypeElement) mirror.getAnnotationType().asElement();
+            if (annotation.getQualifiedName().contentEquals("de.bybackfish.sql.annotation." + simpleName)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private static String annotationValue(Element element, String simpleName, String attribute) {
+        AnnotationMirror mirror = annotation(element, simpleName);
+        if (mirror == null) return null;
+
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(attribute)) {
+                return entry.getValue().getValue().toString();
+            }
+        }
+        return null;
+    }
+
+    private static String generatedName(TypeElement model) {
+        StringBuilder name = new StringBuilder(model.getSimpleName());
+        for (Element enclosing = model.getEnclosingElement(); enclosing instanceof TypeElement type; enclosing = type.getEnclosingElement()) {
+            name.insert(0, '_').insert(0, type.getSimpleName());
+        }
+        return name.append("_FishModel").toString();
+    }
+
+    private static String literal(String value) {
+        if (value == null) return "null";
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    private void writeServiceFile() {
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (Writer writer = file.openWriter()) {
+                for (String name : generated) {
+                    writer.write(name);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to register generated models: " + e.getMessage());
+        }
+    }
+
+    private record Column(VariableElement field, String name, boolean primaryKey, boolean autoGenerated) {
+    }
+}
@@ -0,0 +1,27 @@
+package de.bybackfish.sql.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the rows of this model process-wide by primary key, see {@link de.bybackfish.sql.core.EntityCache}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Cacheable {
+    /**
+     * The maximum number of cached rows.
+     */
+    long maxSize() default 10_000;
+
+    /**
+     * How long a row stays cached after it was loaded, in {@link #unit()}s. {@code 0} keeps it until it is evicted or
+     * invalidated.
+     */
+    long ttl() default 0;
+
+    TimeUnit unit() default TimeUnit.SECONDS;
+}
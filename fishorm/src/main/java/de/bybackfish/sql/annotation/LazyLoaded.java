@@ -0,0 +1,34 @@
+package de.bybackfish.sql.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface LazyLoaded {
+    String value();
+
+    /**
+     * Loads the relation through this link table instead of a {@link ForeignKey}, joining
+     * {@code value = linkTable.linkColumn} and {@code linkTable.linkTargetColumn = target.targetColumn}.
+     */
+    String linkTable() default "";
+
+    /**
+     * The link table column referencing this model, {@code <table>_id} by default.
+     */
+    String linkColumn() default "";
+
+    /**
+     * The link table column referencing the target model, {@code <target table>_id} by default.
+     */
+    String linkTargetColumn() default "";
+
+    /**
+     * The target column referenced by {@link #linkTargetColumn()}, the target's primary key by default.
+     */
+    String targetColumn() default "";
+
+}
@@ -0,0 +1,21 @@
+package de.bybackfish.sql.cache;
+
+/**
+ * A snapshot of the counters of a {@link TinyLfuCache}.
+ *
+ * @param evictions entries removed to stay within the maximum weight, not counting invalidations and expirations
+ */
+public record CacheStats(long hits, long misses, long evictions) {
+
+    public long requests() {
+        return hits + misses;
+    }
+
+    /**
+     * @return the ratio of hits to requests, {@code 1} if there were no requests
+     */
+    public double hitRate() {
+        long requests = requests();
+        return requests == 0 ? 1 : (double) hits / requests;
+    }
+}
@@ -0,0 +1,88 @@
+package de.bybackfish.sql.cache;
+
+/**
+ * A count-min sketch estimating how often keys were accessed, with four 4-bit counters per key. Once the number of
+ * increments reaches ten times the cache size, all counters are halved, so the estimate favours recent popularity.
+ * Not thread-safe; {@link TinyLfuCache} only uses it under its eviction lock.
+ */
+final class FrequencySketch {
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    private long[] table;
+    private int sampleSize;
+    private int size;
+
+    FrequencySketch(long maximumSize) {
+        ensureCapacity(maximumSize);
+    }
+
+    /**
+     * Grows the sketch to track {@code maximumSize} keys. Growing discards all counts.
+     */
+    void ensureCapacity(long maximumSize) {
+        int capacity = (int) Math.clamp(maximumSize, 16, 1 << 24);
+        int length = Integer.highestOneBit(capacity - 1) << 1;
+        if (table != null && table.length >= length) return;
+
+        this.table = new long[length];
+        this.sampleSize = 10 * capacity;
+        this.size = 0;
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xFL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++size == sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long mask = 0xFL << offset;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    private void reset() {
+        int odd = 0;
+        for (int i = 0; i < table.length; i++) {
+            odd += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size - (odd >>> 2)) >>> 1;
+    }
+
+    private int indexOf(int hash, int i) {
+        long index = (hash + SEEDS[i]) * SEEDS[i];
+        index += index >>> 32;
+        return ((int) index) & (table.length - 1);
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
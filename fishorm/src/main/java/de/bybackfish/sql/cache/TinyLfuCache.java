@@ -0,0 +1,433 @@
+package de.bybackfish.sql.cache;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * A bounded cache with a W-TinyLFU eviction policy. New entries enter a small LRU window; entries leaving the window
+ * only replace the eviction victim of the main space if a {@link FrequencySketch} estimates that they are accessed
+ * more often. The main space is a segmented LRU, so entries accessed again are protected from one-off scans.
+ * <p>
+ * Reads are lock-free: they look the entry up in a {@link ConcurrentHashMap} and record the access in a striped,
+ * lossy buffer that is replayed into the policy under a lock once it fills up or when the cache is written to.
+ * Writes, which are expected to be rare, update the policy directly.
+ */
+public final class TinyLfuCache<K, V> {
+    private static final int READ_BUFFER_SIZE = 16;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+    private static final int REMOVED = 3;
+
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final ReadBuffer<K, V>[] readBuffers;
+    private final FrequencySketch sketch;
+    private final ToIntBiFunction<? super K, ? super V> weigher;
+    private final Consumer<? super K> removalListener;
+    private final long expireAfterWriteNanos;
+
+    private final long maximumWeight;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private final AccessOrder<K, V> window = new AccessOrder<>();
+    private final AccessOrder<K, V> probation = new AccessOrder<>();
+    private final AccessOrder<K, V> protectedSegment = new AccessOrder<>();
+    private long windowWeight;
+    private long protectedWeight;
+    private volatile long weightedSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maximumSize      the maximum number of entries
+     * @param expireAfterWrite how long entries are kept after they were written, {@link Duration#ZERO} to keep them
+     *                         until they are evicted
+     */
+    public TinyLfuCache(long maximumSize, Duration expireAfterWrite) {
+        this(maximumSize, expireAfterWrite, (_, _) -> 1, _ -> {}, maximumSize);
+    }
+
+    /**
+     * @param maximumWeight the maximum total weight of all entries, as determined by {@code weigher}
+     */
+    public TinyLfuCache(long maximumWeight, Duration expireAfterWrite, ToIntBiFunction<? super K, ? super V> weigher) {
+        this(maximumWeight, expireAfterWrite, weigher, _ -> {});
+    }
+
+    /**
+     * @param removalListener called with the key of every entry that leaves the cache, by eviction, expiry or
+     *                        invalidation, or is not cached because it is too heavy, but not when its value is
+     *                        replaced. It runs under the cache's lock, so it must be quick and must not use the cache.
+     */
+    public TinyLfuCache(long maximumWeight, Duration expireAfterWrite, ToIntBiFunction<? super K, ? super V> weigher,
+                        Consumer<? super K> removalListener) {
+        // the number of entries is unknown, so the sketch grows with it instead of being sized by the weight
+        this(maximumWeight, expireAfterWrite, weigher, removalListener, 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private TinyLfuCache(long maximumWeight, Duration expireAfterWrite, ToIntBiFunction<? super K, ? super V> weigher,
+                         Consumer<? super K> removalListener, long expectedSize) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException(STR."maximumWeight must be positive, got \{maximumWeight}");
+        }
+        this.maximumWeight = maximumWeight;
+        this.windowMaximum = Math.max(1, maximumWeight / 100);
+        this.protectedMaximum = (maximumWeight - windowMaximum) * 4 / 5;
+        this.expireAfterWriteNanos = expireAfterWrite.toNanos();
+        this.weigher = weigher;
+        this.removalListener = removalListener;
+        this.sketch = new FrequencySketch(expectedSize);
+
+        int stripes = Integer.highestOneBit(Math.clamp(Runtime.getRuntime().availableProcessors(), 1, 64) * 2 - 1);
+        this.readBuffers = new ReadBuffer[stripes];
+        for (int i = 0; i < stripes; i++) {
+            readBuffers[i] = new ReadBuffer<>();
+        }
+    }
+
+    /**
+     * @return the cached value, {@code null} if there is none or it has expired
+     */
+    public V get(K key) {
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        if (isExpired(node, System.nanoTime())) {
+            misses.increment();
+            evictionLock.lock();
+            try {
+                if (data.remove(key, node)) {
+                    unlink(node);
+                    removalListener.accept(key);
+                }
+            } finally {
+                evictionLock.unlock();
+            }
+            return null;
+        }
+
+        hits.increment();
+        ReadBuffer<K, V> buffer = readBuffers[stripe()];
+        if (!buffer.offer(node) && evictionLock.tryLock()) {
+            try {
+                drainReadBuffers();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+        return node.value;
+    }
+
+    /**
+     * Caches {@code value}, replacing any previous value of {@code key}. Values heavier than the maximum weight are
+     * not cached.
+     */
+    public void put(K key, V value) {
+        put(key, value, expireAfterWriteNanos);
+    }
+
+    /**
+     * Like {@link #put(Object, Object)}, expiring the entry after {@code expireAfterWrite} instead of the cache's
+     * default.
+     */
+    public void put(K key, V value, Duration expireAfterWrite) {
+        put(key, value, expireAfterWrite.toNanos());
+    }
+
+    private void put(K key, V value, long expireAfterWriteNanos) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+
+        int weight = weigher.applyAsInt(key, value);
+        Node<K, V> node = new Node<>(key, value, weight, System.nanoTime(), expireAfterWriteNanos);
+
+        evictionLock.lock();
+        try {
+            drainReadBuffers();
+
+            Node<K, V> previous = weight > maximumWeight ? data.remove(key) : data.put(key, node);
+            if (previous != null) {
+                unlink(previous);
+            }
+            if (weight > maximumWeight) {
+                removalListener.accept(key);
+                return;
+            }
+
+            sketch.ensureCapacity(data.size());
+            sketch.increment(key);
+            node.queue = WINDOW;
+            window.addLast(node);
+            windowWeight += weight;
+            weightedSize += weight;
+            evict();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void invalidate(K key) {
+        evictionLock.lock();
+        try {
+            Node<K, V> node = data.remove(key);
+            if (node != null) {
+                unlink(node);
+                removalListener.accept(key);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Removes every entry whose key matches {@code predicate}.
+     */
+    public void invalidateAll(Predicate<? super K> predicate) {
+        evictionLock.lock();
+        try {
+            data.values().removeIf(node -> {
+                if (!predicate.test(node.key)) return false;
+                unlink(node);
+                removalListener.accept(node.key);
+                return true;
+            });
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        invalidateAll(_ -> true);
+    }
+
+    /**
+     * The number of entries, including expired entries that were not removed yet.
+     */
+    public long estimatedSize() {
+        return data.size();
+    }
+
+    public long weightedSize() {
+        return weightedSize;
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    private boolean isExpired(Node<K, V> node, long now) {
+        return node.expireAfterWriteNanos > 0 && now - node.writeTime >= node.expireAfterWriteNanos;
+    }
+
+    private int stripe() {
+        long id = Thread.currentThread().threadId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 40) & (readBuffers.length - 1);
+    }
+
+    private void drainReadBuffers() {
+        for (ReadBuffer<K, V> buffer : readBuffers) {
+            buffer.drain(this::onAccess);
+        }
+    }
+
+    private void onAccess(Node<K, V> node) {
+        if (node.queue == REMOVED) return;
+
+        sketch.increment(node.key);
+        switch (node.queue) {
+            case WINDOW -> window.moveToLast(node);
+            case PROBATION -> {
+                probation.remove(node);
+                node.queue = PROTECTED;
+                protectedSegment.addLast(node);
+                protectedWeight += node.weight;
+
+                while (protectedWeight > protectedMaximum && protectedSegment.first() != null) {
+                    Node<K, V> demoted = protectedSegment.first();
+                    protectedSegment.remove(demoted);
+                    protectedWeight -= demoted.weight;
+                    demoted.queue = PROBATION;
+                    probation.addLast(demoted);
+                }
+            }
+            case PROTECTED -> protectedSegment.moveToLast(node);
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Moves entries overflowing the window into probation, then evicts until the cache is within its maximum
+     * weight. Each entry that just left the window competes with the least recently used probation entry, and the
+     * one with the lower estimated frequency is evicted.
+     */
+    private void evict() {
+        while (windowWeight > windowMaximum) {
+            Node<K, V> candidate = window.first();
+            window.remove(candidate);
+            windowWeight -= candidate.weight;
+            candidate.queue = PROBATION;
+            probation.addLast(candidate);
+        }
+
+        while (weightedSize > maximumWeight) {
+            Node<K, V> victim = probation.first();
+            Node<K, V> candidate = probation.last();
+            Node<K, V> evicted;
+            if (victim == null) {
+                evicted = protectedSegment.first() != null ? protectedSegment.first() : window.first();
+            } else if (victim == candidate) {
+                evicted = victim;
+            } else {
+                evicted = sketch.frequency(candidate.key) > sketch.frequency(victim.key) ? victim : candidate;
+            }
+            if (evicted == null) return;
+
+            data.remove(evicted.key, evicted);
+            unlink(evicted);
+            evictions.increment();
+            removalListener.accept(evicted.key);
+        }
+    }
+
+    private void unlink(Node<K, V> node) {
+        switch (node.queue) {
+            case WINDOW -> {
+                window.remove(node);
+                windowWeight -= node.weight;
+            }
+            case PROBATION -> probation.remove(node);
+            case PROTECTED -> {
+                protectedSegment.remove(node);
+                protectedWeight -= node.weight;
+            }
+            default -> {
+                return;
+            }
+        }
+        node.queue = REMOVED;
+        weightedSize -= node.weight;
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        final int weight;
+        final long writeTime;
+        final long expireAfterWriteNanos;
+        int queue = REMOVED;
+        Node<K, V> previous;
+        Node<K, V> next;
+
+        Node(K key, V value, int weight, long writeTime, long expireAfterWriteNanos) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = writeTime;
+            this.expireAfterWriteNanos = expireAfterWriteNanos;
+        }
+    }
+
+    /**
+     * An intrusive doubly linked list, least recently used first.
+     */
+    private static final class AccessOrder<K, V> {
+        private Node<K, V> head;
+        private Node<K, V> tail;
+
+        Node<K, V> first() {
+            return head;
+        }
+
+        Node<K, V> last() {
+            return tail;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.previous = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.previous == null) {
+                head = node.next;
+            } else {
+                node.previous.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.previous;
+            } else {
+                node.next.previous = node.previous;
+            }
+            node.previous = null;
+            node.next = null;
+        }
+
+        void moveToLast(Node<K, V> node) {
+            if (node != tail) {
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+
+    /**
+     * A bounded ring of recorded reads. Readers claim slots with a CAS and drop the read when the ring is full or
+     * contended; the policy only needs a sample of the accesses.
+     */
+    private static final class ReadBuffer<K, V> {
+        private final AtomicReferenceArray<Node<K, V>> buffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        private final AtomicLong writeCounter = new AtomicLong();
+        private volatile long readCounter;
+
+        /**
+         * @return {@code false} if the buffer is full and should be drained
+         */
+        boolean offer(Node<K, V> node) {
+            long tail = writeCounter.get();
+            if (tail - readCounter >= READ_BUFFER_SIZE) {
+                return false;
+            }
+            if (writeCounter.compareAndSet(tail, tail + 1)) {
+                buffer.lazySet((int) (tail & READ_BUFFER_MASK), node);
+            }
+            return true;
+        }
+
+        void drain(Consumer<Node<K, V>> consumer) {
+            long head = readCounter;
+            long tail = writeCounter.get();
+            for (; head < tail; head++) {
+                int index = (int) (head & READ_BUFFER_MASK);
+                Node<K, V> node = buffer.get(index);
+                if (node == null) break;
+
+                buffer.lazySet(index, null);
+                consumer.accept(node);
+            }
+            readCounter = head;
+        }
+    }
+}
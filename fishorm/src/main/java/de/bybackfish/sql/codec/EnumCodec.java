@@ -0,0 +1,61 @@
+package de.bybackfish.sql.codec;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps an enum to a PostgreSQL enum or text column by name, through a lookup table built once per enum instead of
+ * {@link Enum#valueOf} per row.
+ */
+public final class EnumCodec<E extends Enum<E>> implements TypeCodec<E> {
+    private final Class<E> type;
+    private final Map<String, E> constants;
+
+    public EnumCodec(Class<E> type) {
+        this.type = type;
+
+        Map<String, E> constants = new HashMap<>();
+        for (E constant : type.getEnumConstants()) {
+            constants.put(constant.name(), constant);
+        }
+        this.constants = Map.copyOf(constants);
+    }
+
+    @Override
+    public Class<E> type() {
+        return type;
+    }
+
+    @Override
+    public E read(ResultSet resultSet, int index) throws SQLException {
+        String name = resultSet.getString(index);
+        return name == null ? null : valueOf(name);
+    }
+
+    public E valueOf(String name) {
+        E constant = constants.get(name);
+        if (constant == null) {
+            throw new IllegalArgumentException(STR."No enum constant \{type.getName()}.\{name}");
+        }
+        return constant;
+    }
+
+    @Override
+    public E decodeJson(Object value) {
+        return value == null ? null : valueOf(value.toString());
+    }
+
+    @Override
+    public boolean decodesJson() {
+        return true;
+    }
+
+    @Override
+    public void bind(PreparedStatement statement, int index, E value) throws SQLException {
+        statement.setObject(index, value.name(), Types.OTHER);
+    }
+}
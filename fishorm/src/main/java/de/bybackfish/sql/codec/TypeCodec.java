@@ -0,0 +1,105 @@
+package de.bybackfish.sql.codec;
+
+import de.bybackfish.sql.util.Json;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.Function;
+
+/**
+ * Reads a Java type from a result set column and binds it as a statement parameter. Register codecs with
+ * {@link TypeCodecs#register(TypeCodec)} before the models using them are first mapped.
+ */
+public interface TypeCodec<T> {
+    Class<T> type();
+
+    /**
+     * @return the value of the column, {@code null} for SQL {@code NULL}
+     */
+    T read(ResultSet resultSet, int index) throws SQLException;
+
+    void bind(PreparedStatement statement, int index, T value) throws SQLException;
+
+    /**
+     * The value written for {@code value} by {@code COPY}, which cannot bind parameters. It must be a type the
+     * {@code COPY} encoder knows, e.g. the JSON text of a {@code jsonb} value. Defaults to {@code value} itself.
+     */
+    default Object encode(T value) {
+        return value;
+    }
+
+    /**
+     * Converts {@code value}, the column as parsed from a {@code FetchMode.JSON} document, e.g. a string for a
+     * timestamp or a list for an array. Only called if {@link #decodesJson()}.
+     */
+    default T decodeJson(Object value) {
+        return type().cast(Json.convert(value, type()));
+    }
+
+    /**
+     * Whether {@link #decodeJson(Object)} supports the JSON form of the column. Defaults to the types
+     * {@link Json#convert(Object, Class)} knows.
+     */
+    default boolean decodesJson() {
+        return Json.supports(type());
+    }
+
+    static <T> TypeCodec<T> of(Class<T> type, Reader<T> reader, Binder<T> binder) {
+        return of(type, reader, binder, value -> value);
+    }
+
+    static <T> TypeCodec<T> of(Class<T> type, Reader<T> reader, Binder<T> binder, Function<T, Object> encoder) {
+        return of(type, reader, binder, encoder, null);
+    }
+
+    /**
+     * @param jsonDecoder converts the JSON form of the column, {@code null} to use the default
+     *                    {@link #decodeJson(Object)}
+     */
+    static <T> TypeCodec<T> of(Class<T> type, Reader<T> reader, Binder<T> binder, Function<T, Object> encoder,
+                               Function<Object, T> jsonDecoder) {
+        return new TypeCodec<>() {
+            @Override
+            public Class<T> type() {
+                return type;
+            }
+
+            @Override
+            public T read(ResultSet resultSet, int index) throws SQLException {
+                return reader.read(resultSet, index);
+            }
+
+            @Override
+            public void bind(PreparedStatement statement, int index, T value) throws SQLException {
+                binder.bind(statement, index, value);
+            }
+
+            @Override
+            public Object encode(T value) {
+                return encoder.apply(value);
+            }
+
+            @Override
+            public T decodeJson(Object value) {
+                if (jsonDecoder == null) return TypeCodec.super.decodeJson(value);
+                return value == null ? null : jsonDecoder.apply(value);
+            }
+
+            @Override
+            public boolean decodesJson() {
+                return jsonDecoder != null || TypeCodec.super.decodesJson();
+            }
+        };
+    }
+
+    @FunctionalInterface
+    interface Reader<T> {
+        T read(ResultSet resultSet, int index) throws SQLException;
+    }
+
+    @FunctionalInterface
+    interface Binder<T> {
+        void bind(PreparedStatement statement, int index, T value) throws SQLException;
+    }
+}
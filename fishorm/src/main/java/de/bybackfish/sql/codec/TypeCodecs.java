@@ -0,0 +1,139 @@
+package de.bybackfish.sql.codec;
+
+import de.bybackfish.sql.util.Json;
+import de.bybackfish.sql.util.SqlTypes;
+
+import java.lang.reflect.Array;
+import java.sql.*;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * The registry of {@link TypeCodec}s. Integers, longs, doubles, booleans and strings use the typed JDBC getters and
+ * setters out of the box, enums use an {@link EnumCodec}. Codecs for other types, like the ones created by
+ * {@link #uuid()}, {@link #javaTime(Class)}, {@link #jsonb(Class, Function, Function)} and {@link #array(Class)},
+ * are opt-in:
+ * <pre>{@code
+ * TypeCodecs.register(TypeCodecs.uuid());
+ * TypeCodecs.register(TypeCodecs.javaTime(LocalDate.class));
+ * }</pre>
+ */
+public final class TypeCodecs {
+    private static final Map<Class<?>, TypeCodec<?>> CODECS = new ConcurrentHashMap<>();
+
+    static {
+        register(TypeCodec.of(Integer.class, (resultSet, index) -> {
+            int value = resultSet.getInt(index);
+            return resultSet.wasNull() ? null : value;
+        }, (statement, index, value) -> statement.setInt(index, value)));
+        register(TypeCodec.of(Long.class, (resultSet, index) -> {
+            long value = resultSet.getLong(index);
+            return resultSet.wasNull() ? null : value;
+        }, (statement, index, value) -> statement.setLong(index, value)));
+        register(TypeCodec.of(Double.class, (resultSet, index) -> {
+            double value = resultSet.getDouble(index);
+            return resultSet.wasNull() ? null : value;
+        }, (statement, index, value) -> statement.setDouble(index, value)));
+        register(TypeCodec.of(Boolean.class, (resultSet, index) -> {
+            boolean value = resultSet.getBoolean(index);
+            return resultSet.wasNull() ? null : value;
+        }, (statement, index, value) -> statement.setBoolean(index, value)));
+        register(TypeCodec.of(String.class, ResultSet::getString, PreparedStatement::setString));
+    }
+
+    private TypeCodecs() {
+    }
+
+    /**
+     * Registers {@code codec} for its type, replacing any previous codec of that type.
+     */
+    public static <T> void register(TypeCodec<T> codec) {
+        CODECS.put(codec.type(), codec);
+    }
+
+    /**
+     * @return the codec of {@code type}, {@code null} if values of the type are read and bound as plain objects
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <T> TypeCodec<T> find(Class<T> type) {
+        TypeCodec<?> codec = CODECS.get(type);
+        if (codec == null && type.isEnum()) {
+            codec = CODECS.computeIfAbsent(type, _ -> new EnumCodec(type));
+        }
+        return (TypeCodec<T>) codec;
+    }
+
+    public static TypeCodec<UUID> uuid() {
+        return TypeCodec.of(UUID.class,
+                (resultSet, index) -> resultSet.getObject(index, UUID.class),
+                (statement, index, value) -> statement.setObject(index, value));
+    }
+
+    /**
+     * A codec for {@code java.time} types supported by JDBC 4.2, e.g. {@code LocalDate}, {@code LocalDateTime} and
+     * {@code OffsetDateTime}.
+     */
+    public static <T> TypeCodec<T> javaTime(Class<T> type) {
+        return TypeCodec.of(type,
+                (resultSet, index) -> resultSet.getObject(index, type),
+                (statement, index, value) -> statement.setObject(index, value));
+    }
+
+    /**
+     * A codec storing {@code type} as {@code jsonb}, using the given functions of the application's JSON library.
+     */
+    public static <T> TypeCodec<T> jsonb(Class<T> type, Function<String, T> parse, Function<T, String> serialize) {
+        return TypeCodec.of(type,
+                (resultSet, index) -> {
+                    String json = resultSet.getString(index);
+                    return json == null ? null : parse.apply(json);
+                },
+                // an untyped string parameter is cast to the column type by the server
+                (statement, index, value) -> statement.setObject(index, serialize.apply(value), Types.OTHER),
+                serialize::apply,
+                // a fetched jsonb column is nested into the document, not rendered as a string
+                value -> parse.apply(Json.write(value)));
+    }
+
+    /**
+     * A codec for one-dimensional array columns, e.g. {@code array(String[].class)} for {@code text[]}.
+     */
+    public static <T> TypeCodec<T> array(Class<T> arrayType) {
+        Class<?> componentType = arrayType.getComponentType();
+        if (componentType == null || componentType.isPrimitive()) {
+            throw new IllegalArgumentException(STR."Not an array of objects: \{arrayType.getName()}");
+        }
+
+        return TypeCodec.of(arrayType,
+                (resultSet, index) -> {
+                    java.sql.Array array = resultSet.getArray(index);
+                    if (array == null) return null;
+
+                    try {
+                        Object[] elements = (Object[]) array.getArray();
+                        Object typed = Array.newInstance(componentType, elements.length);
+                        System.arraycopy(elements, 0, typed, 0, elements.length);
+                        return arrayType.cast(typed);
+                    } finally {
+                        array.free();
+                    }
+                },
+                (statement, index, value) -> statement.setArray(index,
+                        statement.getConnection().createArrayOf(SqlTypes.arrayElementType(componentType), (Object[]) value)),
+                value -> value,
+                value -> arrayType.cast(fromJson((List<?>) value, componentType)));
+    }
+
+    private static Object fromJson(List<?> elements, Class<?> componentType) {
+        TypeCodec<?> codec = find(componentType);
+        Object typed = Array.newInstance(componentType, elements.size());
+        for (int i = 0; i < elements.size(); i++) {
+            Object element = elements.get(i);
+            Array.set(typed, i, codec != null ? codec.decodeJson(element) : Json.convert(element, componentType));
+        }
+        return typed;
+    }
+}
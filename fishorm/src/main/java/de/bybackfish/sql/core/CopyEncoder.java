@@ -0,0 +1,343 @@
+package de.bybackfish.sql.core;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.*;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Encodes rows for {@code COPY ... FROM STDIN} one at a time, so the payload never has to be built in memory.
+ */
+abstract class CopyEncoder {
+    protected final OutputStream out;
+
+    CopyEncoder(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * @param columns the names of the copied columns
+     * @param types   the PostgreSQL type names of the copied columns, only used by {@link CopyFormat#BINARY}
+     */
+    static CopyEncoder of(CopyFormat format, OutputStream out, List<String> columns, List<String> types) {
+        return switch (format) {
+            case TEXT -> new Text(out);
+            case CSV -> new Csv(out);
+            case BINARY -> new Binary(out, columns, types);
+        };
+    }
+
+    void start() throws IOException {
+    }
+
+    /**
+     * Fails before a binary {@code COPY} starts if one of the column types has no binary encoding, see
+     * {@link Binary}.
+     */
+    static void requireBinarySupport(List<String> columns, List<String> types) throws FishSQLException {
+        for (int i = 0; i < types.size(); i++) {
+            if (!Binary.TYPES.contains(types.get(i))) {
+                throw new FishSQLException(STR."Binary COPY does not support column \{columns.get(i)} of type \{types.get(i)}, use CopyFormat.TEXT");
+            }
+        }
+    }
+
+    abstract void writeRow(List<Object> values) throws IOException, FishSQLException;
+
+    void finish() throws IOException {
+    }
+
+    static String toText(Object value) {
+        if (value instanceof Boolean bool) return bool ? "t" : "f";
+        if (value instanceof Enum<?> enumValue) return enumValue.name();
+        if (value instanceof byte[] bytes) return STR."\\x\{HexFormat.of().formatHex(bytes)}";
+        if (value instanceof Object[] array) return arrayLiteral(array);
+        return value.toString();
+    }
+
+    /**
+     * An array in PostgreSQL's external format, e.g. {@code {"a","b",NULL}}, with every element quoted.
+     */
+    private static String arrayLiteral(Object[] array) {
+        StringBuilder literal = new StringBuilder("{");
+        for (int i = 0; i < array.length; i++) {
+            if (i > 0) literal.append(',');
+
+            Object element = array[i];
+            if (element == null) {
+                literal.append("NULL");
+            } else if (element instanceof Object[] nested) {
+                literal.append(arrayLiteral(nested));
+            } else {
+                literal.append('"').append(toText(element).replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+            }
+        }
+        return literal.append('}').toString();
+    }
+
+    private static class Text extends CopyEncoder {
+        Text(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        void writeRow(List<Object> values) throws IOException {
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) line.append('\t');
+
+                Object value = values.get(i);
+                if (value == null) {
+                    line.append("\\N");
+                    continue;
+                }
+
+                String text = toText(value);
+                for (int c = 0; c < text.length(); c++) {
+                    char character = text.charAt(c);
+                    switch (character) {
+                        case '\\' -> line.append("\\\\");
+                        case '\n' -> line.append("\\n");
+                        case '\r' -> line.append("\\r");
+                        case '\t' -> line.append("\\t");
+                        default -> line.append(character);
+                    }
+                }
+            }
+            line.append('\n');
+            out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static class Csv extends CopyEncoder {
+        Csv(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        void writeRow(List<Object> values) throws IOException {
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) line.append(',');
+
+                Object value = values.get(i);
+                // an unquoted empty field is NULL
+                if (value == null) continue;
+
+                String text = toText(value);
+                boolean quote = text.isEmpty() || text.chars().anyMatch(c -> c == ',' || c == '"' || c == '\n' || c == '\r');
+                if (quote) {
+                    line.append('"').append(text.replace("\"", "\"\"")).append('"');
+                } else {
+                    line.append(text);
+                }
+            }
+            line.append('\n');
+            out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Encodes every value in the binary format of its column's type, see {@link CopyFormat#BINARY}.
+     */
+    private static class Binary extends CopyEncoder {
+        private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+        private static final LocalDate POSTGRES_EPOCH = LocalDate.of(2000, 1, 1);
+        private static final Instant POSTGRES_EPOCH_INSTANT = Instant.parse("2000-01-01T00:00:00Z");
+        private static final BigInteger NUMERIC_BASE = BigInteger.valueOf(10_000);
+        private static final Set<String> TYPES = Set.of(
+                "int2", "int4", "int8", "float4", "float8", "numeric", "bool", "uuid", "date", "timestamp",
+                "timestamptz", "bytea", "text", "varchar", "bpchar", "name", "json", "jsonb", "enum");
+
+        private final DataOutputStream data;
+        private final List<String> columns;
+        private final List<String> types;
+
+        Binary(OutputStream out, List<String> columns, List<String> types) {
+            super(out);
+            this.data = new DataOutputStream(out);
+            this.columns = columns;
+            this.types = types;
+        }
+
+        @Override
+        void start() throws IOException {
+            data.write(SIGNATURE);
+            data.writeInt(0); // flags
+            data.writeInt(0); // header extension length
+        }
+
+        @Override
+        void writeRow(List<Object> values) throws IOException, FishSQLException {
+            data.writeShort(values.size());
+            for (int i = 0; i < values.size(); i++) {
+                Object value = values.get(i);
+                if (value == null) {
+                    data.writeInt(-1);
+                } else if (!writeValue(value, types.get(i))) {
+                    throw new FishSQLException(STR."Binary COPY cannot write \{value.getClass().getName()} to column \{columns.get(i)} of type \{types.get(i)}, use CopyFormat.TEXT");
+                }
+            }
+        }
+
+        /**
+         * @return whether {@code value} could be encoded as {@code type}
+         */
+        private boolean writeValue(Object value, String type) throws IOException {
+            switch (type) {
+                case "int2", "int4", "int8" -> {
+                    if (!(value instanceof Byte || value instanceof Short || value instanceof Integer || value instanceof Long)) return false;
+                    long number = ((Number) value).longValue();
+                    switch (type) {
+                        case "int2" -> {
+                            if (number != (short) number) {
+                                throw new ArithmeticException(STR."\{number} does not fit into int2");
+                            }
+                            data.writeInt(2);
+                            data.writeShort((short) number);
+                        }
+                        case "int4" -> {
+                            data.writeInt(4);
+                            data.writeInt(Math.toIntExact(number));
+                        }
+                        default -> {
+                            data.writeInt(8);
+                            data.writeLong(number);
+                        }
+                    }
+                }
+                case "float4", "float8" -> {
+                    if (!(value instanceof Number number) || value instanceof BigDecimal || value instanceof BigInteger) return false;
+                    if (type.equals("float4")) {
+                        data.writeInt(4);
+                        data.writeFloat(number.floatValue());
+                    } else {
+                        data.writeInt(8);
+                        data.writeDouble(number.doubleValue());
+                    }
+                }
+                case "numeric" -> {
+                    if (!(value instanceof Number number)) return false;
+                    writeNumeric(number);
+                }
+                case "bool" -> {
+                    if (!(value instanceof Boolean bool)) return false;
+                    data.writeInt(1);
+                    data.writeByte(bool ? 1 : 0);
+                }
+                case "uuid" -> {
+                    if (!(value instanceof UUID uuid)) return false;
+                    data.writeInt(16);
+                    data.writeLong(uuid.getMostSignificantBits());
+                    data.writeLong(uuid.getLeastSignificantBits());
+                }
+                case "date" -> {
+                    if (!(value instanceof LocalDate date)) return false;
+                    data.writeInt(4);
+                    data.writeInt((int) ChronoUnit.DAYS.between(POSTGRES_EPOCH, date));
+                }
+                case "timestamp" -> {
+                    if (!(value instanceof LocalDateTime dateTime)) return false;
+                    data.writeInt(8);
+                    data.writeLong(ChronoUnit.MICROS.between(POSTGRES_EPOCH.atStartOfDay(), dateTime));
+                }
+                case "timestamptz" -> {
+                    Instant instant = switch (value) {
+                        case OffsetDateTime dateTime -> dateTime.toInstant();
+                        case Instant i -> i;
+                        default -> null;
+                    };
+                    if (instant == null) return false;
+                    data.writeInt(8);
+                    data.writeLong(ChronoUnit.MICROS.between(POSTGRES_EPOCH_INSTANT, instant));
+                }
+                case "bytea" -> {
+                    if (!(value instanceof byte[] bytes)) return false;
+                    data.writeInt(bytes.length);
+                    data.write(bytes);
+                }
+                case "jsonb" -> {
+                    if (!(value instanceof String text)) return false;
+                    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+                    data.writeInt(bytes.length + 1);
+                    data.writeByte(1); // jsonb format version
+                    data.write(bytes);
+                }
+                default -> {
+                    if (!(value instanceof String || value instanceof Enum<?>)) return false;
+                    writeText(toText(value));
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Writes PostgreSQL's numeric format: the number of base 10000 digits, the weight of the first digit, the
+         * sign, the display scale and the digits, most significant first.
+         */
+        private void writeNumeric(Number number) throws IOException {
+            if ((number instanceof Double || number instanceof Float) && !Double.isFinite(number.doubleValue())) {
+                if (Double.isInfinite(number.doubleValue())) {
+                    throw new ArithmeticException(STR."numeric cannot hold \{number}");
+                }
+                data.writeInt(8);
+                data.writeShort(0);
+                data.writeShort(0);
+                data.writeShort(0xC000);
+                data.writeShort(0);
+                return;
+            }
+
+            BigDecimal decimal = switch (number) {
+                case BigDecimal d -> d;
+                case BigInteger i -> new BigDecimal(i);
+                case Double d -> BigDecimal.valueOf(d);
+                case Float f -> new BigDecimal(f.toString());
+                default -> BigDecimal.valueOf(number.longValue());
+            };
+            int scale = Math.max(decimal.scale(), 0);
+            // align the fraction to whole base 10000 digits
+            BigInteger unscaled = decimal.abs().setScale((scale + 3) / 4 * 4).unscaledValue();
+
+            List<Short> digits = new ArrayList<>();
+            while (unscaled.signum() > 0) {
+                BigInteger[] quotientAndRemainder = unscaled.divideAndRemainder(NUMERIC_BASE);
+                digits.addFirst(quotientAndRemainder[1].shortValue());
+                unscaled = quotientAndRemainder[0];
+            }
+            int weight = digits.size() - 1 - (scale + 3) / 4;
+            while (!digits.isEmpty() && digits.getLast() == 0) {
+                digits.removeLast();
+            }
+            if (digits.isEmpty()) {
+                weight = 0;
+            }
+
+            data.writeInt(8 + 2 * digits.size());
+            data.writeShort(digits.size());
+            data.writeShort(weight);
+            data.writeShort(decimal.signum() < 0 ? 0x4000 : 0);
+            data.writeShort(scale);
+            for (short digit : digits) {
+                data.writeShort(digit);
+            }
+        }
+
+        private void writeText(String text) throws IOException {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            data.writeInt(bytes.length);
+            data.write(bytes);
+        }
+
+        @Override
+        void finish() throws IOException {
+            data.writeShort(-1);
+            data.flush();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package de.bybackfish.sql.core;
+
+/**
+ * The data format of a PostgreSQL {@code COPY}.
+ */
+public enum CopyFormat {
+    /**
+     * Tab separated values with backslash escapes, PostgreSQL's default.
+     */
+    TEXT("text"),
+    CSV("csv"),
+    /**
+     * PostgreSQL's binary tuple format. The server does not cast binary input, so every value is encoded in the
+     * format of its column's type, which is looked up before the copy starts:
+     * <ul>
+     *     <li>{@code smallint}, {@code integer}, {@code bigint}: any integral {@link Number} that fits</li>
+     *     <li>{@code real}, {@code double precision}: any {@link Number} except {@code BigDecimal} and
+     *     {@code BigInteger}</li>
+     *     <li>{@code numeric}: any {@link Number}</li>
+     *     <li>{@code boolean}: {@link Boolean}</li>
+     *     <li>{@code uuid}: {@link java.util.UUID}</li>
+     *     <li>{@code date}: {@link java.time.LocalDate}</li>
+     *     <li>{@code timestamp}: {@link java.time.LocalDateTime}</li>
+     *     <li>{@code timestamptz}: {@link java.time.OffsetDateTime} or {@link java.time.Instant}</li>
+     *     <li>{@code bytea}: {@code byte[]}</li>
+     *     <li>{@code text}, {@code varchar}, {@code char}, enums, {@code json}, {@code jsonb}: {@link String} or an
+     *     enum constant</li>
+     * </ul>
+     * Values with a {@link de.bybackfish.sql.codec.TypeCodec} are converted by
+     * {@link de.bybackfish.sql.codec.TypeCodec#encode(Object)} first, e.g. to the JSON text of a {@code jsonb} value.
+     * Columns of other types, e.g. arrays, are rejected before the copy starts; use {@link #TEXT} for them.
+     */
+    BINARY("binary");
+
+    private final String sqlName;
+
+    CopyFormat(String sqlName) {
+        this.sqlName = sqlName;
+    }
+
+    /**
+     * @return the {@code WITH (...)} clause selecting this format
+     */
+    public String options() {
+        return STR."WITH (FORMAT \{sqlName})";
+    }
+}
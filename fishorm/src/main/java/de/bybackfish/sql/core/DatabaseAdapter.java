@@ -1,7 +1,6 @@
 package de.bybackfish.sql.core;
 
 import java.sql.Connection;
-import java.sql.SQLException;
 
 public interface DatabaseAdapter {
     void connect(DatabaseOptions databaseOptions) throws ClassNotFoundException, FishSQLException;
@@ -9,4 +8,11 @@ public interface DatabaseAdapter {
     void disconnect() throws FishSQLException;
 
     Connection getConnection() throws FishSQLException;
+
+    /**
+     * Hands back a connection obtained from {@link #getConnection()} once the statement using it is closed.
+     * Adapters that share a single connection don't need to do anything.
+     */
+    default void releaseConnection(Connection connection) throws FishSQLException {
+    }
 }
@@ -0,0 +1,532 @@
+package de.bybackfish.sql.core;
+
+import de.bybackfish.sql.query.*;
+import de.bybackfish.sql.util.EntityMetadata;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static de.bybackfish.sql.util.ReflectionUtils.getFieldName;
+
+public class DatabaseModel {
+    public static <T extends DatabaseModel> List<T> findMany(Class<T> clazz, SelectQueryBuilder queryBuilder) throws FishSQLException {
+        FishDatabase fishDatabase = DatabaseProvider.getDatabase();
+
+        return fishDatabase.select(queryBuilder, clazz);
+    }
+
+    /**
+     * Like {@link #findMany(Class, SelectQueryBuilder)}, but loads the given {@link de.bybackfish.sql.annotation.LazyLoaded}
+     * fields in the same query, see {@link SelectQueryBuilder#fetch(String...)}.
+     */
+    public static <T extends DatabaseModel> List<T> findMany(Class<T> clazz, SelectQueryBuilder queryBuilder, String... fetch) throws FishSQLException {
+        return findMany(clazz, queryBuilder.fetch(fetch));
+    }
+
+    /**
+     * Like {@link #findMany(Class, SelectQueryBuilder, String...)}, loading the relations as described by
+     * {@code mode}, see {@link SelectQueryBuilder#fetch(FetchMode, String...)}.
+     */
+    public static <T extends DatabaseModel> List<T> findMany(Class<T> clazz, SelectQueryBuilder queryBuilder, FetchMode mode, String... fetch) throws FishSQLException {
+        return findMany(clazz, queryBuilder.fetch(mode, fetch));
+    }
+
+    /**
+     * Streams the matching rows instead of collecting them, see {@link FishDatabase#stream(SelectQueryBuilder, Class)}.
+     * Use it in a try-with-resources block.
+     */
+    public static <T extends DatabaseModel> Stream<T> stream(Class<T> clazz, SelectQueryBuilder queryBuilder) throws FishSQLException {
+        FishDatabase fishDatabase = DatabaseProvider.getDatabase();
+
+        return fishDatabase.stream(queryBuilder, clazz);
+    }
+
+    public static <T extends DatabaseModel> Optional<T> findOne(Class<T> clazz, SelectQueryBuilder queryBuilder) throws FishSQLException{
+        queryBuilder.limit(1);
+        List<T> models = findMany(clazz, queryBuilder);
+        if (models.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(models.getFirst());
+    }
+
+    public static <T extends DatabaseModel> Optional<T> findExact(T obj) throws FishSQLException {
+        Class<T> clazz = classOf(obj);
+        List<Object> identity = obj.identity();
+        if (identity != null) {
+            Optional<T> cached = EntityCache.find(clazz, identity.toArray());
+            if (cached.isPresent()) {
+                return cached;
+            }
+        }
+
+        WhereQueryBuilder distinctWhereClause = getDistinctWhereClause(obj);
+
+        SelectQueryBuilder selectQueryBuilder = QueryBuilder.select("*");
+        selectQueryBuilder.where(distinctWhereClause);
+        long version = EntityCache.version(clazz);
+        Optional<T> found = findOne(clazz, selectQueryBuilder);
+        if (identity != null) {
+            found.ifPresent(model -> EntityCache.store(model, version));
+        }
+        return found;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends DatabaseModel> Class<T> classOf(T model) {
+        return (Class<T>) model.getClass();
+    }
+
+    /**
+     * Finds the model with the given primary key values, in declaration order. Returns the instance of the current
+     * {@link Session} or the {@link EntityCache} without a query if either holds one.
+     */
+    public static <T extends DatabaseModel> Optional<T> findById(Class<T> clazz, Object... primaryKey) throws FishSQLException {
+        Optional<T> cached = EntityCache.find(clazz, primaryKey);
+        if (cached.isPresent()) {
+            return cached;
+        }
+
+        EntityMetadata<T> metadata = EntityMetadata.of(clazz);
+        List<EntityMetadata.ColumnMetadata> primaryKeys = metadata.primaryKeys();
+        if (primaryKeys.isEmpty() || primaryKeys.size() != primaryKey.length) {
+            throw new FishSQLException(STR."\{clazz.getName()} has \{primaryKeys.size()} primary keys, got \{primaryKey.length} values");
+        }
+
+        WhereQueryBuilder whereQueryBuilder = new WhereQueryBuilder();
+        for (int i = 0; i < primaryKeys.size(); i++) {
+            whereQueryBuilder.and(STR."\{metadata.tableName()}.\{primaryKeys.get(i).name()} = ?", primaryKey[i]);
+        }
+        long version = EntityCache.version(clazz);
+        Optional<T> found = findOne(clazz, QueryBuilder.select("*").where(whereQueryBuilder));
+        found.ifPresent(model -> EntityCache.store(model, version));
+        return found;
+    }
+
+    public static <T extends DatabaseModel> List<T> all(Class<T> clazz) throws FishSQLException {
+        return findMany(clazz, QueryBuilder.select("*"));
+    }
+
+    public <T extends DatabaseModel> List<T> linkMany(Class<T> clazz, String fieldName) throws FishSQLException {
+        return linkMany(clazz, fieldName, QueryBuilder.select("*"));
+    }
+    public <T extends DatabaseModel> List<T> linkMany(Class<T> clazz, String fieldName, SelectQueryBuilder queryBuilder) throws FishSQLException {
+        FishDatabase fishDatabase = DatabaseProvider.getDatabase();
+
+        String targetName = EntityMetadata.of(clazz).tableName();
+
+        EntityMetadata.ColumnMetadata target = metadata().foreignKey(fieldName, targetName)
+                .orElseThrow(() -> new RuntimeException("No foreign key found"));
+
+        String targetColumn = target.foreignKey().targetColumn();
+        Object value;
+        try {
+            value = target.get(this);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+
+        queryBuilder.from(clazz);
+        queryBuilder.where(where -> where.and(STR."\{targetColumn} = ?",
+                value));
+
+        return fishDatabase.executeQuery(queryBuilder, clazz);
+    }
+
+    /**
+     * @return the model referenced by the foreign key in {@code fieldName}, {@code null} if there is none
+     */
+    public <T extends DatabaseModel> T linkOne(Class<T> clazz, String fieldName) throws FishSQLException {
+        Optional<Object> primaryKey = linkedPrimaryKey(clazz, fieldName);
+        if (primaryKey.isPresent()) {
+            Optional<T> cached = EntityCache.find(clazz, primaryKey.get());
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
+
+        SelectQueryBuilder queryBuilder = QueryBuilder.select("*");
+        queryBuilder.limit(1);
+        long version = EntityCache.version(clazz);
+        List<T> found = linkMany(clazz, fieldName, queryBuilder);
+        if (found.isEmpty()) {
+            return null;
+        }
+        T linked = found.getFirst();
+        if (primaryKey.isPresent()) {
+            EntityCache.store(linked, version);
+        }
+        return linked;
+    }
+
+    /**
+     * The value of the foreign key in {@code fieldName}, if it references the sole primary key of {@code clazz}.
+     */
+    private Optional<Object> linkedPrimaryKey(Class<? extends DatabaseModel> clazz, String fieldName) {
+        EntityMetadata<?> target = EntityMetadata.of(clazz);
+        if (target.primaryKeys().size() != 1) return Optional.empty();
+
+        return metadata().foreignKey(fieldName, target.tableName())
+                .filter(column -> column.foreignKey().targetColumn().equals(target.primaryKeys().getFirst().name()))
+                .map(column -> {
+                    try {
+                        return column.get(this);
+                    } catch (IllegalAccessException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+    }
+
+    /**
+     * Inserts all models with JDBC batches and writes their {@link de.bybackfish.sql.annotation.AutoGenerated} keys
+     * back, see {@link FishDatabase#insertBatch(Collection)}.
+     */
+    public static <T extends DatabaseModel> void insertAll(Collection<T> models) throws FishSQLException {
+        DatabaseProvider.getDatabase().insertBatch(models);
+        EntityCache.invalidate(models);
+    }
+
+    /**
+     * Inserts the model with the precomputed {@link EntityMetadata#insertSql()} when it writes every column that
+     * statement does, and with an {@link InsertQueryBuilder} of the non-null columns otherwise.
+     */
+    public void insert() throws FishSQLException {
+        EntityMetadata<?> metadata = metadata();
+        Map<String, Object> values = insertValues();
+
+        boolean complete = values.size() == metadata.columns().size() - metadata.autoGenerated().size()
+                && metadata.autoGenerated().stream().noneMatch(column -> values.containsKey(column.name()));
+        if (complete) {
+            nativeUpdate(metadata.insertSql(), values.values().toArray());
+        } else {
+            DatabaseProvider.getDatabase().executeUpdate(insertQueryBuilder(values));
+        }
+        EntityCache.invalidate(this);
+    }
+
+    public void insertAndUpdateModel() throws FishSQLException {
+        InsertQueryBuilder queryBuilder = insertQueryBuilder();
+
+        // All AutoGenerated fields
+        List<EntityMetadata.ColumnMetadata> fieldsToReturn = metadata().autoGenerated();
+
+        queryBuilder.returning(fieldsToReturn.stream().map(EntityMetadata.ColumnMetadata::name).collect(Collectors.joining(", ")));
+
+        try (AbstractQueryBuilder.BuiltQuery query = queryBuilder.build(DatabaseProvider.getDatabase())) {
+            ResultSet execute = query.execute();
+            while (execute.next()) {
+                for (EntityMetadata.ColumnMetadata column : fieldsToReturn) {
+                    column.set(this, column.decode(execute.getObject(column.name())));
+                }
+            }
+        } catch (IllegalAccessException | SQLException e) {
+            throw new FishSQLException("Failed to Update Model after Inserting: ", e);
+        }
+        Session.current().ifPresent(session -> session.merge(this));
+        EntityCache.invalidate(this);
+        DatabaseProvider.getDatabase().getQueryCache().invalidate(metadata().tableName());
+    }
+
+    public <T extends DatabaseModel> T insertAndReturnModel(Class<T> clazz) throws FishSQLException {
+        InsertQueryBuilder queryBuilder = insertQueryBuilder();
+        queryBuilder.returning("*");
+        T inserted = queryBuilder.build(DatabaseProvider.getDatabase()).unwrap(clazz).getFirst();
+        EntityCache.invalidate(inserted);
+        DatabaseProvider.getDatabase().getQueryCache().invalidate(metadata().tableName());
+        return inserted;
+    }
+
+    public InsertQueryBuilder insertQueryBuilder() throws FishSQLException {
+        return insertQueryBuilder(insertValues());
+    }
+
+    private InsertQueryBuilder insertQueryBuilder(Map<String, Object> values) {
+        InsertQueryBuilder insertQueryBuilder = new InsertQueryBuilder(metadata().tableName());
+        values.forEach(insertQueryBuilder::add);
+
+        return insertQueryBuilder;
+    }
+
+    /**
+     * The columns written by {@link #insert()}, in declaration order.
+     */
+    Map<String, Object> insertValues() throws FishSQLException {
+        Map<String, Object> values = new LinkedHashMap<>();
+
+        try {
+            for (EntityMetadata.ColumnMetadata column : metadata().columns()) {
+                Object value = column.get(this);
+                if (value instanceof Optional<?>) {
+                    value = ((Optional<?>) value).orElse(null);
+                }
+
+                if(column.autoGenerated()
+                        && (value == null || Integer.parseInt(value.toString()) == 0 || !Boolean.parseBoolean(value.toString()))
+                ) {
+                    continue;
+                }
+
+                if (value == null) {
+                    continue;
+                }
+                values.put(column.name(), value);
+            }
+        } catch (IllegalAccessException e) {
+            throw new FishSQLException(e);
+        }
+
+        return values;
+    }
+
+    public void delete() throws FishSQLException {
+        FishDatabase fishDatabase = DatabaseProvider.getDatabase();
+        // stop serving the row while the DELETE runs
+        EntityCache.invalidate(this);
+
+        if (metadata().deleteSql() != null) {
+            nativeUpdate(metadata().deleteSql(), primaryKeyValues().toArray());
+        } else {
+            String tableName = metadata().tableName();
+
+            DeleteQueryBuilder deleteQueryBuilder = new DeleteQueryBuilder(tableName);
+
+            WhereQueryBuilder whereQueryBuilder = getDistinctWhereClause();
+            deleteQueryBuilder.where(whereQueryBuilder);
+
+            fishDatabase.executeUpdate(deleteQueryBuilder);
+        }
+
+        Session.current().ifPresent(session -> session.evict(this));
+        // a reader may have loaded the row after the first invalidation, bumping the version again keeps it out
+        EntityCache.invalidate(this);
+    }
+
+    /**
+     * Updates the model by primary key with the precomputed {@link EntityMetadata#updateSql()} when no column is
+     * {@code null}, and with an {@link UpdateQueryBuilder} of the non-null columns otherwise.
+     */
+    public void update() throws FishSQLException {
+        FishDatabase fishDatabase = DatabaseProvider.getDatabase();
+
+        EntityMetadata<?> metadata = metadata();
+        Map<String, Object> values = updateValues();
+
+        if (metadata.updateSql() != null && values.size() == metadata.columns().size()) {
+            List<Object> params = new ArrayList<>(values.size());
+            metadata.columns().stream().filter(column -> !column.primaryKey()).forEach(column -> params.add(values.get(column.name())));
+            metadata.primaryKeys().forEach(column -> params.add(values.get(column.name())));
+            nativeUpdate(metadata.updateSql(), params.toArray());
+            EntityCache.invalidate(this);
+            return;
+        }
+
+        UpdateQueryBuilder updateQueryBuilder = new UpdateQueryBuilder(
+                metadata.tableName()
+        );
+
+        values.forEach(updateQueryBuilder::set);
+
+        WhereQueryBuilder whereQueryBuilder = getDistinctWhereClause();
+
+        if (whereQueryBuilder != null) {
+            updateQueryBuilder.where(whereQueryBuilder);
+        }
+
+        fishDatabase.executeUpdate(updateQueryBuilder);
+        EntityCache.invalidate(this);
+    }
+
+    /**
+     * Updates all models by primary key with JDBC batches, see {@link FishDatabase#updateBatch(Collection)}.
+     */
+    public static <T extends DatabaseModel> void updateAll(Collection<T> models) throws FishSQLException {
+        DatabaseProvider.getDatabase().updateBatch(models);
+        EntityCache.invalidate(models);
+    }
+
+    /**
+     * Deletes all models by primary key, see {@link FishDatabase#deleteBatch(Collection)}.
+     */
+    public static <T extends DatabaseModel> void deleteAll(Collection<T> models) throws FishSQLException {
+        EntityCache.invalidate(models);
+        DatabaseProvider.getDatabase().deleteBatch(models);
+        Session.current().ifPresent(session -> models.forEach(session::evict));
+        EntityCache.invalidate(models);
+    }
+
+    private static void nativeUpdate(String sql, Object... params) throws FishSQLException {
+        try {
+            DatabaseProvider.getDatabase().nativeUpdate(sql, params);
+        } catch (FishSQLException e) {
+            throw e;
+        } catch (SQLException e) {
+            throw new FishSQLException(e);
+        }
+    }
+
+    /**
+     * The columns written by {@link #update()}, in declaration order.
+     */
+    Map<String, Object> updateValues() {
+        Map<String, Object> values = new LinkedHashMap<>();
+
+        for (EntityMetadata.ColumnMetadata column : metadata().columns()) {
+            Object value;
+            try {
+                value = column.get(this);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+            if (value instanceof Optional<?>) {
+                value = ((Optional<?>) value).orElse(null);
+            }
+            if (value == null) {
+                continue;
+            }
+            values.put(column.name(), value);
+        }
+
+        return values;
+    }
+
+    /**
+     * The values of the {@link de.bybackfish.sql.annotation.PrimaryKey} columns, in declaration order.
+     */
+    List<Object> primaryKeyValues() {
+        List<Object> values = new ArrayList<>();
+        for (EntityMetadata.ColumnMetadata column : metadata().primaryKeys()) {
+            try {
+                values.add(column.get(this));
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * The primary key values identifying this model's row, {@code null} if it has no primary key or an
+     * {@link de.bybackfish.sql.annotation.AutoGenerated} key that is not assigned yet.
+     */
+    List<Object> identity() {
+        List<EntityMetadata.ColumnMetadata> primaryKeys = metadata().primaryKeys();
+        if (primaryKeys.isEmpty()) return null;
+
+        List<Object> values = new ArrayList<>(primaryKeys.size());
+        for (EntityMetadata.ColumnMetadata column : primaryKeys) {
+            Object value;
+            try {
+                value = column.get(this);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+            if (value instanceof Optional<?> optional) {
+                value = optional.orElse(null);
+            }
+            if (value == null || column.autoGenerated() && value instanceof Number number && number.longValue() == 0) {
+                return null;
+            }
+            values.add(value);
+        }
+        return values;
+    }
+
+    /**
+     * Models are equal when they are of the same class and have the same primary key values. Models without an
+     * {@link #identity() identity} are only equal to themselves, so the hash code of a model changes once its
+     * generated key is assigned.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || obj.getClass() != getClass()) return false;
+
+        List<Object> identity = identity();
+        return identity != null && identity.equals(((DatabaseModel) obj).identity());
+    }
+
+    @Override
+    public int hashCode() {
+        List<Object> identity = identity();
+        return identity != null ? 31 * getClass().hashCode() + identity.hashCode() : System.identityHashCode(this);
+    }
+
+    protected Collection<java.lang.reflect.Field> getPrimaryKeyFields() {
+        return getPrimaryKeyFields(this);
+    }
+
+
+    protected static <T extends DatabaseModel> Collection<java.lang.reflect.Field> getPrimaryKeyFields(T obj) {
+        return EntityMetadata.of(obj.getClass()).primaryKeys().stream().map(EntityMetadata.ColumnMetadata::field).toList();
+    }
+
+    protected EntityMetadata<? extends DatabaseModel> metadata() {
+        return EntityMetadata.of(this.getClass());
+    }
+
+    protected WhereQueryBuilder getDistinctWhereClause() {
+        return getDistinctWhereClause(this);
+    }
+
+    protected static <T extends DatabaseModel> WhereQueryBuilder getDistinctWhereClause(T obj) {
+        EntityMetadata<?> metadata = EntityMetadata.of(obj.getClass());
+        String tableName = metadata.tableName();
+
+        WhereQueryBuilder whereQueryBuilder = new WhereQueryBuilder();
+
+        if (metadata.primaryKeys().isEmpty()) {
+            for (EntityMetadata.ColumnMetadata column : metadata.columns()) {
+                Object value = null;
+                try {
+                    value = column.get(obj);
+                } catch (IllegalAccessException e) {
+                    throw new RuntimeException(e);
+                }
+
+                if (value == null) {
+                    continue;
+                }
+                whereQueryBuilder.and(STR."\{tableName}.\{column.name()} = ?", value);
+            }
+        } else {
+            for (EntityMetadata.ColumnMetadata column : metadata.primaryKeys()) {
+                try {
+                    whereQueryBuilder.and(STR."\{tableName}.\{column.name()} = ?", column.get(obj));
+                } catch (IllegalAccessException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+
+        return whereQueryBuilder;
+    }
+
+    @Override
+    public String toString() {
+        EntityMetadata<?> metadata = metadata();
+        Map<String, Object> fields = new HashMap<>();
+        for (java.lang.reflect.Field field : metadata.fields()) {
+            String fieldName = getFieldName(field);
+            Object value;
+            try {
+                value = field.get(this);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+            if (value instanceof Optional<?>) {
+                value = ((Optional<?>) value).orElse(null);
+            }
+            if (value == null) {
+                continue;
+            }
+            fields.put(fieldName, value);
+        }
+
+        return """
+                %s{%s}
+                """.formatted(metadata.tableName(), fields.entrySet().stream().map(entry -> String.format("%s=%s", entry.getKey(), entry.getValue())).collect(Collectors.joining(", ")));
+    }
+}
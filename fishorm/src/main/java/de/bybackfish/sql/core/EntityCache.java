@@ -0,0 +1,215 @@
+package de.bybackfish.sql.core;
+
+import de.bybackfish.sql.annotation.Cacheable;
+import de.bybackfish.sql.cache.CacheStats;
+import de.bybackfish.sql.cache.TinyLfuCache;
+import de.bybackfish.sql.util.EntityMetadata;
+import de.bybackfish.sql.util.ObjectMapper;
+
+import java.lang.reflect.Array;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The process-wide second-level cache of a {@link Cacheable} model, keyed by primary key. Primary key lookups
+ * ({@link DatabaseModel#findById(Class, Object...)}, {@link DatabaseModel#findExact(DatabaseModel)},
+ * {@link DatabaseModel#linkOne(Class, String)} and lazy relations to a primary key) read through it, after the
+ * current {@link Session}. Inside a transaction, the cache is neither read nor filled.
+ * <p>
+ * The cache holds a copy of the column values, so every hit returns a new instance. Arrays, collections, maps and
+ * dates are copied too; other mutable column values, e.g. objects of a {@code jsonb} codec, are shared between the
+ * hits and must not be modified. Inserting, updating and deleting a model through {@link DatabaseModel} invalidates
+ * its entry, and again once the transaction ends if there is one. A row is only cached if no entry of its model was
+ * invalidated since the query loading it started, see {@link #version(Class)}. Writes through raw SQL, query
+ * builders or compiled queries are not tracked, use {@link #invalidateAll()} after them. Query results are cached
+ * separately by the {@link QueryCache}.
+ */
+public final class EntityCache {
+    private static final Map<Class<?>, Optional<EntityCache>> CACHES = new ConcurrentHashMap<>();
+
+    private final EntityMetadata<? extends DatabaseModel> metadata;
+    private final TinyLfuCache<List<Object>, Object[]> cache;
+    private final AtomicLong version = new AtomicLong();
+
+    private EntityCache(EntityMetadata<? extends DatabaseModel> metadata, Cacheable cacheable) {
+        if (metadata.primaryKeys().isEmpty()) {
+            throw new IllegalStateException(STR."@Cacheable model \{metadata.type().getName()} needs a primary key");
+        }
+        this.metadata = metadata;
+        this.cache = new TinyLfuCache<>(cacheable.maxSize(), Duration.of(cacheable.ttl(), cacheable.unit().toChronoUnit()));
+    }
+
+    /**
+     * The cache of {@code clazz}, empty if it is not {@link Cacheable}.
+     */
+    public static Optional<EntityCache> of(Class<? extends DatabaseModel> clazz) {
+        return CACHES.computeIfAbsent(clazz, type -> Optional.ofNullable(type.getAnnotation(Cacheable.class))
+                .map(cacheable -> new EntityCache(EntityMetadata.of(clazz), cacheable)));
+    }
+
+    /**
+     * Looks the model up in the current {@link Session}, then in its cache unless a transaction is running, which
+     * must see its own writes and those committed since it started.
+     */
+    public static <T extends DatabaseModel> Optional<T> find(Class<T> clazz, Object... primaryKey) {
+        Optional<T> tracked = Session.current().flatMap(session -> session.find(clazz, primaryKey));
+        if (tracked.isPresent() || inTransaction()) {
+            return tracked;
+        }
+        return of(clazz).flatMap(cache -> cache.get(clazz, primaryKey)).map(Session::canonical);
+    }
+
+    /**
+     * The version of the cache of {@code clazz}, which changes with every invalidation. Read it before the query
+     * loading a model and pass it to {@link #store(DatabaseModel, long)}.
+     */
+    public static long version(Class<? extends DatabaseModel> clazz) {
+        return of(clazz).map(cache -> cache.version.get()).orElse(0L);
+    }
+
+    /**
+     * Caches a model that was just loaded completely, unless it was read inside a transaction or an entry of its
+     * model was invalidated since {@code version} was read, as the row may predate that write.
+     */
+    public static void store(DatabaseModel model, long version) {
+        if (model == null || inTransaction()) return;
+
+        of(model.getClass()).ifPresent(cache -> cache.put(model, version));
+    }
+
+    private static boolean inTransaction() {
+        FishDatabase fishDatabase = DatabaseProvider.getDatabase();
+        return fishDatabase != null && fishDatabase.isInTransaction();
+    }
+
+    /**
+     * Drops the cached row of {@code model}, and once more when the current transaction ends, so rows read by other
+     * threads before the commit are not kept.
+     */
+    public static void invalidate(DatabaseModel model) {
+        Optional<EntityCache> entityCache = of(model.getClass());
+        if (entityCache.isEmpty()) return;
+
+        List<Object> identity = model.identity();
+        if (identity == null) return;
+
+        List<Object> key = Session.normalize(identity);
+        EntityCache cache = entityCache.get();
+        cache.drop(key);
+
+        if (inTransaction()) {
+            Session.current().ifPresent(session -> session.afterTransaction(() -> cache.drop(key)));
+        }
+    }
+
+    public static void invalidate(Collection<? extends DatabaseModel> models) {
+        models.forEach(EntityCache::invalidate);
+    }
+
+    private <T extends DatabaseModel> Optional<T> get(Class<T> clazz, Object... primaryKey) {
+        Object[] values = cache.get(Session.normalize(Arrays.asList(primaryKey)));
+        return values == null ? Optional.empty() : Optional.of(restore(metadata, clazz, values));
+    }
+
+    private void put(DatabaseModel model, long version) {
+        List<Object> identity = model.identity();
+        if (identity == null || this.version.get() != version) return;
+
+        List<Object> key = Session.normalize(identity);
+        cache.put(key, snapshot(metadata, model));
+        // an invalidation between the check and the put may have missed the entry
+        if (this.version.get() != version) {
+            cache.invalidate(key);
+        }
+    }
+
+    private void drop(List<Object> key) {
+        version.incrementAndGet();
+        cache.invalidate(key);
+    }
+
+    /**
+     * The values of all columns of {@code model}, in the order of {@link EntityMetadata#columns()}.
+     */
+    static Object[] snapshot(EntityMetadata<?> metadata, DatabaseModel model) {
+        List<EntityMetadata.ColumnMetadata> columns = metadata.columns();
+        Object[] values = new Object[columns.size()];
+        try {
+            for (int i = 0; i < columns.size(); i++) {
+                values[i] = copy(columns.get(i).get(model));
+            }
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+        return values;
+    }
+
+    /**
+     * A new model with the column values of a {@link #snapshot(EntityMetadata, DatabaseModel)} and unloaded
+     * relations.
+     */
+    static <T extends DatabaseModel> T restore(EntityMetadata<?> metadata, Class<T> clazz, Object[] values) {
+        try {
+            T model = clazz.cast(metadata.newInstance());
+            List<EntityMetadata.ColumnMetadata> columns = metadata.columns();
+            for (int i = 0; i < columns.size(); i++) {
+                columns.get(i).set(model, copy(values[i]));
+            }
+            for (EntityMetadata.RelationMetadata relation : metadata.relations()) {
+                relation.set(model, ObjectMapper.createLazy(model, relation));
+            }
+            return model;
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * A copy of a mutable column value, so neither the model it was read from nor the models restored from the cache
+     * share it.
+     */
+    private static Object copy(Object value) {
+        return switch (value) {
+            case null -> null;
+            case Optional<?> optional -> optional.map(EntityCache::copy);
+            case List<?> list -> new ArrayList<>(list.stream().map(EntityCache::copy).toList());
+            case Set<?> set -> new LinkedHashSet<>(set.stream().map(EntityCache::copy).toList());
+            case Map<?, ?> map -> {
+                Map<Object, Object> copy = new LinkedHashMap<>();
+                map.forEach((key, element) -> copy.put(key, copy(element)));
+                yield copy;
+            }
+            case Date date -> date.clone();
+            default -> {
+                if (!value.getClass().isArray()) yield value;
+
+                int length = Array.getLength(value);
+                Class<?> componentType = value.getClass().getComponentType();
+                Object copy = Array.newInstance(componentType, length);
+                if (componentType.isPrimitive()) {
+                    System.arraycopy(value, 0, copy, 0, length);
+                } else {
+                    for (int i = 0; i < length; i++) {
+                        Array.set(copy, i, copy(Array.get(value, i)));
+                    }
+                }
+                yield copy;
+            }
+        };
+    }
+
+    public void invalidateAll() {
+        version.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,761 @@
+package de.bybackfish.sql.core;
+
+import de.bybackfish.sql.codec.TypeCodec;
+import de.bybackfish.sql.codec.TypeCodecs;
+import de.bybackfish.sql.query.AbstractQueryBuilder;
+import de.bybackfish.sql.query.SelectQueryBuilder;
+import de.bybackfish.sql.util.EntityMetadata;
+import de.bybackfish.sql.util.SqlArray;
+import de.bybackfish.sql.util.SqlTypes;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class FishDatabase {
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+    public static final long DEFAULT_QUERY_CACHE_SIZE = 32L << 20;
+
+    public final Logger logger = Logger.getLogger(FishDatabase.class.getName());
+    private final DatabaseAdapter databaseAdapter;
+    private final ScopedValue<Connection> transactionConnection = ScopedValue.newInstance();
+    private volatile int fetchSize = DEFAULT_FETCH_SIZE;
+    private volatile int batchSize = DEFAULT_BATCH_SIZE;
+    private volatile int statementCacheSize = DEFAULT_STATEMENT_CACHE_SIZE;
+    private final Map<Connection, StatementCache> statementCaches = new ConcurrentHashMap<>();
+    private volatile QueryCache queryCache = new QueryCache(this, DEFAULT_QUERY_CACHE_SIZE);
+
+    public FishDatabase(DatabaseAdapter databaseAdapter) {
+        this.databaseAdapter = databaseAdapter;
+    }
+
+    public void connect(DatabaseOptions databaseOptions) throws ClassNotFoundException, FishSQLException {
+        databaseAdapter.connect(databaseOptions);
+    }
+
+    public <T extends DatabaseModel> List<T> executeQuery(AbstractQueryBuilder queryBuilder, Class<T> clazzs) throws FishSQLException {
+        if (queryBuilder instanceof SelectQueryBuilder selectQueryBuilder && selectQueryBuilder.cacheTtl().isPresent()) {
+            return queryCache.execute(selectQueryBuilder, clazzs, selectQueryBuilder.cacheTtl().get());
+        }
+        if (queryBuilder instanceof SelectQueryBuilder selectQueryBuilder && !selectQueryBuilder.fetches().isEmpty()) {
+            return queryBuilder.build(this).unwrap(clazzs, selectQueryBuilder.fetchMode(), selectQueryBuilder.fetches());
+        }
+        return queryBuilder.build(this).unwrap(clazzs);
+    }
+
+    /**
+     * Queries that fetch relations are read completely before the first model is returned, since the rows of one
+     * model are only known to be complete at the end of the result. So are cached queries.
+     */
+    public <T extends DatabaseModel> Stream<T> streamQuery(AbstractQueryBuilder queryBuilder, Class<T> clazz) throws FishSQLException {
+        if (queryBuilder instanceof SelectQueryBuilder selectQueryBuilder
+                && (!selectQueryBuilder.fetches().isEmpty() || selectQueryBuilder.cacheTtl().isPresent())) {
+            return executeQuery(queryBuilder, clazz).stream();
+        }
+        return queryBuilder.build(this).stream(clazz, fetchSize);
+    }
+
+    public void executeUpdate(AbstractQueryBuilder queryBuilder) throws FishSQLException {
+        queryBuilder.build(this).executeUpdate();
+        queryCache.invalidate(queryBuilder.tables());
+    }
+
+    /**
+     * Inserts all models with as few round trips as possible. Models are grouped by class and by the set of columns
+     * they write, and every group is sent as JDBC batches of {@link #getBatchSize()} rows. The
+     * {@link de.bybackfish.sql.annotation.AutoGenerated} columns of each row are written back into its model.
+     * <p>
+     * Wrap the call in {@link #openTransaction(Callable)} to make it atomic. For PostgreSQL, the
+     * {@code reWriteBatchedInserts=true} connection property additionally turns every batch into multi-row inserts.
+     */
+    public <T extends DatabaseModel> void insertBatch(Collection<T> models) throws FishSQLException {
+        Map<StatementShape, List<DatabaseModel>> groups = new LinkedHashMap<>();
+        Map<DatabaseModel, Map<String, Object>> valuesByModel = new IdentityHashMap<>();
+
+        for (T model : models) {
+            Map<String, Object> values = model.insertValues();
+            valuesByModel.put(model, values);
+            groups.computeIfAbsent(new StatementShape(model.getClass(), List.copyOf(values.keySet())), _ -> new ArrayList<>()).add(model);
+        }
+
+        for (Map.Entry<StatementShape, List<DatabaseModel>> group : groups.entrySet()) {
+            StatementShape shape = group.getKey();
+            List<DatabaseModel> rows = group.getValue();
+
+            for (int from = 0; from < rows.size(); from += batchSize) {
+                List<DatabaseModel> chunk = rows.subList(from, Math.min(from + batchSize, rows.size()));
+                insertChunk(shape, chunk, valuesByModel);
+            }
+        }
+    }
+
+    private void insertChunk(StatementShape shape, List<DatabaseModel> chunk, Map<DatabaseModel, Map<String, Object>> valuesByModel) throws FishSQLException {
+        EntityMetadata<?> metadata = EntityMetadata.of(shape.type());
+        List<EntityMetadata.ColumnMetadata> generated = metadata.autoGenerated();
+
+        String sql = STR."INSERT INTO \{metadata.tableName()} (\{String.join(",", shape.columns())}) VALUES (\{shape.columns().stream().map(_ -> "?").collect(Collectors.joining(","))})";
+        debug("Batch SQL: {0} ({1} rows)\n", sql, chunk.size());
+
+        Connection connection = acquireConnection();
+        try (PreparedStatement statement = generated.isEmpty()
+                ? connection.prepareStatement(sql)
+                : connection.prepareStatement(sql, generated.stream().map(EntityMetadata.ColumnMetadata::name).toArray(String[]::new))) {
+
+            for (DatabaseModel model : chunk) {
+                int index = 0;
+                for (Object value : valuesByModel.get(model).values()) {
+                    addToStatement(statement, index++, value);
+                }
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            queryCache.invalidate(metadata.tableName());
+
+            if (!generated.isEmpty()) {
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (DatabaseModel model : chunk) {
+                        if (!keys.next()) break;
+                        for (EntityMetadata.ColumnMetadata column : generated) {
+                            column.set(model, column.decode(keys.getObject(column.name())));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException | IllegalAccessException e) {
+            throw new FishSQLException(STR."Failed to insert batch into \{metadata.tableName()}", e);
+        } finally {
+            releaseConnection(connection);
+        }
+    }
+
+    /**
+     * Updates all models by primary key. Models are grouped by class and by the set of non-null columns they write,
+     * and every group is sent as JDBC batches of {@link #getBatchSize()} rows. Models without a
+     * {@link de.bybackfish.sql.annotation.PrimaryKey} fall back to {@link DatabaseModel#update()}.
+     */
+    public <T extends DatabaseModel> void updateBatch(Collection<T> models) throws FishSQLException {
+        Map<StatementShape, List<List<Object>>> groups = new LinkedHashMap<>();
+
+        for (T model : models) {
+            EntityMetadata<?> metadata = EntityMetadata.of(model.getClass());
+            if (metadata.primaryKeys().isEmpty()) {
+                model.update();
+                continue;
+            }
+
+            Map<String, Object> values = model.updateValues();
+            List<Object> row = new ArrayList<>(values.values());
+            row.addAll(model.primaryKeyValues());
+            groups.computeIfAbsent(new StatementShape(model.getClass(), List.copyOf(values.keySet())), _ -> new ArrayList<>()).add(row);
+        }
+
+        for (Map.Entry<StatementShape, List<List<Object>>> group : groups.entrySet()) {
+            EntityMetadata<?> metadata = EntityMetadata.of(group.getKey().type());
+            String sql = STR."UPDATE \{metadata.tableName()} SET \{group.getKey().columns().stream().map(column -> STR."\{column} = ?").collect(Collectors.joining(", "))} WHERE \{primaryKeyCondition(metadata)}";
+            executeBatch(sql, group.getValue());
+            queryCache.invalidate(metadata.tableName());
+        }
+    }
+
+    /**
+     * Deletes all models by primary key. A single-column key is deleted with one {@code DELETE ... WHERE pk = ANY(?)}
+     * per model class, composite keys are sent as JDBC batches of {@link #getBatchSize()} rows. Models without a
+     * {@link de.bybackfish.sql.annotation.PrimaryKey} fall back to {@link DatabaseModel#delete()}.
+     */
+    public <T extends DatabaseModel> void deleteBatch(Collection<T> models) throws FishSQLException {
+        Map<Class<? extends DatabaseModel>, List<List<Object>>> groups = new LinkedHashMap<>();
+
+        for (T model : models) {
+            if (EntityMetadata.of(model.getClass()).primaryKeys().isEmpty()) {
+                model.delete();
+                continue;
+            }
+            groups.computeIfAbsent(model.getClass(), _ -> new ArrayList<>()).add(model.primaryKeyValues());
+        }
+
+        for (Map.Entry<Class<? extends DatabaseModel>, List<List<Object>>> group : groups.entrySet()) {
+            EntityMetadata<?> metadata = EntityMetadata.of(group.getKey());
+            List<EntityMetadata.ColumnMetadata> primaryKeys = metadata.primaryKeys();
+
+            if (primaryKeys.size() > 1) {
+                executeBatch(metadata.deleteSql(), group.getValue());
+                queryCache.invalidate(metadata.tableName());
+                continue;
+            }
+
+            EntityMetadata.ColumnMetadata primaryKey = primaryKeys.getFirst();
+            String sql = STR."DELETE FROM \{metadata.tableName()} WHERE \{primaryKey.name()} = ANY(?)";
+            debug("SQL: {0} ({1} keys)\n", sql, group.getValue().size());
+
+            Connection connection = acquireConnection();
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                List<Object> keys = group.getValue().stream().map(List::getFirst).toList();
+                addToStatement(statement, 0, SqlArray.of(primaryKey.type(), keys));
+                statement.executeUpdate();
+                queryCache.invalidate(metadata.tableName());
+            } catch (SQLException e) {
+                throw new FishSQLException(STR."Failed to delete from \{metadata.tableName()}", e);
+            } finally {
+                releaseConnection(connection);
+            }
+        }
+    }
+
+    private static String primaryKeyCondition(EntityMetadata<?> metadata) {
+        return metadata.primaryKeys().stream().map(column -> STR."\{column.name()} = ?").collect(Collectors.joining(" AND "));
+    }
+
+    /**
+     * Sends the same statement once per row, in JDBC batches of {@link #getBatchSize()} rows.
+     */
+    private void executeBatch(String sql, List<List<Object>> rows) throws FishSQLException {
+        debug("Batch SQL: {0} ({1} rows)\n", sql, rows.size());
+
+        Connection connection = acquireConnection();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int from = 0; from < rows.size(); from += batchSize) {
+                for (List<Object> row : rows.subList(from, Math.min(from + batchSize, rows.size()))) {
+                    for (int i = 0; i < row.size(); i++) {
+                        addToStatement(statement, i, row.get(i));
+                    }
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        } catch (SQLException e) {
+            throw new FishSQLException(STR."Failed to execute batch: \{sql}", e);
+        } finally {
+            releaseConnection(connection);
+        }
+    }
+
+    /**
+     * Streams the models into their table with PostgreSQL's {@code COPY ... FROM STDIN}, which is far faster than
+     * inserts for large loads. Rows are encoded one at a time into a bounded buffer, so {@code models} may be a
+     * lazily produced iterator of any size.
+     * <p>
+     * All columns except {@link de.bybackfish.sql.annotation.AutoGenerated} ones are written, {@code null} values
+     * included. Generated keys are not written back.
+     *
+     * @return the number of copied rows
+     */
+    public <T extends DatabaseModel> long copyIn(Class<T> clazz, Iterator<? extends T> models, CopyFormat format) throws FishSQLException {
+        Connection connection = acquireConnection();
+        try {
+            long copied = PostgresCopy.copyIn(connection, EntityMetadata.of(clazz), models, format);
+            queryCache.invalidate(EntityMetadata.of(clazz).tableName());
+            return copied;
+        } finally {
+            releaseConnection(connection);
+        }
+    }
+
+    public <T extends DatabaseModel> long copyIn(Class<T> clazz, Iterable<? extends T> models, CopyFormat format) throws FishSQLException {
+        return copyIn(clazz, models.iterator(), format);
+    }
+
+    public <T extends DatabaseModel> long copyIn(Class<T> clazz, Iterable<? extends T> models) throws FishSQLException {
+        return copyIn(clazz, models.iterator(), CopyFormat.TEXT);
+    }
+
+    /**
+     * Writes the result of {@code query} to {@code channel} with {@code COPY (query) TO STDOUT}, without mapping
+     * any rows to models. The rows pass through a bounded buffer, so exports of any size run in constant memory.
+     * <p>
+     * {@code COPY} cannot bind parameters, so the query's parameters are inlined as quoted literals.
+     *
+     * @return the number of exported rows
+     */
+    public long copyOut(AbstractQueryBuilder query, WritableByteChannel channel, CopyFormat format) throws FishSQLException {
+        String sql;
+        try {
+            sql = query.render().inlined();
+        } catch (IllegalArgumentException e) {
+            throw new FishSQLException(e);
+        }
+        debug("COPY: {0}\n", sql);
+
+        Connection connection = acquireConnection();
+        try {
+            return PostgresCopy.copyOut(connection, sql, channel, format);
+        } finally {
+            releaseConnection(connection);
+        }
+    }
+
+    /**
+     * Like {@link #copyOut(AbstractQueryBuilder, WritableByteChannel, CopyFormat)}, replacing the file at
+     * {@code path}.
+     */
+    public long copyOut(AbstractQueryBuilder query, Path path, CopyFormat format) throws FishSQLException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            return copyOut(query, channel, format);
+        } catch (IOException e) {
+            throw new FishSQLException(STR."Failed to write \{path}", e);
+        }
+    }
+
+    /**
+     * The typed counterpart of {@link #copyOut(AbstractQueryBuilder, WritableByteChannel, CopyFormat)}: streams the
+     * rows through a server side cursor and hands each model to {@code consumer}, so only one fetch is held in
+     * memory at a time.
+     *
+     * @return the number of exported rows
+     */
+    public <T extends DatabaseModel> long copyOut(SelectQueryBuilder query, Class<T> clazz, Consumer<? super T> consumer) throws FishSQLException {
+        long count = 0;
+        try (Stream<T> stream = stream(query, clazz)) {
+            Iterator<T> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public void nativeUpdate(String sql, Object... params) throws SQLException {
+        try (AbstractQueryBuilder.BuiltQuery query = new AbstractQueryBuilder.BuiltQuery(prepareStatement(sql, params), this)) {
+            query.executeUpdate();
+        }
+        queryCache.invalidateNative(sql);
+    }
+
+    /**
+     * Executes a query as is. Closing the returned result set also closes its statement and releases its
+     * connection.
+     */
+    public ResultSet nativeQuery(String sql, Object... params) throws SQLException {
+        AbstractQueryBuilder.BuiltQuery query = new AbstractQueryBuilder.BuiltQuery(prepareStatement(sql, params), this);
+        ResultSet resultSet;
+        try {
+            resultSet = query.execute();
+        } catch (SQLException e) {
+            query.close();
+            throw e;
+        }
+
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+            if (method.getName().equals("close") && method.getParameterCount() == 0) {
+                try {
+                    resultSet.close();
+                } finally {
+                    query.close();
+                }
+                return null;
+            }
+            try {
+                return method.invoke(resultSet, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    /**
+     * Leases a connection from the adapter, or returns the transaction's connection inside
+     * {@link #openTransaction(Callable)}. Every connection must be handed back with
+     * {@link #releaseConnection(Connection)}.
+     */
+    public Connection acquireConnection() throws FishSQLException {
+        if (transactionConnection.isBound()) {
+            return transactionConnection.get();
+        }
+        return databaseAdapter.getConnection();
+    }
+
+    public void releaseConnection(Connection connection) throws FishSQLException {
+        // the transaction's connection is released when the transaction ends
+        if (transactionConnection.isBound() && transactionConnection.get() == connection) {
+            return;
+        }
+        databaseAdapter.releaseConnection(connection);
+    }
+
+    /**
+     * Prepares {@code sql} on a leased connection and binds {@code params}. Statements are reused from a per
+     * connection cache, so hand them back with {@link #releaseStatement(PreparedStatement)} instead of closing them.
+     */
+    public PreparedStatement prepareStatement(String sql, Object... params) throws SQLException {
+        int requiredParams = SqlTypes.countParameters(sql);
+        debug("Params used/given: {0}/{1}\n", requiredParams, params.length);
+
+        debug("SQL: {0}\n", sql);
+        debug("Parameters: {0}\n", Arrays.stream(params).map(String::valueOf).collect(Collectors.joining(", ")));
+
+
+        if (requiredParams != params.length) {
+            throw new SQLException("""
+                    Not enough parameters for query:
+                    SQL: %s
+                    Required: %s
+                    Given: %s
+                    """.formatted(sql, requiredParams, params.length));
+        }
+
+        Connection connection = acquireConnection();
+        PreparedStatement preparedStatement = null;
+        try {
+            StatementCache cache = statementCache(connection);
+            preparedStatement = cache != null
+                    ? cache.checkout(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)
+                    : connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            for (int i = 0; i < params.length; i++) {
+                addToStatement(preparedStatement, i, params[i]);
+            }
+        } catch (SQLException | RuntimeException e) {
+            if (preparedStatement != null) {
+                releaseStatement(preparedStatement);
+            } else {
+                releaseConnection(connection);
+            }
+            throw e;
+        }
+
+        debug("Prepared Statement: {0}\n", preparedStatement.toString());
+
+        return preparedStatement;
+    }
+
+    /**
+     * Returns a statement from {@link #prepareStatement(String, Object...)} to its connection's cache, or closes it
+     * if it is not cached, and releases the connection.
+     */
+    public void releaseStatement(PreparedStatement statement) throws FishSQLException {
+        try {
+            Connection connection = statement.getConnection();
+            try {
+                StatementCache cache = statementCaches.get(connection);
+                if (cache == null || !cache.checkin(statement)) {
+                    statement.close();
+                }
+            } finally {
+                releaseConnection(connection);
+            }
+        } catch (SQLException e) {
+            throw new FishSQLException(e);
+        }
+    }
+
+    private StatementCache statementCache(Connection connection) {
+        int size = statementCacheSize;
+        if (size == 0) return null;
+
+        StatementCache cache = statementCaches.get(connection);
+        if (cache == null) {
+            // a new connection is a good moment to forget the ones the adapter has closed since
+            statementCaches.values().removeIf(StatementCache::isStale);
+            cache = statementCaches.computeIfAbsent(connection, key -> new StatementCache(key, size));
+        }
+        return cache;
+    }
+
+    private void addToStatement(PreparedStatement preparedStatement, int index, Object input) throws SQLException {
+        switch (input) {
+            case Integer value -> preparedStatement.setInt(index + 1, value);
+            case Long value -> preparedStatement.setLong(index + 1, value);
+            case Double value -> preparedStatement.setDouble(index + 1, value);
+            // like an enum constant, an untyped literal is cast to the column type by the server
+            case SqlArray array when !array.typed() -> preparedStatement.setObject(index + 1, array.literal(), Types.OTHER);
+            case SqlArray array ->
+                    preparedStatement.setArray(index + 1, preparedStatement.getConnection().createArrayOf(array.elementType(), array.elements()));
+            case null -> preparedStatement.setObject(index + 1, null);
+            default -> bind(preparedStatement, index + 1, input, TypeCodecs.find(input.getClass()));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void bind(PreparedStatement preparedStatement, int index, Object input, TypeCodec<T> codec) throws SQLException {
+        if (codec != null) {
+            codec.bind(preparedStatement, index, (T) input);
+        } else {
+            preparedStatement.setObject(index, input);
+        }
+    }
+
+    public <T extends DatabaseModel> List<T> select(SelectQueryBuilder selectQueryBuilder, Class<T> clazz, Object... params) throws FishSQLException {
+        selectQueryBuilder.from(clazz);
+
+        return executeQuery(selectQueryBuilder, clazz);
+    }
+
+    /**
+     * Like {@link #select(SelectQueryBuilder, Class, Object...)}, but maps the rows lazily while the stream is
+     * consumed. The stream must be closed.
+     */
+    public <T extends DatabaseModel> Stream<T> stream(SelectQueryBuilder selectQueryBuilder, Class<T> clazz) throws FishSQLException {
+        selectQueryBuilder.from(clazz);
+
+        return streamQuery(selectQueryBuilder, clazz);
+    }
+
+    public <T extends DatabaseModel> T selectOne(SelectQueryBuilder selectQueryBuilder, Class<T> clazz, Object... params) throws FishSQLException {
+        selectQueryBuilder.limit(1);
+        List<T> models = select(selectQueryBuilder, clazz, params);
+        if (models.isEmpty()) {
+            return null;
+        }
+        return models.getFirst();
+    }
+
+    public void openTransaction(Callable<Boolean> callable, Consumer<Optional<Exception>> onFail) {
+        openTransaction(TransactionOptions.defaults(), callable, onFail);
+    }
+
+    /**
+     * Runs {@code callable} in a transaction. The transaction's connection is bound to the callable's scope, so every
+     * query issued from it (including {@link DatabaseModel#insert()}, {@link DatabaseModel#update()}, ...) runs on
+     * that connection. The binding is a {@link ScopedValue}, so it is safe for virtual threads and does not leak into
+     * threads started from the callable. A {@link Session} is bound for the transaction as well, unless one is
+     * bound already.
+     * <p>
+     * The transaction is committed when the callable returns {@code true} and rolled back when it returns
+     * {@code false} or throws. A transaction opened inside another one becomes a savepoint of the outer transaction.
+     *
+     * @throws IllegalStateException if a nested transaction asks for read-only access or an isolation level the outer
+     *                               transaction does not have
+     */
+    public void openTransaction(TransactionOptions options, Callable<Boolean> callable, Consumer<Optional<Exception>> onFail) {
+        if (transactionConnection.isBound()) {
+            Connection connection = transactionConnection.get();
+            requireCompatible(connection, options);
+            openNestedTransaction(connection, callable, onFail);
+            return;
+        }
+
+        Connection connection;
+        try {
+            connection = databaseAdapter.getConnection();
+        } catch (FishSQLException e) {
+            onFail.accept(Optional.of(e));
+            return;
+        }
+
+        Session session = Session.current().orElseGet(Session::new);
+        boolean previousReadOnly = false;
+        int previousIsolation = TransactionOptions.DEFAULT_ISOLATION;
+        Throwable failure = null;
+        try {
+            try {
+                connection.setAutoCommit(false);
+                if (options.readOnly()) {
+                    previousReadOnly = connection.isReadOnly();
+                    connection.setReadOnly(true);
+                }
+                if (options.isolationLevel() != TransactionOptions.DEFAULT_ISOLATION) {
+                    previousIsolation = connection.getTransactionIsolation();
+                    connection.setTransactionIsolation(options.isolationLevel());
+                }
+
+                if (ScopedValue.where(transactionConnection, connection).where(Session.CURRENT, session).call(callable)) {
+                    connection.commit();
+                } else {
+                    onFail.accept(Optional.empty());
+                    connection.rollback();
+                }
+            } catch (Exception e) {
+                try {
+                    connection.rollback();
+                } catch (SQLException ex) {
+                    throw new RuntimeException(ex);
+                }
+                onFail.accept(Optional.of(e));
+            }
+        } catch (RuntimeException | Error e) {
+            failure = e;
+            throw e;
+        } finally {
+            SQLException cleanupFailure = null;
+            try {
+                restore(connection, options, previousReadOnly, previousIsolation);
+            } catch (SQLException e) {
+                cleanupFailure = e;
+            } finally {
+                // a connection that could not be restored is still handed back, the pool discards or resets it
+                try {
+                    databaseAdapter.releaseConnection(connection);
+                } catch (FishSQLException e) {
+                    if (cleanupFailure == null) cleanupFailure = e;
+                    else cleanupFailure.addSuppressed(e);
+                } finally {
+                    session.completeTransaction();
+                }
+            }
+
+            if (cleanupFailure != null) {
+                if (failure == null) throw new RuntimeException(cleanupFailure);
+                failure.addSuppressed(cleanupFailure);
+            }
+        }
+    }
+
+    private static void restore(Connection connection, TransactionOptions options, boolean previousReadOnly, int previousIsolation) throws SQLException {
+        connection.setAutoCommit(true);
+        if (options.readOnly()) {
+            connection.setReadOnly(previousReadOnly);
+        }
+        if (previousIsolation != TransactionOptions.DEFAULT_ISOLATION) {
+            connection.setTransactionIsolation(previousIsolation);
+        }
+    }
+
+    /**
+     * A savepoint runs with the settings of its outer transaction, which cannot be changed once it started.
+     */
+    private static void requireCompatible(Connection connection, TransactionOptions options) {
+        try {
+            if (options.readOnly() && !connection.isReadOnly()) {
+                throw new IllegalStateException("Cannot open a read-only transaction inside a read-write transaction");
+            }
+            if (options.isolationLevel() != TransactionOptions.DEFAULT_ISOLATION
+                    && options.isolationLevel() != connection.getTransactionIsolation()) {
+                throw new IllegalStateException(STR."Cannot open a transaction with isolation level \{options.isolationLevel()} inside a transaction with isolation level \{connection.getTransactionIsolation()}");
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void openNestedTransaction(Connection connection, Callable<Boolean> callable, Consumer<Optional<Exception>> onFail) {
+        Savepoint savepoint = null;
+        try {
+            savepoint = connection.setSavepoint();
+            if (callable.call()) {
+                connection.releaseSavepoint(savepoint);
+            } else {
+                onFail.accept(Optional.empty());
+                connection.rollback(savepoint);
+            }
+        } catch (Exception e) {
+            if (savepoint != null) {
+                try {
+                    connection.rollback(savepoint);
+                } catch (SQLException ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+            onFail.accept(Optional.of(e));
+        }
+    }
+
+    public void openTransaction(TransactionOptions options, Callable<Boolean> callable) {
+        openTransaction(options, callable, FishDatabase::rethrow);
+    }
+
+    /**
+     * @return whether the current scope runs inside {@link #openTransaction(Callable)}
+     */
+    public boolean isInTransaction() {
+        return transactionConnection.isBound();
+    }
+
+    public void openTransaction(Callable<Boolean> callable) {
+        openTransaction(callable, FishDatabase::rethrow);
+    }
+
+    private static void rethrow(Optional<Exception> optionalException) {
+        optionalException.ifPresent(exception -> {
+            try {
+                throw new FishSQLException(exception);
+            } catch (FishSQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets the number of rows sent per JDBC batch by {@link #insertBatch(Collection)},
+     * {@link #updateBatch(Collection)} and {@link #deleteBatch(Collection)}.
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException(STR."Batch size must be positive: \{batchSize}");
+        }
+        this.batchSize = batchSize;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Sets the number of rows fetched per round trip by streamed queries. {@code 0} lets the driver decide, which
+     * means the whole result for PostgreSQL.
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    /**
+     * Sets how many prepared statements are kept per connection, {@code 0} disables the cache. Statements cached
+     * so far are closed.
+     */
+    public void setStatementCacheSize(int statementCacheSize) throws FishSQLException {
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException(STR."Statement cache size must not be negative: \{statementCacheSize}");
+        }
+        this.statementCacheSize = statementCacheSize;
+
+        try {
+            for (Iterator<StatementCache> caches = statementCaches.values().iterator(); caches.hasNext(); ) {
+                StatementCache cache = caches.next();
+                caches.remove();
+                cache.close();
+            }
+        } catch (SQLException e) {
+            throw new FishSQLException(e);
+        }
+    }
+
+    /**
+     * The cache of {@link SelectQueryBuilder#cached(java.time.Duration, String...) cached} query results.
+     */
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
+    /**
+     * Sets the estimated memory, in bytes, that cached query results may take up. Results cached so far are
+     * dropped.
+     */
+    public void setQueryCacheSize(long queryCacheSize) {
+        this.queryCache = new QueryCache(this, queryCacheSize);
+    }
+
+    private void log(Level level, String message, Object... params) {
+        logger.log(level, message, params);
+    }
+
+    private void debug(String message, Object... params) {
+        log(Level.INFO, message, params);
+    }
+
+    /**
+     * A model class together with the columns a statement writes, the grouping key of batched statements.
+     */
+    private record StatementShape(Class<? extends DatabaseModel> type, List<String> columns) {
+    }
+}
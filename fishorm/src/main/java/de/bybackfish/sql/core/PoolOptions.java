@@ -0,0 +1,53 @@
+package de.bybackfish.sql.core;
+
+import java.time.Duration;
+
+/**
+ * Sizing and timeouts of a {@link PooledDatabaseAdapter}.
+ *
+ * @param minSize                connections kept open even when idle
+ * @param maxSize                upper bound of open connections, and therefore of concurrent leases
+ * @param leaseTimeout           how long {@link PooledDatabaseAdapter#getConnection()} waits for a free connection
+ * @param idleTimeout            idle connections above {@code minSize} are closed after this long
+ * @param validationInterval     connections idle for longer than this are checked with {@code isValid} before a lease
+ * @param leakDetectionThreshold leases held for longer than this are logged with the stack that leased them,
+ *                               {@link Duration#ZERO} disables leak detection
+ */
+public record PoolOptions(
+        int minSize,
+        int maxSize,
+        Duration leaseTimeout,
+        Duration idleTimeout,
+        Duration validationInterval,
+        Duration leakDetectionThreshold
+) {
+    public PoolOptions {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException(STR."Invalid pool size: min \{minSize}, max \{maxSize}");
+        }
+    }
+
+    public static PoolOptions defaults() {
+        return new PoolOptions(2, 10, Duration.ofSeconds(30), Duration.ofMinutes(10), Duration.ofSeconds(5), Duration.ZERO);
+    }
+
+    public PoolOptions withSize(int minSize, int maxSize) {
+        return new PoolOptions(minSize, maxSize, leaseTimeout, idleTimeout, validationInterval, leakDetectionThreshold);
+    }
+
+    public PoolOptions withLeaseTimeout(Duration leaseTimeout) {
+        return new PoolOptions(minSize, maxSize, leaseTimeout, idleTimeout, validationInterval, leakDetectionThreshold);
+    }
+
+    public PoolOptions withIdleTimeout(Duration idleTimeout) {
+        return new PoolOptions(minSize, maxSize, leaseTimeout, idleTimeout, validationInterval, leakDetectionThreshold);
+    }
+
+    public PoolOptions withValidationInterval(Duration validationInterval) {
+        return new PoolOptions(minSize, maxSize, leaseTimeout, idleTimeout, validationInterval, leakDetectionThreshold);
+    }
+
+    public PoolOptions withLeakDetectionThreshold(Duration leakDetectionThreshold) {
+        return new PoolOptions(minSize, maxSize, leaseTimeout, idleTimeout, validationInterval, leakDetectionThreshold);
+    }
+}
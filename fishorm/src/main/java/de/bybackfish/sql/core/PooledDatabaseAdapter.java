@@ -0,0 +1,270 @@
+package de.bybackfish.sql.core;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link DatabaseAdapter} that leases connections from a bounded pool instead of sharing a single one.
+ * <p>
+ * Every query leases its own connection and {@link FishDatabase} hands it back through
+ * {@link #releaseConnection(Connection)} once the statement is closed. Idle connections are kept in LIFO order, so
+ * the warmest connection is reused first and the coldest ones are evicted after {@link PoolOptions#idleTimeout()}.
+ */
+public class PooledDatabaseAdapter implements DatabaseAdapter {
+    private static final long HOUSEKEEPING_INTERVAL_MILLIS = 5_000;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final Logger logger = Logger.getLogger(PooledDatabaseAdapter.class.getName());
+    private final ConnectionFactory connectionFactory;
+    private final PoolOptions poolOptions;
+
+    private final BlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Map<Connection, PooledConnection> leased = new ConcurrentHashMap<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final Semaphore permits;
+
+    private volatile DatabaseOptions databaseOptions;
+    private volatile ScheduledExecutorService housekeeper;
+    private volatile boolean closed = true;
+
+    public PooledDatabaseAdapter(ConnectionFactory connectionFactory) {
+        this(connectionFactory, PoolOptions.defaults());
+    }
+
+    public PooledDatabaseAdapter(ConnectionFactory connectionFactory, PoolOptions poolOptions) {
+        this.connectionFactory = connectionFactory;
+        this.poolOptions = poolOptions;
+        this.permits = new Semaphore(poolOptions.maxSize(), true);
+    }
+
+    /**
+     * Opens the pool. Connecting an already connected pool only replaces its options and housekeeper, the connections
+     * opened with the previous options stay pooled.
+     */
+    @Override
+    public synchronized void connect(DatabaseOptions databaseOptions) throws FishSQLException {
+        this.databaseOptions = databaseOptions;
+        this.closed = false;
+        if (housekeeper != null) {
+            housekeeper.shutdownNow();
+        }
+
+        fillToMinimum();
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "FishORM-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, HOUSEKEEPING_INTERVAL_MILLIS, HOUSEKEEPING_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void disconnect() throws FishSQLException {
+        closed = true;
+        if (housekeeper != null) {
+            housekeeper.shutdownNow();
+            housekeeper = null;
+        }
+
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+        for (Connection connection : leased.keySet()) {
+            // the lease may be handed back concurrently, whoever removes it releases its permit
+            PooledConnection leasedConnection = leased.remove(connection);
+            if (leasedConnection == null) continue;
+
+            logger.log(Level.WARNING, "Closing connection that is still leased");
+            destroy(leasedConnection);
+            permits.release();
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws FishSQLException {
+        if (closed) {
+            throw new FishSQLException("Pool is not connected");
+        }
+
+        try {
+            if (!permits.tryAcquire(poolOptions.leaseTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new FishSQLException(STR."Timed out after \{poolOptions.leaseTimeout().toMillis()}ms waiting for a connection (\{leased.size()} of \{poolOptions.maxSize()} leased)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FishSQLException("Interrupted while waiting for a connection", e);
+        }
+
+        try {
+            while (true) {
+                PooledConnection pooled = idle.pollFirst();
+                if (pooled == null) {
+                    pooled = create();
+                } else if (!isUsable(pooled)) {
+                    destroy(pooled);
+                    continue;
+                }
+
+                pooled.lease(poolOptions.leakDetectionThreshold().isZero() ? null : new Throwable("Connection leased here"));
+                leased.put(pooled.connection, pooled);
+                return pooled.connection;
+            }
+        } catch (FishSQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void releaseConnection(Connection connection) {
+        PooledConnection pooled = leased.remove(connection);
+        if (pooled == null) {
+            return;
+        }
+
+        try {
+            if (closed || connection.isClosed()) {
+                destroy(pooled);
+                return;
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            pooled.release();
+            idle.offerFirst(pooled);
+        } catch (SQLException e) {
+            destroy(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int getOpenCount() {
+        return open.get();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getLeasedCount() {
+        return leased.size();
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        try {
+            if (pooled.connection.isClosed()) return false;
+            // only pay for a round trip when the connection has been idle for a while
+            if (System.nanoTime() - pooled.lastUsed < poolOptions.validationInterval().toNanos()) return true;
+            return pooled.connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection create() throws FishSQLException {
+        try {
+            Connection connection = connectionFactory.create(databaseOptions);
+            open.incrementAndGet();
+            return new PooledConnection(connection);
+        } catch (SQLException e) {
+            throw new FishSQLException("Failed to open a pooled connection", e);
+        }
+    }
+
+    private void destroy(PooledConnection pooled) {
+        open.decrementAndGet();
+        try {
+            pooled.connection.close();
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "Failed to close pooled connection", e);
+        }
+    }
+
+    /**
+     * Opens idle connections until the pool holds {@link PoolOptions#minSize()}. Every connection is opened while
+     * holding a permit, like a borrower does, so refilling never pushes the pool past {@link PoolOptions#maxSize()};
+     * when all permits are taken, the pool is busy enough and the refill is skipped.
+     */
+    private void fillToMinimum() throws FishSQLException {
+        while (!closed && open.get() < poolOptions.minSize() && permits.tryAcquire()) {
+            try {
+                if (open.get() >= poolOptions.minSize()) return;
+
+                PooledConnection pooled = create();
+                pooled.release();
+                idle.offerLast(pooled);
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    private void housekeep() {
+        long now = System.nanoTime();
+
+        // the coldest connections are at the tail of the deque
+        Iterator<PooledConnection> iterator = idle.descendingIterator();
+        while (iterator.hasNext() && open.get() > poolOptions.minSize()) {
+            PooledConnection pooled = iterator.next();
+            if (now - pooled.lastUsed > poolOptions.idleTimeout().toNanos() && idle.remove(pooled)) {
+                destroy(pooled);
+            }
+        }
+
+        if (!poolOptions.leakDetectionThreshold().isZero()) {
+            for (PooledConnection pooled : leased.values()) {
+                if (!pooled.leakReported && now - pooled.leasedAt > poolOptions.leakDetectionThreshold().toNanos()) {
+                    pooled.leakReported = true;
+                    logger.log(Level.WARNING, STR."Connection leased for more than \{poolOptions.leakDetectionThreshold().toMillis()}ms, possible leak", pooled.leasedBy);
+                }
+            }
+        }
+
+        try {
+            fillToMinimum();
+        } catch (FishSQLException e) {
+            logger.log(Level.WARNING, "Failed to refill pool", e);
+        }
+    }
+
+    /**
+     * Opens a new physical connection for the pool.
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create(DatabaseOptions databaseOptions) throws SQLException;
+    }
+
+    private static class PooledConnection {
+        final Connection connection;
+        volatile long lastUsed = System.nanoTime();
+        volatile long leasedAt;
+        volatile Throwable leasedBy;
+        volatile boolean leakReported;
+
+        PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        void lease(Throwable leasedBy) {
+            this.leasedAt = System.nanoTime();
+            this.leasedBy = leasedBy;
+            this.leakReported = false;
+        }
+
+        void release() {
+            this.lastUsed = System.nanoTime();
+            this.leasedBy = null;
+        }
+    }
+}
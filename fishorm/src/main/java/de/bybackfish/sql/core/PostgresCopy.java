@@ -0,0 +1,165 @@
+package de.bybackfish.sql.core;
+
+import de.bybackfish.sql.codec.TypeCodec;
+import de.bybackfish.sql.codec.TypeCodecs;
+import de.bybackfish.sql.util.EntityMetadata;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyOut;
+import org.postgresql.copy.PGCopyOutputStream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * The pgjdbc specific part of {@link FishDatabase#copyIn} and {@link FishDatabase#copyOut}, kept in its own class so the driver is only loaded when
+ * {@code COPY} is used.
+ */
+class PostgresCopy {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    static <T extends DatabaseModel> long copyIn(Connection connection, EntityMetadata<T> metadata, Iterator<? extends T> models, CopyFormat format) throws FishSQLException {
+        // auto generated columns are left to their database defaults
+        List<EntityMetadata.ColumnMetadata> columns = metadata.columns().stream().filter(column -> !column.autoGenerated()).toList();
+        List<String> names = columns.stream().map(EntityMetadata.ColumnMetadata::name).toList();
+        String sql = STR."COPY \{metadata.tableName()} (\{String.join(", ", names)}) FROM STDIN \{format.options()}";
+        List<String> types = List.of();
+        if (format == CopyFormat.BINARY) {
+            types = columnTypes(connection, metadata.tableName(), names);
+            CopyEncoder.requireBinarySupport(names, types);
+        }
+
+        PGCopyOutputStream out;
+        try {
+            out = new PGCopyOutputStream(connection.unwrap(PGConnection.class), sql, BUFFER_SIZE);
+        } catch (SQLException e) {
+            throw new FishSQLException(STR."Failed to start \{sql}", e);
+        }
+
+        try {
+            CopyEncoder encoder = CopyEncoder.of(format, out, names, types);
+            encoder.start();
+
+            List<Object> values = new ArrayList<>(columns.size());
+            while (models.hasNext()) {
+                T model = models.next();
+                values.clear();
+                for (EntityMetadata.ColumnMetadata column : columns) {
+                    Object value = column.get(model);
+                    if (value instanceof Optional<?> optional) {
+                        value = optional.orElse(null);
+                    }
+                    values.add(value == null ? null : encode(value));
+                }
+                encoder.writeRow(values);
+            }
+
+            encoder.finish();
+            return out.endCopy();
+        } catch (IOException | SQLException | IllegalAccessException | RuntimeException e) {
+            try {
+                if (out.isActive()) out.cancelCopy();
+            } catch (SQLException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw new FishSQLException(STR."Failed to copy into \{metadata.tableName()}", e);
+        }
+    }
+
+    /**
+     * The value {@code COPY} writes for {@code value}, as given by its {@link TypeCodec#encode(Object)}.
+     */
+    @SuppressWarnings("unchecked")
+    private static <V> Object encode(V value) {
+        TypeCodec<V> codec = TypeCodecs.find((Class<V>) value.getClass());
+        return codec == null ? value : codec.encode(value);
+    }
+
+    /**
+     * The PostgreSQL type names of {@code columns} of {@code table}, with domains resolved to their base type and
+     * every enum type named {@code enum}.
+     */
+    private static List<String> columnTypes(Connection connection, String table, List<String> columns) throws FishSQLException {
+        String sql = """
+                SELECT a.attname, CASE WHEN t.typtype = 'e' THEN 'enum' ELSE coalesce(base.typname, t.typname) END
+                FROM pg_attribute a
+                JOIN pg_type t ON t.oid = a.atttypid
+                LEFT JOIN pg_type base ON base.oid = t.typbasetype AND t.typtype = 'd'
+                WHERE a.attrelid = ?::regclass AND a.attnum > 0 AND NOT a.attisdropped""";
+
+        Map<String, String> types = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, table);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    types.put(resultSet.getString(1).toLowerCase(Locale.ROOT), resultSet.getString(2));
+                }
+            }
+        } catch (SQLException e) {
+            throw new FishSQLException(STR."Failed to read the column types of \{table}", e);
+        }
+
+        List<String> columnTypes = new ArrayList<>(columns.size());
+        for (String column : columns) {
+            String type = types.get(column.toLowerCase(Locale.ROOT));
+            if (type == null) {
+                throw new FishSQLException(STR."\{table} has no column \{column}");
+            }
+            columnTypes.add(type);
+        }
+        return columnTypes;
+    }
+
+    static long copyOut(Connection connection, String query, WritableByteChannel channel, CopyFormat format) throws FishSQLException {
+        String sql = STR."COPY (\{query}) TO STDOUT \{format.options()}";
+
+        CopyOut copyOut;
+        try {
+            copyOut = connection.unwrap(PGConnection.class).getCopyAPI().copyOut(sql);
+        } catch (SQLException e) {
+            throw new FishSQLException(STR."Failed to start \{sql}", e);
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            byte[] row;
+            // pgjdbc hands out one row per message, coalesce them to keep the channel writes large
+            while ((row = copyOut.readFromCopy()) != null) {
+                if (row.length > buffer.remaining()) {
+                    drain(buffer, channel);
+                }
+                if (row.length > buffer.capacity()) {
+                    writeFully(ByteBuffer.wrap(row), channel);
+                } else {
+                    buffer.put(row);
+                }
+            }
+            drain(buffer, channel);
+            return copyOut.getHandledRowCount();
+        } catch (IOException | SQLException | RuntimeException e) {
+            try {
+                if (copyOut.isActive()) copyOut.cancelCopy();
+            } catch (SQLException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw new FishSQLException(STR."Failed to copy \{query}", e);
+        }
+    }
+
+    private static void drain(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        writeFully(buffer, channel);
+        buffer.clear();
+    }
+
+    private static void writeFully(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package de.bybackfish.sql.core;
+
+import de.bybackfish.sql.cache.CacheStats;
+import de.bybackfish.sql.cache.TinyLfuCache;
+import de.bybackfish.sql.query.AbstractQueryBuilder;
+import de.bybackfish.sql.query.SelectQueryBuilder;
+import de.bybackfish.sql.util.EntityMetadata;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Caches the results of {@link SelectQueryBuilder#cached(Duration, String...) cached} queries of a
+ * {@link FishDatabase}, keyed by their SQL, parameters and model class. The cache is bounded by the estimated
+ * memory of the cached rows, and evicts with the same W-TinyLFU policy as the {@link EntityCache}.
+ * <p>
+ * A cached result depends on the tables its query selects from and joins. Every write to one of them through
+ * {@link DatabaseModel}, {@link FishDatabase#executeUpdate(AbstractQueryBuilder)},
+ * {@link de.bybackfish.sql.query.CompiledQuery#executeUpdate(Map)}, the batch operations,
+ * {@link FishDatabase#copyIn(Class, Iterator, CopyFormat)} or {@link FishDatabase#nativeUpdate(String, Object...)}
+ * drops it; a native update whose table cannot be determined drops all results. Inside a transaction, results are
+ * dropped again once it ends, and cached queries bypass the cache entirely.
+ * <p>
+ * Like the entity cache, the cache holds a copy of the column values, so every hit returns new instances.
+ * Relations are loaded lazily again.
+ */
+public final class QueryCache {
+    private static final Pattern WRITTEN_TABLE = Pattern.compile(
+            "^\\s*(?:INSERT\\s+INTO|UPDATE|DELETE\\s+FROM|MERGE\\s+INTO|TRUNCATE(?:\\s+TABLE)?)\\s+(?:ONLY\\s+)?([\\w.\"]+)",
+            Pattern.CASE_INSENSITIVE);
+
+    private final FishDatabase fishDatabase;
+    private final TinyLfuCache<Key, Result> cache;
+    // the cached keys by the tables they depend on, so a write only visits its own results
+    private final Map<String, Set<Key>> keysByTable = new ConcurrentHashMap<>();
+    private final Set<Key> untrackedKeys = ConcurrentHashMap.newKeySet();
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong resets = new AtomicLong();
+
+    QueryCache(FishDatabase fishDatabase, long maximumWeight) {
+        this.fishDatabase = fishDatabase;
+        this.cache = new TinyLfuCache<>(maximumWeight, Duration.ZERO, (_, result) -> result.weight(), this::unindex);
+    }
+
+    <T extends DatabaseModel> List<T> execute(SelectQueryBuilder query, Class<T> clazz, Duration ttl) throws FishSQLException {
+        if (!query.fetches().isEmpty()) {
+            throw new IllegalStateException("Cached queries cannot fetch relations");
+        }
+
+        // a transaction must see its own writes and those committed since it started, see EntityCache#find
+        if (fishDatabase.isInTransaction()) {
+            return query.build(fishDatabase).unwrap(clazz);
+        }
+
+        AbstractQueryBuilder.RenderedQuery rendered = query.render();
+        Set<String> tables = new HashSet<>();
+        query.tables().forEach(table -> tables.add(normalize(table)));
+        Key key = new Key(rendered.sql(), rendered.params(), clazz, Set.copyOf(tables));
+
+        EntityMetadata<T> metadata = EntityMetadata.of(clazz);
+        Result cached = cache.get(key);
+        if (cached != null) {
+            List<T> models = new ArrayList<>(cached.rows().size());
+            for (Object[] row : cached.rows()) {
+                models.add(Session.canonical(EntityCache.restore(metadata, clazz, row)));
+            }
+            return models;
+        }
+
+        long version = version(key.tables());
+        List<T> models = query.build(fishDatabase).unwrap(clazz);
+
+        // a write that committed while the query ran may not be part of its result
+        if (version(key.tables()) == version) {
+            List<Object[]> rows = new ArrayList<>(models.size());
+            for (T model : models) {
+                rows.add(EntityCache.snapshot(metadata, model));
+            }
+            // indexed before the put, so a write cannot miss the entry, and after it, in case an equal entry that
+            // was removed meanwhile unindexed the key
+            index(key);
+            cache.put(key, new Result(rows, weigh(key, rows)), ttl);
+            index(key);
+            // a write between the check and the put may have missed the result
+            if (version(key.tables()) != version) {
+                cache.invalidate(key);
+            }
+        }
+        return models;
+    }
+
+    /**
+     * Drops every result that depends on {@code table}.
+     */
+    public void invalidate(String table) {
+        invalidate(List.of(table));
+    }
+
+    /**
+     * Drops every result that depends on one of {@code tables}, or all results if {@code tables} is empty.
+     */
+    public void invalidate(Collection<String> tables) {
+        Set<String> written = new HashSet<>();
+        tables.forEach(table -> written.add(normalize(table)));
+
+        drop(written);
+        if (fishDatabase.isInTransaction()) {
+            Session.current().ifPresent(session -> session.afterTransaction(() -> drop(written)));
+        }
+    }
+
+    /**
+     * Drops the results that depend on the table written by a native statement, or all results if it is not a plain
+     * {@code INSERT}, {@code UPDATE}, {@code DELETE}, {@code MERGE} or {@code TRUNCATE}.
+     */
+    void invalidateNative(String sql) {
+        Matcher matcher = WRITTEN_TABLE.matcher(sql);
+        invalidate(matcher.find() ? List.of(matcher.group(1)) : List.of());
+    }
+
+    public void invalidateAll() {
+        invalidate(List.of());
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * The estimated memory of all cached results, in bytes.
+     */
+    public long weightedSize() {
+        return cache.weightedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private void drop(Set<String> tables) {
+        writes.incrementAndGet();
+        if (tables.isEmpty()) {
+            resets.incrementAndGet();
+            cache.invalidateAll();
+            return;
+        }
+
+        tables.forEach(table -> versions.computeIfAbsent(table, _ -> new AtomicLong()).incrementAndGet());
+        Set<Key> dropped = new HashSet<>(untrackedKeys);
+        for (String table : tables) {
+            Set<Key> keys = keysByTable.get(table);
+            if (keys != null) {
+                dropped.addAll(keys);
+            }
+        }
+        dropped.forEach(cache::invalidate);
+    }
+
+    private void index(Key key) {
+        if (key.tables().isEmpty()) {
+            untrackedKeys.add(key);
+        }
+        for (String table : key.tables()) {
+            keysByTable.computeIfAbsent(table, _ -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+    }
+
+    private void unindex(Key key) {
+        untrackedKeys.remove(key);
+        for (String table : key.tables()) {
+            Set<Key> keys = keysByTable.get(table);
+            if (keys != null) {
+                keys.remove(key);
+            }
+        }
+    }
+
+    /**
+     * A value that changes with every write a result of {@code tables} depends on, and with every write at all if
+     * the tables are unknown. All counters only grow, so their sum does too.
+     */
+    private long version(Set<String> tables) {
+        if (tables.isEmpty()) {
+            return writes.get();
+        }
+
+        long version = resets.get();
+        for (String table : tables) {
+            AtomicLong tableVersion = versions.get(table);
+            version += tableVersion == null ? 0 : tableVersion.get();
+        }
+        return version;
+    }
+
+    private static String normalize(String table) {
+        String name = table.replace("\"", "").toLowerCase(Locale.ROOT);
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    private static int weigh(Key key, List<Object[]> rows) {
+        long weight = 64 + 2L * key.sql().length() + sizeOf(key.params());
+        for (Object[] row : rows) {
+            weight += sizeOf(row);
+        }
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+
+    /**
+     * A rough estimate of the heap size of {@code value}, in bytes.
+     */
+    private static long sizeOf(Object value) {
+        return switch (value) {
+            case null -> 0;
+            case String string -> 40 + 2L * string.length();
+            case byte[] bytes -> 16 + bytes.length;
+            case Object[] array -> {
+                long size = 16 + 8L * array.length;
+                for (Object element : array) {
+                    size += sizeOf(element);
+                }
+                yield size;
+            }
+            case Collection<?> collection -> {
+                long size = 48 + 16L * collection.size();
+                for (Object element : collection) {
+                    size += sizeOf(element);
+                }
+                yield size;
+            }
+            default -> 24;
+        };
+    }
+
+    private record Key(String sql, Object[] params, Class<?> type, Set<String> tables) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key
+                    && sql.equals(key.sql)
+                    && type == key.type
+                    && Arrays.deepEquals(params, key.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * sql.hashCode() + type.hashCode()) + Arrays.deepHashCode(params);
+        }
+    }
+
+    private record Result(List<Object[]> rows, int weight) {
+    }
+}
@@ -0,0 +1,115 @@
+package de.bybackfish.sql.core;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A unit of work with an identity map: within a session, every row is represented by exactly one model instance per
+ * (model class, primary key). Models mapped from query results are replaced by the instance the session already
+ * holds, and lookups by primary key such as {@link DatabaseModel#findById(Class, Object...)},
+ * {@link DatabaseModel#findExact(DatabaseModel)} and {@link DatabaseModel#linkOne(Class, String)} skip the database
+ * when the model is already loaded.
+ * <p>
+ * {@link FishDatabase#openTransaction} binds a session for the transaction unless one is bound already, and
+ * {@link #call(Callable)} binds one explicitly. The instance loaded first is kept, later rows of the same model
+ * do not refresh it; {@link #evict(DatabaseModel)} it to read it again. Models without primary keys, and models
+ * whose {@link de.bybackfish.sql.annotation.AutoGenerated} key is not assigned yet, are never tracked.
+ */
+public final class Session {
+    static final ScopedValue<Session> CURRENT = ScopedValue.newInstance();
+
+    private final Map<Key, DatabaseModel> models = new ConcurrentHashMap<>();
+    private final Queue<Runnable> afterTransaction = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The session bound to the current scope, if any.
+     */
+    public static Optional<Session> current() {
+        return CURRENT.isBound() ? Optional.of(CURRENT.get()) : Optional.empty();
+    }
+
+    /**
+     * Runs {@code callable} with a new session bound to its scope.
+     */
+    public static <T> T call(Callable<T> callable) throws Exception {
+        return ScopedValue.where(CURRENT, new Session()).call(callable);
+    }
+
+    public static void run(Runnable runnable) {
+        ScopedValue.where(CURRENT, new Session()).run(runnable);
+    }
+
+    /**
+     * @return the instance of the current session representing the same row as {@code model}, {@code model} itself
+     * if there is no session or the row was not loaded before
+     */
+    public static <T extends DatabaseModel> T canonical(T model) {
+        return CURRENT.isBound() ? CURRENT.get().merge(model) : model;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends DatabaseModel> Optional<T> find(Class<T> clazz, Object... primaryKey) {
+        return Optional.ofNullable((T) models.get(new Key(clazz, normalize(Arrays.asList(primaryKey)))));
+    }
+
+    /**
+     * Starts tracking {@code model} unless the session already holds an instance of the same row.
+     *
+     * @return the tracked instance
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends DatabaseModel> T merge(T model) {
+        List<Object> identity = model.identity();
+        if (identity == null) return model;
+
+        return (T) models.computeIfAbsent(new Key(model.getClass(), normalize(identity)), _ -> model);
+    }
+
+    public void evict(DatabaseModel model) {
+        List<Object> identity = model.identity();
+        if (identity != null) {
+            models.remove(new Key(model.getClass(), normalize(identity)), model);
+        }
+    }
+
+    /**
+     * Runs {@code action} once the transaction of this session is committed or rolled back.
+     */
+    void afterTransaction(Runnable action) {
+        afterTransaction.add(action);
+    }
+
+    void completeTransaction() {
+        Runnable action;
+        while ((action = afterTransaction.poll()) != null) {
+            action.run();
+        }
+    }
+
+    public void clear() {
+        models.clear();
+    }
+
+    public int size() {
+        return models.size();
+    }
+
+    /**
+     * Integral keys are compared by value, so looking up an {@code int} key with a {@code long} finds it.
+     */
+    static List<Object> normalize(List<Object> primaryKey) {
+        List<Object> normalized = new ArrayList<>(primaryKey.size());
+        for (Object value : primaryKey) {
+            normalized.add(switch (value) {
+                case Byte _, Short _, Integer _ -> ((Number) value).longValue();
+                case null, default -> value;
+            });
+        }
+        return normalized;
+    }
+
+    private record Key(Class<?> type, List<Object> primaryKey) {
+    }
+}
@@ -0,0 +1,128 @@
+package de.bybackfish.sql.core;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * A bounded LRU cache of the prepared statements of one connection, keyed by SQL text and result set type. A
+ * statement is checked out while a query uses it, so two queries never share one; evicted statements are closed.
+ */
+class StatementCache {
+    private final Connection connection;
+    private final int maxSize;
+    private final LinkedHashMap<Key, PreparedStatement> idle = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<PreparedStatement, Key> checkedOut = new IdentityHashMap<>();
+    private boolean closed;
+
+    StatementCache(Connection connection, int maxSize) {
+        this.connection = connection;
+        this.maxSize = maxSize;
+    }
+
+    PreparedStatement checkout(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        Key key = new Key(sql, resultSetType, resultSetConcurrency);
+
+        PreparedStatement statement;
+        synchronized (this) {
+            statement = idle.remove(key);
+        }
+
+        if (statement != null && !statement.isClosed()) {
+            statement.clearParameters();
+        } else {
+            statement = connection.prepareStatement(sql, resultSetType, resultSetConcurrency);
+        }
+
+        synchronized (this) {
+            checkedOut.put(statement, key);
+        }
+        return statement;
+    }
+
+    /**
+     * Returns a statement to the cache, closing whatever it evicts.
+     *
+     * @return {@code false} if the statement was not checked out of this cache
+     */
+    boolean checkin(PreparedStatement statement) throws SQLException {
+        Key key;
+        synchronized (this) {
+            key = checkedOut.remove(statement);
+        }
+        if (key == null) return false;
+        if (statement.isClosed()) return true;
+
+        // drop the rows and parameters of the last execution while the statement sits in the cache
+        ResultSet resultSet = statement.getResultSet();
+        if (resultSet != null) {
+            resultSet.close();
+        }
+        statement.clearParameters();
+        statement.setFetchSize(0);
+
+        List<PreparedStatement> evicted = new ArrayList<>();
+        synchronized (this) {
+            if (closed) {
+                evicted.add(statement);
+            } else {
+                PreparedStatement replaced = idle.put(key, statement);
+                if (replaced != null) {
+                    evicted.add(replaced);
+                }
+            }
+
+            Iterator<PreparedStatement> eldest = idle.values().iterator();
+            while (idle.size() > maxSize && eldest.hasNext()) {
+                evicted.add(eldest.next());
+                eldest.remove();
+            }
+        }
+
+        closeAll(evicted);
+        return true;
+    }
+
+    /**
+     * Closes every idle statement. Checked out statements are closed when they are checked in.
+     */
+    void close() throws SQLException {
+        List<PreparedStatement> statements;
+        synchronized (this) {
+            closed = true;
+            statements = new ArrayList<>(idle.values());
+            idle.clear();
+        }
+        closeAll(statements);
+    }
+
+    synchronized int size() {
+        return idle.size();
+    }
+
+    boolean isStale() {
+        try {
+            return connection.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    private static void closeAll(List<PreparedStatement> statements) throws SQLException {
+        SQLException failure = null;
+        for (PreparedStatement statement : statements) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                if (failure == null) failure = e;
+                else failure.addSuppressed(e);
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    private record Key(String sql, int resultSetType, int resultSetConcurrency) {
+    }
+}
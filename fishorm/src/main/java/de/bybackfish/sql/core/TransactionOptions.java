@@ -0,0 +1,27 @@
+package de.bybackfish.sql.core;
+
+import java.sql.Connection;
+
+/**
+ * Settings applied to the connection of a transaction opened through
+ * {@link FishDatabase#openTransaction(TransactionOptions, java.util.concurrent.Callable, java.util.function.Consumer)}.
+ *
+ * @param readOnly       whether the transaction is started read-only
+ * @param isolationLevel one of the {@link Connection} {@code TRANSACTION_*} constants, or {@link #DEFAULT_ISOLATION}
+ *                       to keep the connection's level
+ */
+public record TransactionOptions(boolean readOnly, int isolationLevel) {
+    public static final int DEFAULT_ISOLATION = -1;
+
+    public static TransactionOptions defaults() {
+        return new TransactionOptions(false, DEFAULT_ISOLATION);
+    }
+
+    public TransactionOptions withReadOnly(boolean readOnly) {
+        return new TransactionOptions(readOnly, isolationLevel);
+    }
+
+    public TransactionOptions withIsolationLevel(int isolationLevel) {
+        return new TransactionOptions(readOnly, isolationLevel);
+    }
+}
@@ -0,0 +1,393 @@
+package de.bybackfish.sql.query;
+
+import de.bybackfish.sql.core.DatabaseModel;
+import de.bybackfish.sql.core.DatabaseProvider;
+import de.bybackfish.sql.core.FishDatabase;
+import de.bybackfish.sql.core.FishSQLException;
+import de.bybackfish.sql.util.JointClasses;
+import de.bybackfish.sql.util.ObjectMapper;
+import de.bybackfish.sql.util.SqlTypes;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+public class AbstractQueryBuilder {
+    protected static final int ORDER_BY_PRIORITY = Integer.MIN_VALUE + 1;
+
+    protected List<QueryFragment> nodes;
+    protected List<WhereQueryBuilder> whereClauses = new ArrayList<>();
+    protected Integer limit;
+    protected final Set<String> tables = new LinkedHashSet<>();
+
+    public AbstractQueryBuilder() {
+        nodes = new ArrayList<>();
+    }
+
+    protected AbstractQueryBuilder sql(String condition, int priority, Object... params) {
+        nodes.add(new QueryNode(condition, priority, params));
+        return this;
+    }
+
+    /**
+     * Adds a where clause. Several clauses are combined with {@code AND}.
+     */
+    public AbstractQueryBuilder where(WhereQueryBuilder whereQueryBuilder) {
+        whereClauses.add(whereQueryBuilder);
+        return this;
+    }
+
+    public AbstractQueryBuilder where(Function<WhereQueryBuilder, WhereQueryBuilder> whereQueryBuilderFunction) {
+        return where(whereQueryBuilderFunction.apply(new WhereQueryBuilder()));
+    }
+
+    public AbstractQueryBuilder orderBy(String column, OrderDirection direction) {
+        nodes.add(new QueryNode(STR."ORDER BY \{column} \{direction.name()}", ORDER_BY_PRIORITY));
+        return this;
+    }
+
+    public AbstractQueryBuilder orderBy(String column) {
+        return orderBy(column, OrderDirection.ASC);
+    }
+
+    /**
+     * Sets the row limit, replacing any previous one.
+     */
+    public AbstractQueryBuilder limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * The tables the query reads or writes, as far as the builder knows them. Tables referenced only in raw SQL, e.g.
+     * in a subquery, are not included; an empty set means they are unknown.
+     */
+    public Set<String> tables() {
+        return Collections.unmodifiableSet(tables);
+    }
+
+    /**
+     * The nodes rendered by {@link #build(FishDatabase)}. Subclasses add the nodes that depend on their final state,
+     * so building never changes the builder and it can be built any number of times.
+     */
+    protected List<QueryFragment> collectNodes() {
+        List<QueryFragment> collected = new ArrayList<>(nodes);
+        if (!whereClauses.isEmpty()) {
+            collected.add(new WhereNode(whereClauses));
+        }
+        if (limit != null) {
+            collected.add(new QueryNode("LIMIT ?", Integer.MIN_VALUE, limit));
+        }
+        return collected;
+    }
+
+    /**
+     * Renders the SQL and its parameters without preparing a statement. Every node appends to the same buffer and
+     * parameter list.
+     */
+    public RenderedQuery render() {
+        List<QueryFragment> sorted = new ArrayList<>(collectNodes());
+        sorted.sort(Comparator.comparingInt(QueryFragment::priority).reversed());
+
+        StringBuilder sql = new StringBuilder(128);
+        List<Object> params = new ArrayList<>();
+        for (QueryFragment fragment : sorted) {
+            int mark = sql.length();
+            if (mark > 0) sql.append(' ');
+
+            int start = sql.length();
+            fragment.renderTo(sql, params);
+            if (sql.length() == start) {
+                sql.setLength(mark);
+            }
+        }
+        return new RenderedQuery(sql.toString(), params.toArray());
+    }
+
+    /**
+     * Renders the query once into a template that can be executed many times, see {@link CompiledQuery}.
+     */
+    public CompiledQuery<DatabaseModel> compile() {
+        return new CompiledQuery<>(render(), null, tables());
+    }
+
+    public BuiltQuery build(FishDatabase fishDatabase) throws FishSQLException {
+        RenderedQuery rendered = render();
+        CompiledQuery.requireBound(rendered.params());
+
+        try {
+            return new BuiltQuery(fishDatabase.prepareStatement(rendered.sql(), rendered.params()), fishDatabase, isPartial());
+        } catch (SQLException e) {
+            throw new FishSQLException(e);
+        }
+    }
+
+    /**
+     * Whether the query selects only some columns of the model it is mapped to.
+     */
+    boolean isPartial() {
+        return false;
+    }
+
+    public enum OrderDirection {
+        ASC,
+        DESC
+    }
+
+    /**
+     * A part of a query. Fragments are rendered in descending priority, separated by a space.
+     */
+    public interface QueryFragment {
+        int priority();
+
+        void renderTo(StringBuilder sql, List<Object> params);
+    }
+
+    public record QueryNode(
+            String sql,
+            int priority,
+            Object... params
+    ) implements QueryFragment {
+        @Override
+        public void renderTo(StringBuilder sql, List<Object> params) {
+            sql.append(this.sql);
+            Collections.addAll(params, this.params);
+        }
+    }
+
+    private record WhereNode(List<WhereQueryBuilder> clauses) implements QueryFragment {
+        @Override
+        public int priority() {
+            return 1;
+        }
+
+        @Override
+        public void renderTo(StringBuilder sql, List<Object> params) {
+            List<WhereQueryBuilder> nonEmpty = clauses.stream().filter(clause -> !clause.isEmpty()).toList();
+            if (nonEmpty.isEmpty()) return;
+
+            boolean parenthesize = nonEmpty.size() > 1;
+            sql.append("WHERE ");
+            for (int i = 0; i < nonEmpty.size(); i++) {
+                if (i > 0) sql.append(" AND ");
+                if (parenthesize) sql.append('(');
+                nonEmpty.get(i).renderTo(sql, params);
+                if (parenthesize) sql.append(')');
+            }
+        }
+    }
+
+    public record RenderedQuery(
+            String sql,
+            Object... params
+    ) {
+        /**
+         * @return the SQL with every parameter inlined as a literal, see {@link SqlTypes#literal(Object)}
+         */
+        public String inlined() {
+            return SqlTypes.inlineParameters(sql, params);
+        }
+    }
+
+    /**
+     * A prepared statement together with the connection it leased. Every terminal operation except
+     * {@link #execute()} closes the query; when using {@link #execute()}, close the query once the result set is read.
+     * Only a {@code partial} query may leave columns of the mapped model out of its result, see {@link de.bybackfish.sql.util.ColumnPlan}.
+     */
+    public record BuiltQuery(PreparedStatement statement, FishDatabase fishDatabase, boolean partial) implements AutoCloseable {
+        public BuiltQuery(PreparedStatement statement) {
+            this(statement, DatabaseProvider.getDatabase());
+        }
+
+        public BuiltQuery(PreparedStatement statement, FishDatabase fishDatabase) {
+            this(statement, fishDatabase, false);
+        }
+
+        public ResultSet execute() throws FishSQLException {
+            try {
+                return statement.executeQuery();
+            } catch (SQLException e) {
+                throw new FishSQLException(e);
+            }
+        }
+
+        public void executeUpdate() throws FishSQLException {
+            try {
+                statement.executeUpdate();
+            } catch (SQLException e) {
+                throw new FishSQLException(e);
+            } finally {
+                close();
+            }
+        }
+
+        public <T extends DatabaseModel> List<T> unwrap(Class<T> clazz) throws FishSQLException {
+            try {
+                ObjectMapper mapper = mapper(clazz);
+                return mapper.map(execute());
+            } finally {
+                close();
+            }
+        }
+
+        /**
+         * Maps the result of a query with fetched relations, see {@link SelectQueryBuilder#fetch(String...)}.
+         */
+        public <T extends DatabaseModel> List<T> unwrap(Class<T> clazz, FetchMode mode, List<String> fetches) throws FishSQLException {
+            if (fetches.isEmpty()) {
+                return unwrap(clazz);
+            }
+            try {
+                ObjectMapper mapper = mapper(clazz);
+                return mode == FetchMode.JSON ? mapper.mapGraph(execute(), fetches) : mapper.mapFetched(execute(), fetches);
+            } finally {
+                close();
+            }
+        }
+
+        private ObjectMapper mapper(Class<? extends DatabaseModel> clazz) {
+            return new ObjectMapper(clazz, ObjectMapper.getDefaultBackend(), partial);
+        }
+
+        /**
+         * Hands the statement back to the database's statement cache and releases its connection.
+         */
+        @Override
+        public void close() throws FishSQLException {
+            if (fishDatabase != null) {
+                fishDatabase.releaseStatement(statement);
+                return;
+            }
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                throw new FishSQLException(e);
+            }
+        }
+
+        public <T extends DatabaseModel> Stream<T> stream(Class<T> clazz) throws FishSQLException {
+            return stream(clazz, fishDatabase != null ? fishDatabase.getFetchSize() : FishDatabase.DEFAULT_FETCH_SIZE);
+        }
+
+        /**
+         * Lazily maps the result row by row, fetching {@code fetchSize} rows per round trip instead of loading the whole
+         * result. The stream must be closed, which closes the statement and its result set.
+         * <p>
+         * PostgreSQL only honours the fetch size outside of autocommit, so autocommit is turned off on the statement's
+         * connection while the stream is open and restored on close.
+         */
+        public <T extends DatabaseModel> Stream<T> stream(Class<T> clazz, int fetchSize) throws FishSQLException {
+            boolean restoreAutoCommit = false;
+            try {
+                Connection connection = statement.getConnection();
+                if (fetchSize > 0 && connection.getAutoCommit()) {
+                    connection.setAutoCommit(false);
+                    restoreAutoCommit = true;
+                }
+                statement.setFetchSize(fetchSize);
+
+                final boolean restore = restoreAutoCommit;
+                return mapper(clazz).<T>stream(execute()).onClose(() -> {
+                    try {
+                        closeStreamed(restore);
+                    } catch (SQLException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+            } catch (SQLException e) {
+                try {
+                    closeStreamed(restoreAutoCommit);
+                } catch (SQLException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw new FishSQLException(e);
+            }
+        }
+
+        private void closeStreamed(boolean restoreAutoCommit) throws SQLException {
+            try {
+                if (restoreAutoCommit) {
+                    Connection connection = statement.getConnection();
+                    connection.commit();
+                    connection.setAutoCommit(true);
+                }
+            } finally {
+                close();
+            }
+        }
+
+        /**
+         * Decodes one instance of every given model from each row, in a single forward-only pass.
+         *
+         * @see SelectQueryBuilder#join(Class, Class)
+         */
+        @SafeVarargs
+        public final List<JointClasses.JointRow> unwrapJoint(Class<? extends DatabaseModel>... classes) throws FishSQLException {
+            try {
+                return ObjectMapper.mapJoint(execute(), List.of(classes));
+            } finally {
+                close();
+            }
+        }
+
+        public <T extends DatabaseModel, U extends DatabaseModel> List<JointClasses.JointPair<T, U>> unwrap(Class<T> clazz1, Class<U> clazz2) throws FishSQLException {
+            return unwrapJoint(clazz1, clazz2).stream()
+                    .map(row -> new JointClasses.JointPair<>(row.get(0, clazz1), row.get(1, clazz2)))
+                    .toList();
+        }
+
+        public <T extends DatabaseModel, U extends DatabaseModel, V extends DatabaseModel> List<JointClasses.JointTriple<T, U, V>> unwrap(Class<T> clazz1, Class<U> clazz2, Class<V> clazz3) throws FishSQLException {
+            return unwrapJoint(clazz1, clazz2, clazz3).stream()
+                    .map(row -> new JointClasses.JointTriple<>(row.get(0, clazz1), row.get(1, clazz2), row.get(2, clazz3)))
+                    .toList();
+        }
+
+        public <T extends DatabaseModel, U extends DatabaseModel, V extends DatabaseModel, W extends DatabaseModel> List<JointClasses.JointQuad<T, U, V, W>> unwrap(Class<T> clazz1, Class<U> clazz2, Class<V> clazz3, Class<W> clazz4) throws FishSQLException {
+            return unwrapJoint(clazz1, clazz2, clazz3, clazz4).stream()
+                    .map(row -> new JointClasses.JointQuad<>(row.get(0, clazz1), row.get(1, clazz2), row.get(2, clazz3), row.get(3, clazz4)))
+                    .toList();
+        }
+
+        public <T extends DatabaseModel, U extends DatabaseModel, V extends DatabaseModel, W extends DatabaseModel, X extends DatabaseModel> List<JointClasses.JointQuint<T, U, V, W, X>> unwrap(Class<T> clazz1, Class<U> clazz2, Class<V> clazz3, Class<W> clazz4, Class<X> clazz5) throws FishSQLException {
+            return unwrapJoint(clazz1, clazz2, clazz3, clazz4, clazz5).stream()
+                    .map(row -> new JointClasses.JointQuint<>(row.get(0, clazz1), row.get(1, clazz2), row.get(2, clazz3), row.get(3, clazz4), row.get(4, clazz5)))
+                    .toList();
+        }
+
+        public <T extends DatabaseModel, U extends DatabaseModel, V extends DatabaseModel, W extends DatabaseModel, X extends DatabaseModel, Y extends DatabaseModel> List<JointClasses.JointSext<T,
+                U, V, W, X, Y>> unwrap(Class<T> clazz1, Class<U> clazz2, Class<V> clazz3, Class<W> clazz4, Class<X> clazz5, Class<Y> clazz6) throws FishSQLException {
+            return unwrapJoint(clazz1, clazz2, clazz3, clazz4, clazz5, clazz6).stream()
+                    .map(row -> new JointClasses.JointSext<>(row.get(0, clazz1), row.get(1, clazz2), row.get(2, clazz3), row.get(3, clazz4), row.get(4, clazz5), row.get(5, clazz6)))
+                    .toList();
+        }
+
+        public <T extends DatabaseModel, U extends DatabaseModel, V extends DatabaseModel, W extends DatabaseModel, X extends DatabaseModel, Y extends DatabaseModel, Z extends DatabaseModel> List<JointClasses.JointSept<T, U, V, W, X, Y, Z>> unwrap(Class<T> clazz1, Class<U> clazz2, Class<V> clazz3, Class<W> clazz4, Class<X> clazz5, Class<Y> clazz6, Class<Z> clazz7) throws FishSQLException {
+            return unwrapJoint(clazz1, clazz2, clazz3, clazz4, clazz5, clazz6, clazz7).stream()
+                    .map(row -> new JointClasses.JointSept<>(row.get(0, clazz1), row.get(1, clazz2), row.get(2, clazz3), row.get(3, clazz4), row.get(4, clazz5), row.get(5, clazz6), row.get(6, clazz7)))
+                    .toList();
+        }
+
+        public <T extends DatabaseModel, U extends DatabaseModel, V extends DatabaseModel, W extends DatabaseModel, X extends DatabaseModel, Y extends DatabaseModel, Z extends DatabaseModel, A extends DatabaseModel> List<JointClasses.JointOct<T,
+                U, V, W, X, Y, Z, A>> unwrap(Class<T> clazz1, Class<U> clazz2, Class<V> clazz3, Class<W> clazz4, Class<X> clazz5, Class<Y> clazz6, Class<Z> clazz7, Class<A> clazz8) throws FishSQLException {
+            return unwrapJoint(clazz1, clazz2, clazz3, clazz4, clazz5, clazz6, clazz7, clazz8).stream()
+                    .map(row -> new JointClasses.JointOct<>(row.get(0, clazz1), row.get(1, clazz2), row.get(2, clazz3), row.get(3, clazz4), row.get(4, clazz5), row.get(5, clazz6), row.get(6, clazz7), row.get(7, clazz8)))
+                    .toList();
+        }
+
+        public <T extends DatabaseModel, U extends DatabaseModel, V extends DatabaseModel, W extends DatabaseModel, X extends DatabaseModel, Y extends DatabaseModel, Z extends DatabaseModel, A extends DatabaseModel, B extends DatabaseModel> List<JointClasses.JointNon<T,
+                U, V, W, X, Y, Z, A, B>> unwrap(Class<T> clazz1, Class<U> clazz2, Class<V> clazz3, Class<W> clazz4, Class<X> clazz5, Class<Y> clazz6, Class<Z> clazz7, Class<A> clazz8, Class<B> clazz9) throws FishSQLException {
+            return unwrapJoint(clazz1, clazz2, clazz3, clazz4, clazz5, clazz6, clazz7, clazz8, clazz9).stream()
+                    .map(row -> new JointClasses.JointNon<>(row.get(0, clazz1), row.get(1, clazz2), row.get(2, clazz3), row.get(3, clazz4), row.get(4, clazz5), row.get(5, clazz6), row.get(6, clazz7), row.get(7, clazz8), row.get(8, clazz9)))
+                    .toList();
+        }
+    }
+}
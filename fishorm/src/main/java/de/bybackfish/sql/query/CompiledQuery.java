@@ -0,0 +1,182 @@
+package de.bybackfish.sql.query;
+
+import de.bybackfish.sql.core.DatabaseModel;
+import de.bybackfish.sql.core.DatabaseProvider;
+import de.bybackfish.sql.core.FishDatabase;
+import de.bybackfish.sql.core.FishSQLException;
+
+import java.sql.SQLException;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * A query rendered once and executed many times with new bind values. Values that change between executions are
+ * declared with {@link QueryBuilder#param(String)} in place of a regular parameter:
+ * <pre>{@code
+ * static final CompiledQuery<Employee> BY_NAME = QueryBuilder.select("*")
+ *         .where(where -> where.and("name = ?", QueryBuilder.param("name")))
+ *         .compile(Employee.class);
+ *
+ * List<Employee> employees = BY_NAME.list(Map.of("name", "Fish"));
+ * }</pre>
+ * Compiled queries are immutable and safe to share between threads. Every execution uses the same SQL text, so it
+ * reuses the connection's cached prepared statement.
+ */
+public final class CompiledQuery<T extends DatabaseModel> {
+    private final String sql;
+    private final Object[] params;
+    private final Class<T> type;
+    private final List<String> parameterNames;
+    private final FetchMode fetchMode;
+    private final List<String> fetches;
+    private final boolean partial;
+    private final Set<String> tables;
+
+    CompiledQuery(AbstractQueryBuilder.RenderedQuery rendered, Class<T> type, Set<String> tables) {
+        this(rendered, type, tables, FetchMode.JOIN, List.of(), false);
+    }
+
+    CompiledQuery(AbstractQueryBuilder.RenderedQuery rendered, Class<T> type, Set<String> tables, FetchMode fetchMode,
+                  List<String> fetches, boolean partial) {
+        this.sql = rendered.sql();
+        this.params = rendered.params().clone();
+        this.type = type;
+        this.tables = Set.copyOf(tables);
+        this.fetchMode = fetchMode;
+        this.fetches = fetches;
+        this.partial = partial;
+
+        Set<String> names = new LinkedHashSet<>();
+        for (Object param : params) {
+            if (param instanceof Parameter parameter) {
+                names.add(parameter.name());
+            }
+        }
+        this.parameterNames = List.copyOf(names);
+    }
+
+    static void requireBound(Object[] params) throws FishSQLException {
+        for (Object param : params) {
+            if (param instanceof Parameter parameter) {
+                throw new FishSQLException(STR."Parameter \{parameter.name()} is not bound, compile the query to bind it");
+            }
+        }
+    }
+
+    public String sql() {
+        return sql;
+    }
+
+    /**
+     * The tables of the builder the query was compiled from, see {@link AbstractQueryBuilder#tables()}.
+     */
+    public Set<String> tables() {
+        return tables;
+    }
+
+    /**
+     * The names of the {@link QueryBuilder#param(String)} slots, in the order positional values are bound to them.
+     */
+    public List<String> parameterNames() {
+        return parameterNames;
+    }
+
+    public List<T> list(Map<String, ?> values) throws FishSQLException {
+        return build(bind(values)).unwrap(requireType(), fetchMode, fetches);
+    }
+
+    /**
+     * @param values the slot values, in the order of {@link #parameterNames()}
+     */
+    public List<T> list(Object... values) throws FishSQLException {
+        return list(byName(values));
+    }
+
+    public Optional<T> one(Map<String, ?> values) throws FishSQLException {
+        List<T> models = list(values);
+        return models.isEmpty() ? Optional.empty() : Optional.of(models.getFirst());
+    }
+
+    public Optional<T> one(Object... values) throws FishSQLException {
+        return one(byName(values));
+    }
+
+    /**
+     * Streams the matching rows, see {@link AbstractQueryBuilder.BuiltQuery#stream(Class)}. The stream must be closed.
+     * Queries that fetch relations are read completely before the first model is returned.
+     */
+    public Stream<T> stream(Map<String, ?> values) throws FishSQLException {
+        if (!fetches.isEmpty()) {
+            return list(values).stream();
+        }
+        return build(bind(values)).stream(requireType());
+    }
+
+    public Stream<T> stream(Object... values) throws FishSQLException {
+        return stream(byName(values));
+    }
+
+    /**
+     * Executes the statement and drops the cached query results of the tables it was built from, like
+     * {@link FishDatabase#executeUpdate(AbstractQueryBuilder)}.
+     */
+    public void executeUpdate(Map<String, ?> values) throws FishSQLException {
+        build(bind(values)).executeUpdate();
+        DatabaseProvider.getDatabase().getQueryCache().invalidate(tables);
+    }
+
+    public void executeUpdate(Object... values) throws FishSQLException {
+        executeUpdate(byName(values));
+    }
+
+    private Object[] bind(Map<String, ?> values) throws FishSQLException {
+        if (parameterNames.isEmpty()) {
+            return params;
+        }
+
+        Object[] bound = params.clone();
+        for (int i = 0; i < bound.length; i++) {
+            if (bound[i] instanceof Parameter parameter) {
+                if (!values.containsKey(parameter.name())) {
+                    throw new FishSQLException(STR."No value for parameter \{parameter.name()}");
+                }
+                bound[i] = values.get(parameter.name());
+            }
+        }
+        return bound;
+    }
+
+    private Map<String, Object> byName(Object[] values) throws FishSQLException {
+        if (values.length != parameterNames.size()) {
+            throw new FishSQLException(STR."Expected \{parameterNames.size()} values for \{parameterNames}, got \{values.length}");
+        }
+
+        Map<String, Object> byName = new HashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            byName.put(parameterNames.get(i), values[i]);
+        }
+        return byName;
+    }
+
+    private AbstractQueryBuilder.BuiltQuery build(Object[] bound) throws FishSQLException {
+        FishDatabase fishDatabase = DatabaseProvider.getDatabase();
+        try {
+            return new AbstractQueryBuilder.BuiltQuery(fishDatabase.prepareStatement(sql, bound), fishDatabase, partial);
+        } catch (SQLException e) {
+            throw new FishSQLException(e);
+        }
+    }
+
+    private Class<T> requireType() {
+        if (type == null) {
+            throw new IllegalStateException(STR."Query does not map to a model: \{sql}");
+        }
+        return type;
+    }
+
+    /**
+     * A named placeholder for a value bound when a {@link CompiledQuery} is executed.
+     */
+    public record Parameter(String name) {
+    }
+}
@@ -4,5 +4,6 @@ public class DeleteQueryBuilder extends AbstractQueryBuilder {
     public DeleteQueryBuilder(String tableName) {
         super();
         sql(STR."DELETE FROM \{tableName}", Integer.MAX_VALUE);
+        tables.add(tableName);
     }
 }
@@ -0,0 +1,19 @@
+package de.bybackfish.sql.query;
+
+/**
+ * How {@link SelectQueryBuilder#fetch(FetchMode, String...)} loads relations together with their model.
+ */
+public enum FetchMode {
+    /**
+     * One {@code LEFT JOIN} per relation, decoded from the joined rows. Only direct relations of the selected model
+     * can be fetched.
+     */
+    JOIN,
+    /**
+     * One correlated {@code jsonb_agg} subquery per relation, nested for every level of a dotted path such as
+     * {@code departments.employees}. The whole graph is loaded in one round trip and decoded from the JSON documents.
+     * Requires PostgreSQL. Every column of the fetched models must be decodable from its JSON form, see
+     * {@link de.bybackfish.sql.codec.TypeCodec#decodesJson()}.
+     */
+    JSON
+}
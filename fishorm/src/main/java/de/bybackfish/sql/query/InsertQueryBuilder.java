@@ -1,17 +1,16 @@
 package de.bybackfish.sql.query;
 
-import de.bybackfish.sql.core.FishDatabase;
-import de.bybackfish.sql.core.FishSQLException;
-
+import java.util.List;
 import java.util.Map;
 
 public class InsertQueryBuilder extends AbstractQueryBuilder {
 
-    Map<String, Object> values = new java.util.HashMap<>();
+    Map<String, Object> values = new java.util.LinkedHashMap<>();
 
     public InsertQueryBuilder(String tableName) {
         super();
         sql(STR."INSERT INTO \{tableName}", Integer.MAX_VALUE);
+        tables.add(tableName);
     }
 
     public InsertQueryBuilder add(String columnName, Object value) {
@@ -20,16 +19,15 @@ public class InsertQueryBuilder extends AbstractQueryBuilder {
     }
 
     @Override
-    public BuiltQuery build(FishDatabase fishDatabase) throws FishSQLException {
+    protected List<QueryFragment> collectNodes() {
+        List<QueryFragment> collected = super.collectNodes();
 
-        // add the nodes
         // first the names of the columns
-        sql(STR."(\{values.keySet().stream().map(key -> STR."\{key}").collect(java.util.stream.Collectors.joining(","))})", Integer.MAX_VALUE - 1);
-
+        collected.add(new QueryNode(STR."(\{values.keySet().stream().map(key -> STR."\{key}").collect(java.util.stream.Collectors.joining(","))})", Integer.MAX_VALUE - 1));
 
         // then the values
-        sql(STR."VALUES (\{values.values().stream().map(_ -> "?").collect(java.util.stream.Collectors.joining(","))})", Integer.MAX_VALUE - 1, values.values().toArray());
-        return super.build(fishDatabase);
+        collected.add(new QueryNode(STR."VALUES (\{values.values().stream().map(_ -> "?").collect(java.util.stream.Collectors.joining(","))})", Integer.MAX_VALUE - 1, values.values().toArray()));
+        return collected;
     }
 
     public InsertQueryBuilder returning(String returningFields) {
@@ -0,0 +1,38 @@
+package de.bybackfish.sql.query;
+
+import de.bybackfish.sql.core.DatabaseModel;
+
+public class QueryBuilder {
+
+    public static SelectQueryBuilder select(String condition) {
+        return new SelectQueryBuilder(condition);
+    }
+
+    /**
+     * Selects the columns of {@code model}, or only the given fields and its primary keys for a partial select.
+     */
+    public static SelectQueryBuilder select(Class<? extends DatabaseModel> model, String... fields) {
+        return new SelectQueryBuilder(model, fields);
+    }
+
+    public static InsertQueryBuilder insert(String tableName) {
+        return new InsertQueryBuilder(tableName);
+    }
+
+    public static DeleteQueryBuilder delete(String tableName) {
+        return new DeleteQueryBuilder(tableName);
+    }
+
+    public static UpdateQueryBuilder update(String tableName) {
+        return new UpdateQueryBuilder(tableName);
+    }
+
+    /**
+     * A named slot for a value bound on each execution of a {@link CompiledQuery}.
+     */
+    public static CompiledQuery.Parameter param(String name) {
+        return new CompiledQuery.Parameter(name);
+    }
+
+
+}
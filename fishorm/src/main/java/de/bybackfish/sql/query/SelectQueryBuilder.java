@@ -0,0 +1,320 @@
+package de.bybackfish.sql.query;
+
+import de.bybackfish.sql.core.DatabaseModel;
+import de.bybackfish.sql.util.EntityMetadata;
+import de.bybackfish.sql.util.FetchGraph;
+import de.bybackfish.sql.util.FetchedRelation;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class SelectQueryBuilder extends AbstractQueryBuilder {
+
+    /**
+     * Separates the table from the column in the aliases of a joined projection, e.g. {@code employee__id}.
+     */
+    public static final String ALIAS_SEPARATOR = "__";
+
+    String thisTableName;
+    final String columns;
+    final Set<Class<? extends DatabaseModel>> joinedModels = new LinkedHashSet<>();
+    Class<? extends DatabaseModel> model;
+    List<EntityMetadata.ColumnMetadata> selectedColumns;
+    final Set<String> fetches = new LinkedHashSet<>();
+    FetchMode fetchMode = FetchMode.JOIN;
+    Duration cacheTtl;
+
+    public SelectQueryBuilder(String columns) {
+        super();
+
+        this.columns = columns;
+    }
+
+    /**
+     * Selects only the given fields of {@code model}, plus its primary keys. The other fields of the mapped models
+     * are left at their {@link de.bybackfish.sql.annotation.Default} values.
+     *
+     * @param fields field or column names, all columns if empty
+     */
+    public SelectQueryBuilder(Class<? extends DatabaseModel> model, String... fields) {
+        this("*");
+        from(model);
+
+        if (fields.length > 0) {
+            EntityMetadata<?> metadata = EntityMetadata.of(model);
+            Set<EntityMetadata.ColumnMetadata> selected = new LinkedHashSet<>(metadata.primaryKeys());
+            for (String field : fields) {
+                selected.add(metadata.column(field).or(() -> metadata.columns().stream()
+                        .filter(column -> column.name().equalsIgnoreCase(field))
+                        .findFirst()).orElseThrow(() -> new IllegalArgumentException(STR."\{model.getName()} has no field \{field}")));
+            }
+            this.selectedColumns = List.copyOf(selected);
+        }
+    }
+
+    /**
+     * Sets the table to select from, replacing any previous one.
+     */
+    public SelectQueryBuilder from(String tableName) {
+        this.thisTableName = tableName;
+        return this;
+    }
+
+    /**
+     * Selects from the table of {@code model}. A {@code *} projection is expanded to the model's columns, so
+     * columns the model does not map are never transferred.
+     */
+    public SelectQueryBuilder from(Class<? extends DatabaseModel> model) {
+        if (this.model != model) {
+            this.model = model;
+            this.selectedColumns = null;
+        }
+        return from(EntityMetadata.of(model).tableName());
+    }
+
+    @Override
+    public SelectQueryBuilder where(WhereQueryBuilder whereQueryBuilder) {
+        super.where(whereQueryBuilder);
+        return this;
+    }
+
+    @Override
+    public SelectQueryBuilder where(Function<WhereQueryBuilder, WhereQueryBuilder> whereQueryBuilderFunction) {
+        super.where(whereQueryBuilderFunction);
+        return this;
+    }
+
+    @Override
+    public SelectQueryBuilder orderBy(String column, OrderDirection direction) {
+        super.orderBy(column, direction);
+        return this;
+    }
+
+    @Override
+    public SelectQueryBuilder orderBy(String column) {
+        super.orderBy(column);
+        return this;
+    }
+
+    @Override
+    public SelectQueryBuilder limit(int limit) {
+        super.limit(limit);
+        return this;
+    }
+
+    public SelectQueryBuilder join(String tableName, String thisField, String thatField) {
+        return join(thisTableName, tableName, thisField, thatField);
+    }
+
+    private SelectQueryBuilder join(String thisTable, String tableName, String thisField, String thatField) {
+        sql(STR."JOIN \{tableName} ON \{thisTable}.\{thisField} = \{tableName}.\{thatField}", Integer.MAX_VALUE - 5);
+        tables.add(tableName);
+        return this;
+    }
+
+    /**
+     * Joins {@code otherTable} through the {@link de.bybackfish.sql.annotation.ForeignKey} of {@code thisTable}.
+     * <p>
+     * When selecting {@code *}, the columns of every joined model are projected as {@code table__column}, so
+     * same-named columns like {@code id} do not collide and all models can be decoded from the same row.
+     */
+    public <T extends DatabaseModel, U extends DatabaseModel> SelectQueryBuilder join(Class<T> thisTable, Class<U> otherTable) {
+        EntityMetadata<T> thisMetadata = EntityMetadata.of(thisTable);
+        String thatTableName = EntityMetadata.of(otherTable).tableName();
+
+        EntityMetadata.ColumnMetadata foreignKeyColumn = thisMetadata.foreignKeys()
+                .stream().filter(column -> column.foreignKey().targetTable().equals(thatTableName)).findFirst().orElseThrow(
+                        () -> new RuntimeException(STR."No foreign key found for \{thatTableName}")
+                );
+
+        String thisFieldName = foreignKeyColumn.name();
+        String thatFieldName = foreignKeyColumn.foreignKey().targetColumn();
+
+        joinedModels.add(thisTable);
+        joinedModels.add(otherTable);
+
+        return join(thisMetadata.tableName(), thatTableName, thisFieldName, thatFieldName);
+    }
+
+    /**
+     * Loads the given {@link de.bybackfish.sql.annotation.LazyLoaded} fields of the selected model in the same query,
+     * with a {@code LEFT JOIN} on their {@link de.bybackfish.sql.annotation.ForeignKey} or link table. The mapped models are returned
+     * with these relations already loaded, see {@link de.bybackfish.sql.core.DatabaseModel#findMany(Class, SelectQueryBuilder, String...)}.
+     * <p>
+     * The where clauses, order and limit apply to the selected model only, so a limit counts models rather than
+     * joined rows. Qualify the ORDER BY columns with the model's table when a fetched table has columns of the same
+     * name.
+     */
+    public SelectQueryBuilder fetch(String... fields) {
+        Collections.addAll(fetches, fields);
+        return this;
+    }
+
+    /**
+     * Like {@link #fetch(String...)}, loading the relations as described by {@code mode}. With
+     * {@link FetchMode#JSON}, nested relations are fetched with dotted paths, e.g. {@code departments.employees}.
+     * The mode applies to every fetched relation of this query.
+     */
+    public SelectQueryBuilder fetch(FetchMode mode, String... paths) {
+        this.fetchMode = mode;
+        return fetch(paths);
+    }
+
+    /**
+     * Caches the mapped result for up to {@code ttl}, keyed by the rendered SQL and parameters, see
+     * {@link de.bybackfish.sql.core.QueryCache}. The result is dropped earlier by writes to the selected and joined
+     * tables, and to {@code tables}, which lists the tables the query only references in raw SQL.
+     */
+    public SelectQueryBuilder cached(Duration ttl, String... tables) {
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException(STR."Cache duration must be positive: \{ttl}");
+        }
+        this.cacheTtl = ttl;
+        Collections.addAll(this.tables, tables);
+        return this;
+    }
+
+    /**
+     * @return how long the result is cached, empty if it is not
+     */
+    public Optional<Duration> cacheTtl() {
+        return Optional.ofNullable(cacheTtl);
+    }
+
+    /**
+     * The selected table, and the tables joined or named in {@link #cached(Duration, String...)}.
+     */
+    @Override
+    public Set<String> tables() {
+        Set<String> tables = new LinkedHashSet<>();
+        if (thisTableName != null) {
+            tables.add(thisTableName);
+        }
+        tables.addAll(this.tables);
+        return Collections.unmodifiableSet(tables);
+    }
+
+    public List<String> fetches() {
+        return List.copyOf(fetches);
+    }
+
+    public FetchMode fetchMode() {
+        return fetchMode;
+    }
+
+    @Override
+    protected List<QueryFragment> collectNodes() {
+        if (!fetches.isEmpty()) {
+            return collectFetchNodes();
+        }
+
+        List<QueryFragment> collected = super.collectNodes();
+        collected.add(new QueryNode(STR."SELECT \{projection()}", Integer.MAX_VALUE));
+        if (thisTableName != null) {
+            collected.add(new QueryNode(STR."FROM \{thisTableName}", Integer.MAX_VALUE - 1));
+        }
+        return collected;
+    }
+
+    /**
+     * Selects the model in a subquery, so its where clauses, order and limit are unaffected by the joined rows, and
+     * joins every fetched relation onto it.
+     */
+    private List<QueryFragment> collectFetchNodes() {
+        if (model == null) {
+            throw new IllegalStateException("Fetching relations requires selecting from a model class");
+        }
+        if (!columns.equals("*") || !joinedModels.isEmpty()) {
+            throw new IllegalStateException("Fetching relations cannot be combined with custom columns or joined models");
+        }
+
+        EntityMetadata<?> metadata = EntityMetadata.of(model);
+        String tableName = metadata.tableName();
+
+        SelectQueryBuilder parent = copyFrom(model);
+        parent.selectedColumns = selectedColumns;
+        RenderedQuery rendered = parent.render();
+
+        List<EntityMetadata.ColumnMetadata> parentColumns = selectedColumns != null ? selectedColumns : metadata.columns();
+        StringJoiner projection = new StringJoiner(", ");
+        parentColumns.forEach(column -> projection.add(STR."\{tableName}.\{column.name()} AS \{tableName}\{ALIAS_SEPARATOR}\{column.name()}"));
+
+        List<QueryFragment> collected = new ArrayList<>();
+        if (fetchMode == FetchMode.JSON) {
+            int[] aliases = {0};
+            for (FetchGraph graph : FetchGraph.of(metadata, fetches).values()) {
+                projection.add(STR."\{graph.render(tableName, tableName, aliases)} AS \{graph.relation().alias()}");
+            }
+            collected.add(new QueryNode(STR."SELECT \{projection} FROM (\{rendered.sql()}) AS \{tableName}", Integer.MAX_VALUE, rendered.params()));
+        } else {
+            if (fetches.stream().anyMatch(field -> field.contains("."))) {
+                throw new IllegalArgumentException("Nested relations can only be fetched with FetchMode.JSON");
+            }
+            List<FetchedRelation> relations = fetches.stream().map(field -> FetchedRelation.of(metadata, field)).toList();
+            for (FetchedRelation relation : relations) {
+                relation.target().columns().forEach(column ->
+                        projection.add(STR."\{relation.alias()}.\{column.name()} AS \{relation.alias()}\{ALIAS_SEPARATOR}\{column.name()}"));
+            }
+
+            collected.add(new QueryNode(STR."SELECT \{projection} FROM (\{rendered.sql()}) AS \{tableName}", Integer.MAX_VALUE, rendered.params()));
+            for (FetchedRelation relation : relations) {
+                collected.add(new QueryNode(relation.join(tableName), Integer.MAX_VALUE - 5));
+            }
+        }
+        nodes.stream().filter(node -> node.priority() == ORDER_BY_PRIORITY).forEach(collected::add);
+        return collected;
+    }
+
+    /**
+     * Compiles the query for {@code clazz}, selecting from its table unless {@link #from(String)} was called.
+     */
+    public <T extends DatabaseModel> CompiledQuery<T> compile(Class<T> clazz) {
+        SelectQueryBuilder query = this;
+        if (thisTableName == null) {
+            query = copyFrom(clazz);
+            query.fetches.addAll(fetches);
+            query.fetchMode = fetchMode;
+        }
+        return new CompiledQuery<>(query.render(), clazz, query.tables(), fetchMode, fetches(), query.isPartial());
+    }
+
+    @Override
+    boolean isPartial() {
+        return selectedColumns != null;
+    }
+
+    private SelectQueryBuilder copyFrom(Class<? extends DatabaseModel> model) {
+        SelectQueryBuilder copy = new SelectQueryBuilder(columns);
+        copy.nodes.addAll(nodes);
+        copy.whereClauses.addAll(whereClauses);
+        copy.limit = limit;
+        copy.joinedModels.addAll(joinedModels);
+        copy.tables.addAll(tables);
+        return copy.from(model);
+    }
+
+    private String projection() {
+        if (!columns.equals("*")) {
+            return columns;
+        }
+        if (joinedModels.isEmpty()) {
+            if (model == null) {
+                return columns;
+            }
+
+            EntityMetadata<?> metadata = EntityMetadata.of(model);
+            List<EntityMetadata.ColumnMetadata> projected = selectedColumns != null ? selectedColumns : metadata.columns();
+            return projected.stream()
+                    .map(column -> STR."\{metadata.tableName()}.\{column.name()}")
+                    .collect(Collectors.joining(", "));
+        }
+
+        return joinedModels.stream()
+                .map(EntityMetadata::of)
+                .flatMap(metadata -> metadata.columns().stream().map(column ->
+                        STR."\{metadata.tableName()}.\{column.name()} AS \{metadata.tableName()}\{ALIAS_SEPARATOR}\{column.name()}"))
+                .collect(Collectors.joining(", "));
+    }
+}
@@ -7,6 +7,7 @@ public class UpdateQueryBuilder extends AbstractQueryBuilder {
     public UpdateQueryBuilder(String tableName) {
         super();
         sql(STR."UPDATE \{tableName}", Integer.MAX_VALUE);
+        tables.add(tableName);
     }
 
     public UpdateQueryBuilder set(String columnName, Object value) {
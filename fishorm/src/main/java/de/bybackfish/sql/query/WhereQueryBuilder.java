@@ -0,0 +1,150 @@
+package de.bybackfish.sql.query;
+
+import de.bybackfish.sql.util.SqlArray;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+public class WhereQueryBuilder {
+    /**
+     * From this many values on, {@link #in(String, Collection)} joins against the unnested array instead of
+     * comparing with {@code ANY}, which lets PostgreSQL hash the values.
+     */
+    public static final int UNNEST_THRESHOLD = 1000;
+
+    private final List<Condition> conditions;
+    private final List<WhereQueryBuilder> nestedBuilders;
+    private String joinOperator = "AND";
+
+    public WhereQueryBuilder() {
+        conditions = new ArrayList<>();
+        nestedBuilders = new ArrayList<>();
+    }
+
+    public WhereQueryBuilder and(String condition, Object... params) {
+        conditions.add(new Condition("AND", condition, params));
+        return this;
+    }
+
+    public WhereQueryBuilder or(String condition, Object... params) {
+        conditions.add(new Condition("OR", condition, params));
+        return this;
+    }
+
+    /**
+     * Adds {@code column IN values} with all values bound as a single array parameter, so the SQL is the same for any
+     * number of values. The array is typed after the first value, see {@link SqlArray#of(Collection)}; enum constants
+     * are bound untyped, so they match the column's enum type. An empty collection matches no row.
+     */
+    public WhereQueryBuilder in(String column, Collection<?> values) {
+        return in(column, SqlArray.of(values));
+    }
+
+    /**
+     * @param elementType the SQL type of the column, e.g. the name of an enum type
+     */
+    public WhereQueryBuilder in(String column, Collection<?> values, String elementType) {
+        return in(column, SqlArray.of(elementType, values));
+    }
+
+    public WhereQueryBuilder in(String column, SqlArray values) {
+        // an empty array has no element to type it after, and matches nothing anyway
+        if (values.size() == 0) return and("FALSE");
+        return and(inCondition(column, values), values);
+    }
+
+    public WhereQueryBuilder orIn(String column, Collection<?> values) {
+        return orIn(column, SqlArray.of(values));
+    }
+
+    /**
+     * @param elementType the SQL type of the column, e.g. the name of an enum type
+     */
+    public WhereQueryBuilder orIn(String column, Collection<?> values, String elementType) {
+        return orIn(column, SqlArray.of(elementType, values));
+    }
+
+    public WhereQueryBuilder orIn(String column, SqlArray values) {
+        if (values.size() == 0) return or("FALSE");
+        return or(inCondition(column, values), values);
+    }
+
+    private static String inCondition(String column, SqlArray values) {
+        // unnest cannot infer the type of an untyped array
+        return values.size() >= UNNEST_THRESHOLD && values.typed()
+                ? STR."\{column} IN (SELECT unnest(?))"
+                : STR."\{column} = ANY(?)";
+    }
+
+    public WhereQueryBuilder nested(WhereQueryBuilder nestedBuilder) {
+        nestedBuilders.add(nestedBuilder);
+        return this;
+    }
+
+    public WhereQueryBuilder and() {
+        joinOperator = "AND";
+        return this;
+    }
+
+    public WhereQueryBuilder or() {
+        joinOperator = "OR";
+        return this;
+    }
+
+    public AbstractQueryBuilder.QueryNode buildNode() {
+        StringBuilder whereClause = new StringBuilder("WHERE ");
+        List<Object> parameters = new ArrayList<>();
+        renderTo(whereClause, parameters);
+
+        return new AbstractQueryBuilder.QueryNode(whereClause.toString(), 1, parameters.toArray());
+    }
+
+    boolean isEmpty() {
+        return conditions.isEmpty() && nestedBuilders.stream().allMatch(WhereQueryBuilder::isEmpty);
+    }
+
+    /**
+     * Appends the clause, without the {@code WHERE} keyword, and its parameters in a single pass over the nested
+     * builders.
+     */
+    public void renderTo(StringBuilder whereClause, List<Object> parameters) {
+        boolean first = true;
+
+        for (Condition condition : conditions) {
+            if (!first) {
+                whereClause.append(' ').append(condition.joinOperator).append(' ');
+            }
+            whereClause.append('(').append(condition.condition).append(')');
+            if (condition.params != null) {
+                Collections.addAll(parameters, condition.params);
+            }
+            first = false;
+        }
+
+        for (WhereQueryBuilder nestedBuilder : nestedBuilders) {
+            if (nestedBuilder.isEmpty()) continue;
+
+            if (!first) {
+                whereClause.append(' ').append(joinOperator).append(' ');
+            }
+            whereClause.append('(');
+            nestedBuilder.renderTo(whereClause, parameters);
+            whereClause.append(')');
+            first = false;
+        }
+    }
+
+    private static class Condition {
+        String joinOperator;
+        String condition;
+        Object[] params;
+
+        public Condition(String joinOperator, String condition, Object[] params) {
+            this.joinOperator = joinOperator;
+            this.condition = condition;
+            this.params = params;
+        }
+    }
+}
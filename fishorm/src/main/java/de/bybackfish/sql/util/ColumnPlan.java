@@ -0,0 +1,100 @@
+package de.bybackfish.sql.util;
+
+import de.bybackfish.sql.core.FishSQLException;
+import de.bybackfish.sql.query.SelectQueryBuilder;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * The result set index of every column of a model, resolved once from {@link ResultSetMetaData} before the first
+ * row is decoded.
+ * <p>
+ * A column is looked up by its {@code table__column} alias (see {@link SelectQueryBuilder#join(Class, Class)}), its
+ * {@code table.column} label and its bare label, in that order. When a bare label occurs more than once (e.g.
+ * {@code id} in a join), the index whose {@link ResultSetMetaData#getTableName(int)} matches the model's table wins.
+ * A column that is not part of the result fails the mapping, unless the query is a partial select (see
+ * {@link SelectQueryBuilder#SelectQueryBuilder(Class, String...)}), whose missing columns read as {@code NULL}.
+ */
+public final class ColumnPlan {
+    private final int[] indexes;
+
+    private ColumnPlan(int[] indexes) {
+        this.indexes = indexes;
+    }
+
+    public static ColumnPlan resolve(ResultSet resultSet, EntityMetadata<?> metadata) throws SQLException {
+        return resolve(resultSet, metadata, metadata.tableName(), false);
+    }
+
+    /**
+     * Resolves the columns of a model joined under {@code alias}, which are only looked up by their
+     * {@code alias__column} label unless the alias is the model's table name.
+     */
+    public static ColumnPlan resolve(ResultSet resultSet, EntityMetadata<?> metadata, String alias) throws SQLException {
+        return resolve(resultSet, metadata, alias, false);
+    }
+
+    /**
+     * @param partial whether the query selects only some columns of the model, which are then allowed to be missing
+     */
+    public static ColumnPlan resolve(ResultSet resultSet, EntityMetadata<?> metadata, String alias, boolean partial) throws SQLException {
+        ResultSetMetaData resultSetMetaData = resultSet.getMetaData();
+
+        Map<String, List<Integer>> indexesByLabel = new HashMap<>();
+        for (int i = 1; i <= resultSetMetaData.getColumnCount(); i++) {
+            indexesByLabel.computeIfAbsent(normalize(resultSetMetaData.getColumnLabel(i)), _ -> new ArrayList<>()).add(i);
+        }
+
+        List<EntityMetadata.ColumnMetadata> columns = metadata.columns();
+        int[] indexes = new int[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            String name = columns.get(i).name();
+
+            List<Integer> candidates = indexesByLabel.get(normalize(STR."\{alias}\{SelectQueryBuilder.ALIAS_SEPARATOR}\{name}"));
+            if (candidates == null && alias.equals(metadata.tableName())) {
+                candidates = indexesByLabel.get(normalize(STR."\{metadata.tableName()}.\{name}"));
+                if (candidates == null) {
+                    candidates = indexesByLabel.get(normalize(name));
+                }
+            }
+            if (candidates == null) {
+                if (!partial) {
+                    throw new FishSQLException(STR."Column \{name} of \{metadata.tableName()} is not part of the result");
+                }
+                indexes[i] = 0;
+                continue;
+            }
+
+            indexes[i] = candidates.size() == 1
+                    ? candidates.getFirst()
+                    : disambiguate(resultSetMetaData, candidates, metadata.tableName());
+        }
+
+        return new ColumnPlan(indexes);
+    }
+
+    private static int disambiguate(ResultSetMetaData resultSetMetaData, List<Integer> candidates, String tableName) throws SQLException {
+        for (int index : candidates) {
+            if (tableName.equalsIgnoreCase(resultSetMetaData.getTableName(index))) {
+                return index;
+            }
+        }
+        return candidates.getFirst();
+    }
+
+    static String normalize(String label) {
+        // unquoted identifiers are case-insensitive, and so are the drivers' label lookups
+        return label.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param column the position of the column in {@link EntityMetadata#columns()}
+     * @return the 1-based result set index, {@code 0} if the column is not part of the result
+     */
+    public int index(int column) {
+        return indexes[column];
+    }
+}
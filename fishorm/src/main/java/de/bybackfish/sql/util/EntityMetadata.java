@@ -0,0 +1,525 @@
+package de.bybackfish.sql.util;
+
+import de.bybackfish.sql.annotation.AutoGenerated;
+import de.bybackfish.sql.annotation.Default;
+import de.bybackfish.sql.annotation.ForeignKey;
+import de.bybackfish.sql.annotation.LazyLoaded;
+import de.bybackfish.sql.annotation.PrimaryKey;
+import de.bybackfish.sql.codec.EnumCodec;
+import de.bybackfish.sql.codec.TypeCodec;
+import de.bybackfish.sql.codec.TypeCodecs;
+import de.bybackfish.sql.core.DatabaseModel;
+
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reflection data of a {@link DatabaseModel} subclass, resolved once and shared by every mapping and CRUD path.
+ */
+public final class EntityMetadata<T extends DatabaseModel> {
+    private static final Map<Class<?>, EntityMetadata<?>> CACHE = new ConcurrentHashMap<>();
+    private static volatile Map<Class<?>, GeneratedModel<?>> generatedModels;
+
+    private final Class<T> type;
+    private final String tableName;
+    private final Constructor<T> constructor;
+    private final List<Field> fields;
+    private final List<ColumnMetadata> columns;
+    private final List<ColumnMetadata> primaryKeys;
+    private final List<ColumnMetadata> autoGenerated;
+    private final List<ColumnMetadata> foreignKeys;
+    private final List<RelationMetadata> relations;
+    private final Map<String, ColumnMetadata> columnsByFieldName;
+    private final GeneratedModel<T> generated;
+    private final String insertSql;
+    private final String updateSql;
+    private final String deleteSql;
+
+    private EntityMetadata(Class<T> type) {
+        this.type = type;
+        this.tableName = ReflectionUtils.getTableName(type);
+
+        try {
+            this.constructor = type.getDeclaredConstructor();
+            this.constructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException(STR."Model \{type.getName()} needs a no-args constructor", e);
+        }
+
+        List<Field> fields = new ArrayList<>();
+        List<ColumnMetadata> columns = new ArrayList<>();
+        List<RelationMetadata> relations = new ArrayList<>();
+
+        for (Field field : type.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) continue;
+
+            field.setAccessible(true);
+            fields.add(field);
+
+            LazyLoaded lazyLoaded = field.getAnnotation(LazyLoaded.class);
+            if (field.getType().equals(Lazy.class)) {
+                if (lazyLoaded != null) {
+                    relations.add(createRelation(field, lazyLoaded));
+                }
+                continue;
+            }
+            if (lazyLoaded != null) continue;
+
+            columns.add(createColumn(field));
+        }
+
+        this.fields = List.copyOf(fields);
+        this.generated = findGenerated(type, columns, relations);
+        if (generated != null) {
+            for (int i = 0; i < columns.size(); i++) {
+                columns.set(i, columns.get(i).withAccessor(new GeneratedAccessor(generated, i, false)));
+            }
+            for (int i = 0; i < relations.size(); i++) {
+                relations.set(i, relations.get(i).withAccessor(new GeneratedAccessor(generated, i, true)));
+            }
+        }
+
+        this.columns = List.copyOf(columns);
+        this.primaryKeys = columns.stream().filter(ColumnMetadata::primaryKey).toList();
+        this.autoGenerated = columns.stream().filter(ColumnMetadata::autoGenerated).toList();
+        this.foreignKeys = columns.stream().filter(column -> column.foreignKey() != null).toList();
+        this.relations = List.copyOf(relations);
+
+        Map<String, ColumnMetadata> columnsByFieldName = new HashMap<>();
+        for (ColumnMetadata column : columns) {
+            columnsByFieldName.put(column.field().getName(), column);
+        }
+        this.columnsByFieldName = Map.copyOf(columnsByFieldName);
+
+        if (generated != null) {
+            this.insertSql = generated.insertSql();
+            this.updateSql = generated.updateSql();
+            this.deleteSql = generated.deleteSql();
+        } else {
+            this.insertSql = renderInsertSql();
+            this.updateSql = renderUpdateSql();
+            this.deleteSql = renderDeleteSql();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends DatabaseModel> GeneratedModel<T> findGenerated(Class<T> type, List<ColumnMetadata> columns, List<RelationMetadata> relations) {
+        Map<Class<?>, GeneratedModel<?>> models = generatedModels;
+        if (models == null) {
+            Map<Class<?>, GeneratedModel<?>> loaded = new HashMap<>();
+            for (GeneratedModel<?> model : ServiceLoader.load(GeneratedModel.class)) {
+                loaded.put(model.type(), model);
+            }
+            generatedModels = models = Map.copyOf(loaded);
+        }
+
+        GeneratedModel<T> generated = (GeneratedModel<T>) models.get(type);
+        if (generated == null
+                || !generated.columnNames().equals(columns.stream().map(ColumnMetadata::name).toList())
+                || !generated.relationNames().equals(relations.stream().map(relation -> relation.field().getName()).toList())) {
+            return null;
+        }
+        return generated;
+    }
+
+    private String renderInsertSql() {
+        List<String> inserted = columns.stream().filter(column -> !column.autoGenerated()).map(ColumnMetadata::name).toList();
+        return STR."INSERT INTO \{tableName} (\{String.join(", ", inserted)}) VALUES (\{String.join(", ", Collections.nCopies(inserted.size(), "?"))})";
+    }
+
+    private String renderUpdateSql() {
+        if (primaryKeys.isEmpty()) return null;
+        List<String> assignments = columns.stream().filter(column -> !column.primaryKey()).map(column -> STR."\{column.name()} = ?").toList();
+        return STR."UPDATE \{tableName} SET \{String.join(", ", assignments)} WHERE \{primaryKeyCondition()}";
+    }
+
+    private String renderDeleteSql() {
+        if (primaryKeys.isEmpty()) return null;
+        return STR."DELETE FROM \{tableName} WHERE \{primaryKeyCondition()}";
+    }
+
+    private String primaryKeyCondition() {
+        return String.join(" AND ", primaryKeys.stream().map(column -> STR."\{column.name()} = ?").toList());
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T extends DatabaseModel> EntityMetadata<T> of(Class<T> clazz) {
+        return (EntityMetadata<T>) CACHE.computeIfAbsent(clazz, key -> new EntityMetadata<>((Class<T>) key));
+    }
+
+    private static ColumnMetadata createColumn(Field field) {
+        boolean optional = field.getType().equals(Optional.class);
+        Default defaultAnnotation = field.getAnnotation(Default.class);
+        Object defaultValue = defaultAnnotation != null
+                ? ObjectMapper.defaultValueOf(field.getType(), defaultAnnotation)
+                : ObjectMapper.defaultValueOf(field.getType());
+        if (defaultValue instanceof Number number) {
+            defaultValue = coerce(number, field.getType());
+        }
+
+        Class<?> valueType = optional ? optionalType(field) : field.getType();
+        if (valueType != null && valueType.isPrimitive()) {
+            valueType = wrap(valueType);
+        }
+        TypeCodec<?> codec = valueType == null ? null : TypeCodecs.find(valueType);
+
+        return new ColumnMetadata(
+                field,
+                new ReflectiveAccessor(field),
+                ReflectionUtils.getFieldName(field),
+                optional,
+                field.isAnnotationPresent(PrimaryKey.class),
+                field.isAnnotationPresent(AutoGenerated.class),
+                field.getAnnotation(ForeignKey.class),
+                defaultValue,
+                codec
+        );
+    }
+
+    private static Class<?> optionalType(Field field) {
+        if (field.getGenericType() instanceof ParameterizedType parameterized
+                && parameterized.getActualTypeArguments()[0] instanceof Class<?> type) {
+            return type;
+        }
+        return null;
+    }
+
+    private static Class<?> wrap(Class<?> primitive) {
+        return MethodType.methodType(primitive).wrap().returnType();
+    }
+
+    /**
+     * Converts a {@link Default} number to the field's type, so it can be assigned without a widening conversion.
+     */
+    private static Object coerce(Number number, Class<?> type) {
+        if (type == long.class || type == Long.class) return number.longValue();
+        if (type == double.class || type == Double.class) return number.doubleValue();
+        if (type == float.class || type == Float.class) return number.floatValue();
+        if (type == short.class || type == Short.class) return number.shortValue();
+        if (type == byte.class || type == Byte.class) return number.byteValue();
+        if (type == int.class || type == Integer.class) return number.intValue();
+        return number;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RelationMetadata createRelation(Field field, LazyLoaded lazyLoaded) {
+        boolean list = ObjectMapper.isListGeneric(field);
+
+        Class<?> targetClass;
+        if (list) {
+            targetClass = (Class<?>) ((ParameterizedType) ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0]).getActualTypeArguments()[0];
+        } else {
+            targetClass = (Class<?>) ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+        }
+
+        // must be ? extends DatabaseModel
+        if (!DatabaseModel.class.isAssignableFrom(targetClass)) {
+            throw new RuntimeException(STR."LazyLoaded field must be of type DatabaseModel. Received: \{targetClass.getName()}");
+        }
+
+        return new RelationMetadata(field, new ReflectiveAccessor(field), lazyLoaded, (Class<? extends DatabaseModel>) targetClass, list);
+    }
+
+    public T newInstance() throws ReflectiveOperationException {
+        return generated != null ? generated.newInstance() : constructor.newInstance();
+    }
+
+    public Class<T> type() {
+        return type;
+    }
+
+    public String tableName() {
+        return tableName;
+    }
+
+    public Constructor<T> constructor() {
+        return constructor;
+    }
+
+    /**
+     * All non-static declared fields, made accessible.
+     */
+    public List<Field> fields() {
+        return fields;
+    }
+
+    public List<ColumnMetadata> columns() {
+        return columns;
+    }
+
+    public List<ColumnMetadata> primaryKeys() {
+        return primaryKeys;
+    }
+
+    public List<ColumnMetadata> autoGenerated() {
+        return autoGenerated;
+    }
+
+    public List<ColumnMetadata> foreignKeys() {
+        return foreignKeys;
+    }
+
+    public List<RelationMetadata> relations() {
+        return relations;
+    }
+
+    public Optional<ColumnMetadata> column(String fieldName) {
+        return Optional.ofNullable(columnsByFieldName.get(fieldName));
+    }
+
+    public Optional<ColumnMetadata> columnNamed(String columnName) {
+        return columns.stream().filter(column -> column.name().equals(columnName)).findFirst();
+    }
+
+    /**
+     * The {@link de.bybackfish.sql.annotation.ForeignKey} on {@code fieldName} that points into {@code targetTable}.
+     */
+    public Optional<ColumnMetadata> foreignKey(String fieldName, String targetTable) {
+        return foreignKeys.stream()
+                .filter(column -> column.field().getName().equals(fieldName))
+                .filter(column -> column.foreignKey().targetTable().equals(targetTable))
+                .findFirst();
+    }
+
+    public Optional<RelationMetadata> relation(String fieldName) {
+        return relations.stream().filter(relation -> relation.field().getName().equals(fieldName)).findFirst();
+    }
+
+    /**
+     * The model's {@link GeneratedModel}, if the annotation processor ran over it.
+     */
+    public Optional<GeneratedModel<T>> generated() {
+        return Optional.ofNullable(generated);
+    }
+
+    /**
+     * @see GeneratedModel#insertSql()
+     */
+    public String insertSql() {
+        return insertSql;
+    }
+
+    /**
+     * @see GeneratedModel#updateSql()
+     */
+    public String updateSql() {
+        return updateSql;
+    }
+
+    /**
+     * @see GeneratedModel#deleteSql()
+     */
+    public String deleteSql() {
+        return deleteSql;
+    }
+
+    /**
+     * A field that is mapped to a column of the model's table.
+     *
+     * @param accessor     reads and writes the field, through the {@link GeneratedModel} if there is one
+     * @param name         the column name, taken from {@link de.bybackfish.sql.annotation.Field} or the field name
+     * @param defaultValue the value assigned when the column is {@code NULL}
+     * @param codec        the codec of the field's (or {@link Optional}'s) type, {@code null} to read plain objects
+     */
+    public record ColumnMetadata(
+            Field field,
+            FieldAccessor accessor,
+            String name,
+            boolean optional,
+            boolean primaryKey,
+            boolean autoGenerated,
+            ForeignKey foreignKey,
+            Object defaultValue,
+            TypeCodec<?> codec
+    ) {
+        public Class<?> type() {
+            return field.getType();
+        }
+
+        public Object get(Object model) throws IllegalAccessException {
+            return accessor.get(model);
+        }
+
+        public void set(Object model, Object value) throws IllegalAccessException {
+            accessor.set(model, value);
+        }
+
+        ColumnMetadata withAccessor(FieldAccessor accessor) {
+            return new ColumnMetadata(field, accessor, name, optional, primaryKey, autoGenerated, foreignKey, defaultValue, codec);
+        }
+
+        /**
+         * Reads the column at {@code index} and decodes it, see {@link #decode(Object)}. An index of {@code 0} reads
+         * as {@code NULL}.
+         */
+        public Object read(ResultSet resultSet, int index) throws SQLException {
+            if (index == 0) return decode(null);
+            return decode(codec != null ? codec.read(resultSet, index) : resultSet.getObject(index));
+        }
+
+        /**
+         * Reads an {@code int} field without boxing.
+         */
+        public int readInt(ResultSet resultSet, int index) throws SQLException {
+            if (index != 0) {
+                int value = resultSet.getInt(index);
+                if (!resultSet.wasNull()) return value;
+            }
+            return (int) defaultValue;
+        }
+
+        public long readLong(ResultSet resultSet, int index) throws SQLException {
+            if (index != 0) {
+                long value = resultSet.getLong(index);
+                if (!resultSet.wasNull()) return value;
+            }
+            return (long) defaultValue;
+        }
+
+        public double readDouble(ResultSet resultSet, int index) throws SQLException {
+            if (index != 0) {
+                double value = resultSet.getDouble(index);
+                if (!resultSet.wasNull()) return value;
+            }
+            return (double) defaultValue;
+        }
+
+        /**
+         * Converts a raw JDBC value into the value stored in the field.
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public Object decode(Object value) {
+            if (optional) {
+                value = Optional.ofNullable(value);
+            }
+            if (value == null) {
+                value = defaultValue;
+            }
+            if (codec instanceof EnumCodec<?> enumCodec && value instanceof String string) {
+                value = enumCodec.valueOf(string);
+            } else if (field.getType().isEnum() && value instanceof String string) {
+                value = Enum.valueOf((Class<Enum>) field.getType(), string);
+            }
+            return value;
+        }
+
+        /**
+         * Converts a value of a JSON document to the field's type, through {@link TypeCodec#decodeJson(Object)} or
+         * {@link Json#convert(Object, Class)}, and decodes it.
+         */
+        public Object decodeJson(Object value) {
+            return decode(codec != null ? codec.decodeJson(value) : Json.convert(value, valueType()));
+        }
+
+        /**
+         * Whether {@link #decodeJson(Object)} supports the column, i.e. it can be fetched with {@code FetchMode.JSON}.
+         */
+        public boolean decodesJson() {
+            if (codec != null) return codec.decodesJson();
+            Class<?> valueType = valueType();
+            return valueType == null || Json.supports(valueType);
+        }
+
+        private Class<?> valueType() {
+            return optional ? optionalType(field) : field.getType();
+        }
+    }
+
+    /**
+     * A {@link Lazy} field annotated with {@link LazyLoaded}.
+     *
+     * @param targetClass the model the relation points to
+     * @param list        whether the field is a {@code Lazy<List<?>>}
+     */
+    public record RelationMetadata(
+            Field field,
+            FieldAccessor accessor,
+            LazyLoaded lazyLoaded,
+            Class<? extends DatabaseModel> targetClass,
+            boolean list
+    ) {
+        public Object get(Object model) throws IllegalAccessException {
+            return accessor.get(model);
+        }
+
+        public void set(Object model, Lazy<?> value) throws IllegalAccessException {
+            accessor.set(model, value);
+        }
+
+        RelationMetadata withAccessor(FieldAccessor accessor) {
+            return new RelationMetadata(field, accessor, lazyLoaded, targetClass, list);
+        }
+
+        /**
+         * Whether the relation is loaded through a {@link LazyLoaded#linkTable()}.
+         */
+        public boolean linked() {
+            return !lazyLoaded.linkTable().isEmpty();
+        }
+
+        public String linkColumn(String ownerTable) {
+            return lazyLoaded.linkColumn().isEmpty() ? STR."\{ownerTable}_id" : lazyLoaded.linkColumn();
+        }
+
+        public String linkTargetColumn() {
+            return lazyLoaded.linkTargetColumn().isEmpty() ? STR."\{EntityMetadata.of(targetClass).tableName()}_id" : lazyLoaded.linkTargetColumn();
+        }
+
+        public ColumnMetadata targetColumn() {
+            EntityMetadata<?> target = EntityMetadata.of(targetClass);
+            if (!lazyLoaded.targetColumn().isEmpty()) {
+                return target.columnNamed(lazyLoaded.targetColumn())
+                        .orElseThrow(() -> new RuntimeException(STR."\{targetClass.getName()} has no column \{lazyLoaded.targetColumn()}"));
+            }
+            if (target.primaryKeys().size() != 1) {
+                throw new RuntimeException(STR."\{targetClass.getName()} needs exactly one primary key or an explicit targetColumn for \{field.getName()}");
+            }
+            return target.primaryKeys().getFirst();
+        }
+    }
+
+    /**
+     * Reads and writes a mapped field of a model.
+     */
+    public interface FieldAccessor {
+        Object get(Object model) throws IllegalAccessException;
+
+        void set(Object model, Object value) throws IllegalAccessException;
+    }
+
+    private record ReflectiveAccessor(Field field) implements FieldAccessor {
+        @Override
+        public Object get(Object model) throws IllegalAccessException {
+            return field.get(model);
+        }
+
+        @Override
+        public void set(Object model, Object value) throws IllegalAccessException {
+            field.set(model, value);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private record GeneratedAccessor(GeneratedModel model, int position, boolean relation) implements FieldAccessor {
+        @Override
+        public Object get(Object target) {
+            return relation ? model.getRelation((DatabaseModel) target, position) : model.get((DatabaseModel) target, position);
+        }
+
+        @Override
+        public void set(Object target, Object value) {
+            if (relation) {
+                model.setRelation((DatabaseModel) target, position, (Lazy<?>) value);
+            } else {
+                model.set((DatabaseModel) target, position, value);
+            }
+        }
+    }
+}
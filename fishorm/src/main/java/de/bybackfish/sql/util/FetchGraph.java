@@ -0,0 +1,138 @@
+package de.bybackfish.sql.util;
+
+import de.bybackfish.sql.core.DatabaseModel;
+import de.bybackfish.sql.core.FishSQLException;
+import de.bybackfish.sql.core.Session;
+
+import java.util.*;
+
+/**
+ * A tree of relations fetched as nested JSON documents, see {@link de.bybackfish.sql.query.FetchMode#JSON}. Every
+ * node renders a correlated subquery that aggregates its targets, with the documents of its children nested under
+ * their {@link FetchedRelation#alias()}.
+ */
+public final class FetchGraph {
+    private final FetchedRelation relation;
+    private final Map<String, FetchGraph> children = new LinkedHashMap<>();
+
+    private FetchGraph(FetchedRelation relation) {
+        this.relation = relation;
+    }
+
+    /**
+     * Builds the graph of dotted relation paths, e.g. {@code departments.employees}, starting at {@code metadata}.
+     */
+    public static Map<String, FetchGraph> of(EntityMetadata<?> metadata, Collection<String> paths) {
+        Map<String, FetchGraph> roots = new LinkedHashMap<>();
+        for (String path : paths) {
+            Map<String, FetchGraph> level = roots;
+            EntityMetadata<?> owner = metadata;
+            for (String field : path.split("\\.")) {
+                EntityMetadata<?> current = owner;
+                FetchGraph node = level.computeIfAbsent(field, _ -> new FetchGraph(checkDecodable(FetchedRelation.of(current, field))));
+                owner = node.relation.target();
+                level = node.children;
+            }
+        }
+        return roots;
+    }
+
+    private static FetchedRelation checkDecodable(FetchedRelation relation) {
+        for (EntityMetadata.ColumnMetadata column : relation.target().columns()) {
+            if (!column.decodesJson()) {
+                throw new IllegalArgumentException(STR."\{relation.target().type().getName()}.\{column.field().getName()} cannot be decoded from JSON, fetch \{relation.relation().field().getName()} with FetchMode.JOIN or register a codec supporting TypeCodec#decodeJson");
+            }
+        }
+        return relation;
+    }
+
+    public FetchedRelation relation() {
+        return relation;
+    }
+
+    /**
+     * Renders the subquery producing this relation's document for the owner selected as {@code ownerAlias}.
+     *
+     * @param aliases the number of aliases used so far, incremented for every rendered node
+     */
+    public String render(String ownerAlias, String ownerTable, int[] aliases) {
+        EntityMetadata<?> target = relation.target();
+        String alias = STR."fetch\{++aliases[0]}";
+
+        StringBuilder document = new StringBuilder(STR."to_jsonb(\{alias})");
+        if (!children.isEmpty()) {
+            StringJoiner nested = new StringJoiner(", ", " || jsonb_build_object(", ")");
+            for (FetchGraph child : children.values()) {
+                nested.add(STR."'\{child.relation.alias()}', \{child.render(alias, target.tableName(), aliases)}");
+            }
+            document.append(nested);
+        }
+
+        EntityMetadata.RelationMetadata relationMetadata = relation.relation();
+        String from = STR."FROM \{target.tableName()} AS \{alias}";
+        String condition;
+        if (relationMetadata.linked()) {
+            String linkAlias = STR."\{alias}_link";
+            from += STR." JOIN \{relationMetadata.lazyLoaded().linkTable()} AS \{linkAlias} ON \{linkAlias}.\{relationMetadata.linkTargetColumn()} = \{alias}.\{relation.targetColumn().name()}";
+            condition = STR."\{linkAlias}.\{relationMetadata.linkColumn(ownerTable)} = \{ownerAlias}.\{relation.ownerColumn().name()}";
+        } else {
+            condition = STR."\{alias}.\{relation.targetColumn().name()} = \{ownerAlias}.\{relation.ownerColumn().name()}";
+        }
+
+        return relationMetadata.list()
+                ? STR."(SELECT coalesce(jsonb_agg(\{document}), '[]'::jsonb) \{from} WHERE \{condition})"
+                : STR."(SELECT \{document} \{from} WHERE \{condition} LIMIT 1)";
+    }
+
+    /**
+     * Decodes the document of this relation and completes the relation of {@code owner} with it.
+     *
+     * @param loaded collects the decoded models of every node, so their remaining relations can be batched
+     */
+    public void complete(DatabaseModel owner, Object document, Map<FetchGraph, List<DatabaseModel>> loaded) throws FishSQLException {
+        List<DatabaseModel> targets = new ArrayList<>();
+        if (document instanceof List<?> list) {
+            for (Object element : list) {
+                targets.add(read(element, loaded));
+            }
+        } else if (document != null) {
+            targets.add(read(document, loaded));
+        }
+        loaded.computeIfAbsent(this, _ -> new ArrayList<>()).addAll(targets);
+
+        try {
+            if (relation.relation().get(owner) instanceof RelationLazy<?> lazy) {
+                lazy.complete(relation.relation().list() ? targets : targets.isEmpty() ? null : targets.getFirst());
+            }
+        } catch (IllegalAccessException e) {
+            throw new FishSQLException(e);
+        }
+    }
+
+    private DatabaseModel read(Object document, Map<FetchGraph, List<DatabaseModel>> loaded) throws FishSQLException {
+        if (!(document instanceof Map<?, ?> object)) {
+            throw new FishSQLException(STR."Expected a JSON object for \{relation.alias()}, got \{document}");
+        }
+        // match the keys like ColumnPlan matches column labels
+        Map<String, Object> values = new HashMap<>();
+        object.forEach((key, value) -> values.put(ColumnPlan.normalize(key.toString()), value));
+
+        EntityMetadata<?> target = relation.target();
+        try {
+            DatabaseModel model = target.newInstance();
+            for (EntityMetadata.ColumnMetadata column : target.columns()) {
+                column.set(model, column.decodeJson(values.get(ColumnPlan.normalize(column.name()))));
+            }
+            for (EntityMetadata.RelationMetadata targetRelation : target.relations()) {
+                targetRelation.set(model, ObjectMapper.createLazy(model, targetRelation));
+            }
+            model = Session.canonical(model);
+            for (FetchGraph child : children.values()) {
+                child.complete(model, values.get(ColumnPlan.normalize(child.relation.alias())), loaded);
+            }
+            return model;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new FishSQLException(STR."Failed to decode \{target.type().getName()} from JSON", e);
+        }
+    }
+}
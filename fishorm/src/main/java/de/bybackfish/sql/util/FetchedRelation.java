@@ -0,0 +1,55 @@
+package de.bybackfish.sql.util;
+
+import de.bybackfish.sql.query.SelectQueryBuilder;
+
+/**
+ * A {@link de.bybackfish.sql.annotation.LazyLoaded} relation that is joined into the query of its model instead of
+ * being loaded lazily, see {@link SelectQueryBuilder#fetch(String...)}.
+ *
+ * @param ownerColumn the column of the owning model the relation is joined on
+ * @param alias       the alias of the joined table, also the prefix of its column labels
+ */
+public record FetchedRelation(
+        EntityMetadata.RelationMetadata relation,
+        EntityMetadata.ColumnMetadata ownerColumn,
+        EntityMetadata<?> target,
+        String alias
+) {
+    public static FetchedRelation of(EntityMetadata<?> metadata, String fieldName) {
+        EntityMetadata.RelationMetadata relation = metadata.relation(fieldName)
+                .orElseThrow(() -> new IllegalArgumentException(STR."\{metadata.type().getName()} has no @LazyLoaded field \{fieldName}"));
+        EntityMetadata<?> target = EntityMetadata.of(relation.targetClass());
+        String ownerField = relation.lazyLoaded().value();
+        EntityMetadata.ColumnMetadata ownerColumn = (relation.linked() ? metadata.column(ownerField) : metadata.foreignKey(ownerField, target.tableName()))
+                .orElseThrow(() -> new IllegalArgumentException(STR."No foreign key found for \{target.tableName()} on \{metadata.type().getName()}.\{ownerField}"));
+
+        // short, so the column labels stay within the 63 character identifier limit
+        return new FetchedRelation(relation, ownerColumn, target, STR."fetch\{SelectQueryBuilder.ALIAS_SEPARATOR}\{fieldName}");
+    }
+
+    /**
+     * The column of the target model the relation is joined on.
+     */
+    public EntityMetadata.ColumnMetadata targetColumn() {
+        if (relation.linked()) {
+            return relation.targetColumn();
+        }
+        String targetColumnName = ownerColumn.foreignKey().targetColumn();
+        return target.columnNamed(targetColumnName)
+                .orElseThrow(() -> new IllegalArgumentException(STR."\{target.type().getName()} has no column \{targetColumnName}"));
+    }
+
+    /**
+     * Renders the {@code LEFT JOIN} of the target onto the owning model, through the link table if the relation has
+     * one.
+     */
+    public String join(String ownerTable) {
+        if (!relation.linked()) {
+            return STR."LEFT JOIN \{target.tableName()} AS \{alias} ON \{ownerTable}.\{ownerColumn.name()} = \{alias}.\{targetColumn().name()}";
+        }
+
+        String linkAlias = STR."\{alias}\{SelectQueryBuilder.ALIAS_SEPARATOR}link";
+        return STR."LEFT JOIN \{relation.lazyLoaded().linkTable()} AS \{linkAlias} ON \{ownerTable}.\{ownerColumn.name()} = \{linkAlias}.\{relation.linkColumn(ownerTable)} "
+                + STR."LEFT JOIN \{target.tableName()} AS \{alias} ON \{linkAlias}.\{relation.linkTargetColumn()} = \{alias}.\{targetColumn().name()}";
+    }
+}
@@ -0,0 +1,65 @@
+package de.bybackfish.sql.util;
+
+import de.bybackfish.sql.core.DatabaseModel;
+
+import java.util.List;
+
+/**
+ * Compile-time metadata of a model, generated by {@code de.bybackfish.sql.processor.ModelProcessor} from the
+ * {@code FishDatabase-processor} artifact and discovered through {@link java.util.ServiceLoader}. The model is
+ * constructed and its fields are read and written by generated code; models without one are accessed reflectively.
+ * <p>
+ * The annotations are still read reflectively once, when the {@link EntityMetadata} is created.
+ */
+public interface GeneratedModel<T extends DatabaseModel> {
+    Class<T> type();
+
+    String tableName();
+
+    /**
+     * The mapped column names, in declaration order. A generated model whose columns or relations do not match the
+     * runtime metadata, e.g. because it is stale, is ignored.
+     */
+    List<String> columnNames();
+
+    /**
+     * The names of the {@link de.bybackfish.sql.annotation.LazyLoaded} fields, in declaration order.
+     */
+    List<String> relationNames();
+
+    /**
+     * Inserts every column except the {@link de.bybackfish.sql.annotation.AutoGenerated} ones, in declaration order.
+     */
+    String insertSql();
+
+    /**
+     * Updates every non primary key column by primary key, {@code null} without primary keys.
+     */
+    String updateSql();
+
+    /**
+     * Deletes by primary key, {@code null} without primary keys.
+     */
+    String deleteSql();
+
+    T newInstance();
+
+    /**
+     * @param column the position of the column in {@link #columnNames()}
+     */
+    Object get(T model, int column);
+
+    void set(T model, int column, Object value);
+
+    /**
+     * @param relation the position of the relation in {@link #relationNames()}
+     */
+    Object getRelation(T model, int relation);
+
+    void setRelation(T model, int relation, Lazy<?> value);
+
+    /**
+     * A mapper that constructs the model and assigns its fields directly.
+     */
+    RowMapper<T> rowMapper(EntityMetadata<T> metadata);
+}
@@ -1,5 +1,9 @@
 package de.bybackfish.sql.util;
 
+import de.bybackfish.sql.core.DatabaseModel;
+
+import java.util.List;
+
 public class JointClasses {
 
     public record JointPair<K, V>(K first, V second) {
@@ -28,5 +32,23 @@ public class JointClasses {
                                                       B eighth, C ninth) {
     }
 
-}
+    /**
+     * One decoded instance per model of a joined row, in the order the models were requested.
+     */
+    public record JointRow(List<DatabaseModel> models) {
+        public <T extends DatabaseModel> T get(int index, Class<T> clazz) {
+            return clazz.cast(models.get(index));
+        }
 
+        public <T extends DatabaseModel> T get(Class<T> clazz) {
+            for (DatabaseModel model : models) {
+                if (clazz.isInstance(model)) return clazz.cast(model);
+            }
+            throw new IllegalArgumentException(STR."\{clazz.getName()} is not part of this row");
+        }
+
+        public int size() {
+            return models.size();
+        }
+    }
+}
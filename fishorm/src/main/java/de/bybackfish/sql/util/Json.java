@@ -0,0 +1,291 @@
+package de.bybackfish.sql.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.*;
+import java.util.*;
+
+/**
+ * A minimal JSON reader for the documents PostgreSQL renders with {@code to_jsonb}/{@code jsonb_agg}. Objects are
+ * read as {@link LinkedHashMap}, arrays as {@link ArrayList}, numbers as {@link BigDecimal}.
+ */
+public final class Json {
+    private static final Set<Class<?>> CONVERTIBLE = Set.of(
+            Object.class, String.class, Boolean.class, boolean.class,
+            Integer.class, int.class, Long.class, long.class, Double.class, double.class, Float.class, float.class,
+            Short.class, short.class, Byte.class, byte.class, BigDecimal.class, BigInteger.class,
+            UUID.class, LocalDate.class, LocalTime.class, LocalDateTime.class, OffsetDateTime.class, Instant.class,
+            Timestamp.class, java.sql.Date.class, Time.class, byte[].class);
+
+    private final String text;
+    private int position;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    public static Object parse(String text) {
+        if (text == null) return null;
+
+        Json json = new Json(text);
+        Object value = json.readValue();
+        json.skipWhitespace();
+        if (json.position != text.length()) {
+            throw json.error("Unexpected trailing characters");
+        }
+        return value;
+    }
+
+    /**
+     * Writes a parsed JSON value back as JSON text.
+     */
+    public static String write(Object value) {
+        StringBuilder json = new StringBuilder();
+        write(json, value);
+        return json.toString();
+    }
+
+    private static void write(StringBuilder json, Object value) {
+        switch (value) {
+            case null -> json.append("null");
+            case Map<?, ?> object -> {
+                json.append('{');
+                boolean first = true;
+                for (Map.Entry<?, ?> entry : object.entrySet()) {
+                    if (!first) json.append(',');
+                    first = false;
+                    writeString(json, String.valueOf(entry.getKey()));
+                    json.append(':');
+                    write(json, entry.getValue());
+                }
+                json.append('}');
+            }
+            case List<?> array -> {
+                json.append('[');
+                for (int i = 0; i < array.size(); i++) {
+                    if (i > 0) json.append(',');
+                    write(json, array.get(i));
+                }
+                json.append(']');
+            }
+            case String string -> writeString(json, string);
+            default -> json.append(value);
+        }
+    }
+
+    private static void writeString(StringBuilder json, String string) {
+        json.append('"');
+        for (int i = 0; i < string.length(); i++) {
+            char character = string.charAt(i);
+            switch (character) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (character < 0x20) {
+                        json.append(STR."\\u\{HexFormat.of().toHexDigits(character)}");
+                    } else {
+                        json.append(character);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * Whether {@link #convert(Object, Class)} produces values of {@code type}.
+     */
+    public static boolean supports(Class<?> type) {
+        return type.isEnum() || CONVERTIBLE.contains(type);
+    }
+
+    /**
+     * Converts a parsed JSON value to {@code type}. Strings are parsed for the temporal types, {@link UUID} and
+     * {@code bytea} hex strings; values of other types are returned as parsed.
+     */
+    public static Object convert(Object value, Class<?> type) {
+        if (value == null || type == null) return value;
+
+        if (value instanceof BigDecimal number) {
+            if (type == int.class || type == Integer.class) return number.intValueExact();
+            if (type == long.class || type == Long.class) return number.longValueExact();
+            if (type == double.class || type == Double.class) return number.doubleValue();
+            if (type == float.class || type == Float.class) return number.floatValue();
+            if (type == short.class || type == Short.class) return number.shortValueExact();
+            if (type == byte.class || type == Byte.class) return number.byteValueExact();
+            if (type == BigInteger.class) return number.toBigIntegerExact();
+            if (type == String.class) return number.toPlainString();
+            return number;
+        }
+        if (value instanceof String string) {
+            if (type == UUID.class) return UUID.fromString(string);
+            if (type == LocalDate.class) return LocalDate.parse(string);
+            if (type == LocalTime.class) return LocalTime.parse(string);
+            if (type == LocalDateTime.class) return LocalDateTime.parse(string);
+            if (type == OffsetDateTime.class) return OffsetDateTime.parse(string);
+            if (type == Instant.class) return OffsetDateTime.parse(string).toInstant();
+            if (type == Timestamp.class) return hasOffset(string) ? Timestamp.from(OffsetDateTime.parse(string).toInstant()) : Timestamp.valueOf(LocalDateTime.parse(string));
+            if (type == java.sql.Date.class) return java.sql.Date.valueOf(LocalDate.parse(string));
+            if (type == Time.class) return Time.valueOf(LocalTime.parse(string));
+            if (type.isEnum()) return enumConstant(type, string);
+            if (type == byte[].class && string.startsWith("\\x")) return HexFormat.of().parseHex(string, 2, string.length());
+            return string;
+        }
+        return value;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object enumConstant(Class<?> type, String name) {
+        return Enum.valueOf((Class<Enum>) type, name);
+    }
+
+    /**
+     * Whether a rendered timestamp is a {@code timestamptz}, e.g. {@code 2024-01-02T10:00:00+01:00}.
+     */
+    private static boolean hasOffset(String timestamp) {
+        int time = timestamp.indexOf('T');
+        return time >= 0 && (timestamp.endsWith("Z") || timestamp.indexOf('+', time) >= 0 || timestamp.indexOf('-', time) >= 0);
+    }
+
+    private Object readValue() {
+        skipWhitespace();
+        if (position >= text.length()) {
+            throw error("Unexpected end of input");
+        }
+
+        char character = text.charAt(position);
+        return switch (character) {
+            case '{' -> readObject();
+            case '[' -> readArray();
+            case '"' -> readString();
+            case 't' -> readLiteral("true", Boolean.TRUE);
+            case 'f' -> readLiteral("false", Boolean.FALSE);
+            case 'n' -> readLiteral("null", null);
+            default -> readNumber();
+        };
+    }
+
+    private Map<String, Object> readObject() {
+        Map<String, Object> object = new LinkedHashMap<>();
+        position++;
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            return object;
+        }
+
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"') throw error("Expected a key");
+            String key = readString();
+            skipWhitespace();
+            expect(':');
+            object.put(key, readValue());
+            skipWhitespace();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect('}');
+                return object;
+            }
+        }
+    }
+
+    private List<Object> readArray() {
+        List<Object> array = new ArrayList<>();
+        position++;
+        skipWhitespace();
+        if (peek() == ']') {
+            position++;
+            return array;
+        }
+
+        while (true) {
+            array.add(readValue());
+            skipWhitespace();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect(']');
+                return array;
+            }
+        }
+    }
+
+    private String readString() {
+        position++;
+        StringBuilder string = new StringBuilder();
+        while (position < text.length()) {
+            char character = text.charAt(position++);
+            if (character == '"') {
+                return string.toString();
+            }
+            if (character != '\\') {
+                string.append(character);
+                continue;
+            }
+            if (position >= text.length()) break;
+
+            char escaped = text.charAt(position++);
+            switch (escaped) {
+                case 'b' -> string.append('\b');
+                case 'f' -> string.append('\f');
+                case 'n' -> string.append('\n');
+                case 'r' -> string.append('\r');
+                case 't' -> string.append('\t');
+                case 'u' -> {
+                    if (position + 4 > text.length()) throw error("Invalid unicode escape");
+                    string.append((char) Integer.parseInt(text, position, position + 4, 16));
+                    position += 4;
+                }
+                default -> string.append(escaped);
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    private BigDecimal readNumber() {
+        int start = position;
+        while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+            position++;
+        }
+        if (start == position) {
+            throw error(STR."Unexpected character '\{text.charAt(position)}'");
+        }
+        return new BigDecimal(text.substring(start, position));
+    }
+
+    private Object readLiteral(String literal, Object value) {
+        if (!text.startsWith(literal, position)) {
+            throw error(STR."Expected \{literal}");
+        }
+        position += literal.length();
+        return value;
+    }
+
+    private void expect(char character) {
+        if (peek() != character) {
+            throw error(STR."Expected '\{character}'");
+        }
+        position++;
+    }
+
+    private char peek() {
+        return position < text.length() ? text.charAt(position) : 0;
+    }
+
+    private void skipWhitespace() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(STR."\{message} at position \{position} of JSON document");
+    }
+}
@@ -44,7 +44,7 @@ public abstract class Lazy<T> {
 
     @Override
     public String toString() {
-        if(isLoaded()) return get().toString();
+        if(isLoaded()) return String.valueOf(get());
         return "LazyLoaded{not loaded}";
     }
 }
\ No newline at end of file
@@ -0,0 +1,193 @@
+package de.bybackfish.sql.util;
+
+import de.bybackfish.sql.core.DatabaseModel;
+import de.bybackfish.sql.core.DatabaseProvider;
+import de.bybackfish.sql.core.FishDatabase;
+import de.bybackfish.sql.core.FishSQLException;
+import de.bybackfish.sql.core.EntityCache;
+import de.bybackfish.sql.core.Session;
+import de.bybackfish.sql.query.AbstractQueryBuilder;
+import de.bybackfish.sql.query.QueryBuilder;
+import de.bybackfish.sql.query.SelectQueryBuilder;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Shares the loading of one relation between all models mapped from the same result. The first
+ * {@link Lazy#get()} loads the targets of every sibling with a single {@code WHERE fk = ANY(?)} query, instead of
+ * one query per model.
+ */
+final class LazyBatch {
+    private static final String OWNER_LABEL = STR."link\{SelectQueryBuilder.ALIAS_SEPARATOR}owner";
+
+    private final EntityMetadata<?> owner;
+    private final EntityMetadata.RelationMetadata relation;
+    private final EntityMetadata.ColumnMetadata ownerColumn;
+    private final List<RelationLazy<?>> members;
+    private boolean loaded;
+
+    private LazyBatch(EntityMetadata<?> owner, EntityMetadata.RelationMetadata relation, EntityMetadata.ColumnMetadata ownerColumn, List<RelationLazy<?>> members) {
+        this.owner = owner;
+        this.relation = relation;
+        this.ownerColumn = ownerColumn;
+        this.members = members;
+    }
+
+    /**
+     * Groups the relations of {@code models} into one batch per relation. Relations without a matching
+     * {@link de.bybackfish.sql.annotation.ForeignKey} or link table, and results of a single model, are left to
+     * load on their own.
+     */
+    static void attach(List<? extends DatabaseModel> models, EntityMetadata<?> metadata) {
+        if (models.size() < 2) return;
+
+        for (EntityMetadata.RelationMetadata relation : metadata.relations()) {
+            Optional<EntityMetadata.ColumnMetadata> ownerColumn = ownerColumn(metadata, relation);
+            if (ownerColumn.isEmpty()) continue;
+
+            List<RelationLazy<?>> members = new ArrayList<>(models.size());
+            for (DatabaseModel model : models) {
+                try {
+                    if (relation.get(model) instanceof RelationLazy<?> lazy && !lazy.isLoaded()) {
+                        members.add(lazy);
+                    }
+                } catch (IllegalAccessException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            if (members.size() < 2) continue;
+
+            LazyBatch batch = new LazyBatch(metadata, relation, ownerColumn.get(), members);
+            for (RelationLazy<?> member : members) {
+                member.joinBatch(batch);
+            }
+        }
+    }
+
+    /**
+     * The column of the owning model whose values identify its targets.
+     */
+    static Optional<EntityMetadata.ColumnMetadata> ownerColumn(EntityMetadata<?> metadata, EntityMetadata.RelationMetadata relation) {
+        if (relation.linked()) {
+            return metadata.column(relation.lazyLoaded().value());
+        }
+        return metadata.foreignKey(relation.lazyLoaded().value(), EntityMetadata.of(relation.targetClass()).tableName());
+    }
+
+    synchronized void load() {
+        if (loaded) return;
+        loaded = true;
+
+        try {
+            boolean cacheable = referencesPrimaryKey();
+            Set<Object> keys = new LinkedHashSet<>();
+            for (RelationLazy<?> member : members) {
+                if (member.isLoaded()) continue;
+                Object key = ownerColumn.get(member.owner());
+                if (key == null) continue;
+
+                Optional<? extends DatabaseModel> cached = cacheable ? EntityCache.find(relation.targetClass(), key) : Optional.empty();
+                if (cached.isPresent()) {
+                    member.complete(cached.get());
+                } else {
+                    keys.add(key);
+                }
+            }
+
+            long version = EntityCache.version(relation.targetClass());
+            Map<Object, List<DatabaseModel>> targets = keys.isEmpty() ? Map.of() : loadTargets(owner, relation, ownerColumn, keys);
+            if (cacheable) {
+                targets.values().forEach(models -> models.forEach(model -> EntityCache.store(model, version)));
+            }
+
+            for (RelationLazy<?> member : members) {
+                if (member.isLoaded()) continue;
+                Object key = ownerColumn.get(member.owner());
+                List<DatabaseModel> matches = key == null ? List.of() : targets.getOrDefault(normalize(key), List.of());
+                member.complete(relation.list() ? new ArrayList<>(matches) : matches.isEmpty() ? null : matches.getFirst());
+            }
+        } catch (IllegalAccessException | FishSQLException e) {
+            throw new RuntimeException(e);
+        } finally {
+            // a lazy that failed to load still references the batch, which must not keep its siblings alive
+            members.clear();
+        }
+    }
+
+    /**
+     * Whether the relation points to a single target by its sole primary key, so targets can be taken from the current
+     * {@link Session} or the {@link EntityCache}.
+     */
+    private boolean referencesPrimaryKey() {
+        if (relation.list() || relation.linked()) return false;
+
+        List<EntityMetadata.ColumnMetadata> primaryKeys = EntityMetadata.of(relation.targetClass()).primaryKeys();
+        return primaryKeys.size() == 1 && primaryKeys.getFirst().name().equals(ownerColumn.foreignKey().targetColumn());
+    }
+
+    /**
+     * Loads the targets of all {@code keys} with one query, grouped by the {@link #normalize(Object) normalized} key
+     * they belong to. Relations with a link table are joined through it.
+     */
+    static Map<Object, List<DatabaseModel>> loadTargets(EntityMetadata<?> owner, EntityMetadata.RelationMetadata relation,
+                                                        EntityMetadata.ColumnMetadata ownerColumn, Collection<?> keys) throws FishSQLException {
+        Class<? extends DatabaseModel> targetClass = relation.targetClass();
+        EntityMetadata<?> target = EntityMetadata.of(targetClass);
+        Map<Object, List<DatabaseModel>> targets = new HashMap<>();
+
+        if (!relation.linked()) {
+            String targetColumnName = ownerColumn.foreignKey().targetColumn();
+            EntityMetadata.ColumnMetadata targetColumn = target.columnNamed(targetColumnName)
+                    .orElseThrow(() -> new RuntimeException(STR."\{targetClass.getName()} has no column \{targetColumnName}"));
+
+            List<? extends DatabaseModel> loaded = DatabaseProvider.getDatabase().executeQuery(
+                    QueryBuilder.select("*").from(targetClass).where(where -> where.in(targetColumnName, SqlArray.of(ownerColumn.type(), keys))),
+                    targetClass);
+            try {
+                for (DatabaseModel model : loaded) {
+                    targets.computeIfAbsent(normalize(targetColumn.get(model)), _ -> new ArrayList<>()).add(model);
+                }
+            } catch (IllegalAccessException e) {
+                throw new FishSQLException(e);
+            }
+            return targets;
+        }
+
+        String linkTable = relation.lazyLoaded().linkTable();
+        String linkColumn = STR."\{linkTable}.\{relation.linkColumn(owner.tableName())}";
+        SelectQueryBuilder queryBuilder = QueryBuilder.select(STR."\{target.tableName()}.*, \{linkColumn} AS \{OWNER_LABEL}")
+                .from(target.tableName())
+                .join(linkTable, relation.targetColumn().name(), relation.linkTargetColumn())
+                .where(where -> where.in(linkColumn, SqlArray.of(ownerColumn.type(), keys)));
+
+        FishDatabase fishDatabase = DatabaseProvider.getDatabase();
+        RowMapper<? extends DatabaseModel> rowMapper = new ObjectMapper(targetClass).rowMapper();
+        List<DatabaseModel> loaded = new ArrayList<>();
+        try (AbstractQueryBuilder.BuiltQuery query = queryBuilder.build(fishDatabase)) {
+            ResultSet resultSet = query.execute();
+            ColumnPlan plan = ColumnPlan.resolve(resultSet, target);
+            int ownerIndex = resultSet.findColumn(OWNER_LABEL);
+            while (resultSet.next()) {
+                DatabaseModel model = Session.canonical(rowMapper.mapRow(resultSet, plan));
+                targets.computeIfAbsent(normalize(resultSet.getObject(ownerIndex)), _ -> new ArrayList<>()).add(model);
+                loaded.add(model);
+            }
+        } catch (SQLException e) {
+            throw new FishSQLException(e);
+        }
+        attach(loaded, target);
+        return targets;
+    }
+
+    /**
+     * Integral keys are compared by value, so an {@code int} foreign key matches a {@code long} primary key.
+     */
+    static Object normalize(Object key) {
+        return switch (key) {
+            case Byte _, Short _, Integer _ -> ((Number) key).longValue();
+            case null, default -> key;
+        };
+    }
+}
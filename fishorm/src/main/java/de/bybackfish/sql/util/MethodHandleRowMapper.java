@@ -0,0 +1,124 @@
+package de.bybackfish.sql.util;
+
+import de.bybackfish.sql.core.DatabaseModel;
+import de.bybackfish.sql.core.FishSQLException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * Composes one {@link MethodHandle} per model that reads every column from the {@link ResultSet} and assigns it
+ * directly, and one that constructs the instance. Both are handed to a hidden class defined from
+ * {@link RowWriterTemplate}, which holds them in {@code static final} fields, so every {@code invokeExact} site is a
+ * constant the JIT can inline through instead of dispatching through {@link java.lang.reflect.Field#set} per column.
+ * <p>
+ * {@code int}, {@code long} and {@code double} columns are read with the typed getters and never boxed.
+ */
+class MethodHandleRowMapper<T extends DatabaseModel> implements RowMapper<T> {
+    private static final MethodType ROW_TYPE = MethodType.methodType(void.class, Object.class, ResultSet.class, ColumnPlan.class);
+
+    private final EntityMetadata<T> metadata;
+    private final RowWriter writer;
+
+    MethodHandleRowMapper(EntityMetadata<T> metadata) throws ReflectiveOperationException {
+        this.metadata = metadata;
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle constructor = lookup.unreflectConstructor(metadata.constructor()).asType(MethodType.methodType(Object.class));
+        MethodHandle index = lookup.findVirtual(ColumnPlan.class, "index", MethodType.methodType(int.class, int.class));
+
+        MethodHandle rowWriter = MethodHandles.empty(ROW_TYPE);
+        List<EntityMetadata.ColumnMetadata> columns = metadata.columns();
+        for (int i = columns.size() - 1; i >= 0; i--) {
+            rowWriter = MethodHandles.foldArguments(rowWriter, columnWriter(lookup, columns.get(i), MethodHandles.insertArguments(index, 1, i)));
+        }
+        List<EntityMetadata.RelationMetadata> relations = metadata.relations();
+        MethodHandle createLazy = lookup.findStatic(ObjectMapper.class, "createLazy",
+                MethodType.methodType(Lazy.class, DatabaseModel.class, EntityMetadata.RelationMetadata.class));
+        for (int i = relations.size() - 1; i >= 0; i--) {
+            rowWriter = MethodHandles.foldArguments(rowWriter, relationWriter(lookup, relations.get(i), createLazy));
+        }
+
+        MethodHandles.Lookup hidden = lookup.defineHiddenClassWithClassData(template(), List.of(constructor, rowWriter), true);
+        try {
+            this.writer = (RowWriter) hidden.findConstructor(hidden.lookupClass(), MethodType.methodType(void.class)).invoke();
+        } catch (ReflectiveOperationException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * {@code (Object model, ResultSet, ColumnPlan) -> void}, assigning the column read at {@code plan.index(i)}.
+     */
+    private static MethodHandle columnWriter(MethodHandles.Lookup lookup, EntityMetadata.ColumnMetadata column, MethodHandle index)
+            throws ReflectiveOperationException {
+        Class<?> type = column.type();
+        String reader = type == int.class ? "readInt" : type == long.class ? "readLong" : type == double.class ? "readDouble" : "read";
+        Class<?> valueType = reader.equals("read") ? Object.class : type;
+
+        // (ResultSet, int) -> value, then (ResultSet, ColumnPlan) -> value
+        MethodHandle read = lookup.findVirtual(EntityMetadata.ColumnMetadata.class, reader,
+                MethodType.methodType(valueType, ResultSet.class, int.class)).bindTo(column);
+        read = MethodHandles.collectArguments(read, 1, index);
+
+        MethodHandle setter = lookup.unreflectSetter(column.field()).asType(MethodType.methodType(void.class, Object.class, valueType));
+        return MethodHandles.collectArguments(setter, 1, read);
+    }
+
+    /**
+     * {@code (Object model, ResultSet, ColumnPlan) -> void}, assigning a new lazy of {@code relation}.
+     */
+    private static MethodHandle relationWriter(MethodHandles.Lookup lookup, EntityMetadata.RelationMetadata relation, MethodHandle createLazy)
+            throws ReflectiveOperationException {
+        MethodHandle lazy = MethodHandles.insertArguments(createLazy, 1, relation).asType(MethodType.methodType(Object.class, Object.class));
+        MethodHandle setter = lookup.unreflectSetter(relation.field()).asType(MethodType.methodType(void.class, Object.class, Object.class));
+
+        // (Object model, Object model) -> void, then (Object model) -> void
+        MethodHandle writer = MethodHandles.collectArguments(setter, 1, lazy);
+        writer = MethodHandles.permuteArguments(writer, MethodType.methodType(void.class, Object.class), 0, 0);
+        return MethodHandles.dropArguments(writer, 1, ResultSet.class, ColumnPlan.class);
+    }
+
+    private static byte[] template() {
+        try (InputStream stream = MethodHandleRowMapper.class.getResourceAsStream("RowWriterTemplate.class")) {
+            if (stream == null) {
+                throw new IllegalStateException("RowWriterTemplate.class not found");
+            }
+            return stream.readAllBytes();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T mapRow(ResultSet resultSet, ColumnPlan plan) throws FishSQLException {
+        try {
+            Object obj = writer.newInstance();
+            writer.write(obj, resultSet, plan);
+            return (T) obj;
+        } catch (Error | FishSQLException e) {
+            throw e;
+        } catch (Throwable e) {
+            FishSQLException exception = new FishSQLException(STR."Failed to map row to \{metadata.type().getName()}");
+            exception.initCause(e);
+            throw exception;
+        }
+    }
+
+    /**
+     * Implemented by the hidden classes defined from {@link RowWriterTemplate}.
+     */
+    interface RowWriter {
+        Object newInstance() throws Throwable;
+
+        void write(Object model, ResultSet resultSet, ColumnPlan plan) throws Throwable;
+    }
+}
@@ -0,0 +1,416 @@
+package de.bybackfish.sql.util;
+
+import de.bybackfish.sql.annotation.Default;
+import de.bybackfish.sql.core.DatabaseModel;
+import de.bybackfish.sql.core.FishSQLException;
+import de.bybackfish.sql.core.Session;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class ObjectMapper {
+
+    private final static Set<Class<?>> NUMBER_REFLECTED_PRIMITIVES;
+
+    static {
+        Set<Class<?>> s = new HashSet<>();
+        s.add(byte.class);
+        s.add(short.class);
+        s.add(int.class);
+        s.add(long.class);
+        s.add(float.class);
+        s.add(double.class);
+        NUMBER_REFLECTED_PRIMITIVES = s;
+    }
+
+    private static final Map<Class<?>, RowMapper<?>> GENERATED_MAPPERS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, RowMapper<?>> METHOD_HANDLE_MAPPERS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, RowMapper<?>> REFLECTIVE_MAPPERS = new ConcurrentHashMap<>();
+
+    private static volatile Backend defaultBackend = Backend.GENERATED;
+
+    private final Class<? extends DatabaseModel> clazz;
+    private final Backend backend;
+    private final boolean partial;
+
+    public ObjectMapper(Class<? extends DatabaseModel> clazz) {
+        this(clazz, defaultBackend);
+    }
+
+    public ObjectMapper(Class<? extends DatabaseModel> clazz, Backend backend) {
+        this(clazz, backend, false);
+    }
+
+    /**
+     * @param partial whether the mapped queries select only some columns of the model, see {@link ColumnPlan}
+     */
+    public ObjectMapper(Class<? extends DatabaseModel> clazz, Backend backend, boolean partial) {
+        this.clazz = clazz;
+        this.backend = backend;
+        this.partial = partial;
+    }
+
+    /**
+     * Selects the backend used by every {@link ObjectMapper} created without an explicit one.
+     */
+    public static void setDefaultBackend(Backend backend) {
+        defaultBackend = Objects.requireNonNull(backend);
+    }
+
+    public static Backend getDefaultBackend() {
+        return defaultBackend;
+    }
+
+    public static boolean isNumber(Class<?> type) {
+        return Number.class.isAssignableFrom(type) || NUMBER_REFLECTED_PRIMITIVES.contains(type);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends DatabaseModel> RowMapper<T> rowMapper() {
+        return (RowMapper<T>) rowMapper(EntityMetadata.of(clazz), backend);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T extends DatabaseModel> RowMapper<T> rowMapper(EntityMetadata<T> metadata, Backend backend) {
+        if (backend == Backend.REFLECTION) {
+            return (RowMapper<T>) REFLECTIVE_MAPPERS.computeIfAbsent(metadata.type(), _ -> new ReflectiveRowMapper<>(metadata));
+        }
+        if (backend == Backend.GENERATED && metadata.generated().isPresent()) {
+            return (RowMapper<T>) GENERATED_MAPPERS.computeIfAbsent(metadata.type(), _ -> metadata.generated().get().rowMapper(metadata));
+        }
+
+        return (RowMapper<T>) METHOD_HANDLE_MAPPERS.computeIfAbsent(metadata.type(), _ -> {
+            try {
+                return new MethodHandleRowMapper<>(metadata);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // e.g. a final field or a package that is not opened to us, Field#set may still work
+                return rowMapper(metadata, Backend.REFLECTION);
+            }
+        });
+    }
+
+    public <T extends DatabaseModel> List<T> map(ResultSet resultSet) throws FishSQLException {
+        RowMapper<T> rowMapper = rowMapper();
+
+        List<T> list = new ArrayList<>();
+        try {
+            ColumnPlan plan = resolvePlan(resultSet, EntityMetadata.of(clazz));
+            while (resultSet.next()) {
+                list.add(Session.canonical(rowMapper.mapRow(resultSet, plan)));
+            }
+            LazyBatch.attach(list, EntityMetadata.of(clazz));
+        } catch (FishSQLException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new FishSQLException(e);
+        }
+
+        return list;
+    }
+
+    /**
+     * Decodes the result of a query with fetched relations, see {@link de.bybackfish.sql.query.SelectQueryBuilder#fetch(String...)}.
+     * Rows of the same model, identified by its primary keys, are merged, and the joined models are collected into
+     * its already loaded relations. Models without primary keys are never merged.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends DatabaseModel> List<T> mapFetched(ResultSet resultSet, List<String> fetches) throws FishSQLException {
+        EntityMetadata<T> metadata = (EntityMetadata<T>) EntityMetadata.of(clazz);
+        RowMapper<T> rowMapper = rowMapper();
+
+        int size = fetches.size();
+        FetchedRelation[] relations = new FetchedRelation[size];
+        RowMapper<?>[] targetMappers = new RowMapper<?>[size];
+        for (int i = 0; i < size; i++) {
+            relations[i] = FetchedRelation.of(metadata, fetches.get(i));
+            targetMappers[i] = new ObjectMapper(relations[i].relation().targetClass(), backend).rowMapper();
+        }
+
+        Map<Object, T> models = new LinkedHashMap<>();
+        Map<T, Map<Object, DatabaseModel>[]> targetsByModel = new IdentityHashMap<>();
+        List<List<DatabaseModel>> allTargets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            allTargets.add(new ArrayList<>());
+        }
+
+        try {
+            ColumnPlan plan = resolvePlan(resultSet, metadata);
+            ColumnPlan[] targetPlans = new ColumnPlan[size];
+            int[] joinColumns = new int[size];
+            for (int i = 0; i < size; i++) {
+                EntityMetadata<?> target = relations[i].target();
+                targetPlans[i] = ColumnPlan.resolve(resultSet, target, relations[i].alias());
+                joinColumns[i] = targetPlans[i].index(target.columns().indexOf(relations[i].targetColumn()));
+            }
+
+            while (resultSet.next()) {
+                Object key = primaryKey(resultSet, metadata, plan);
+                T model = key != null ? models.get(key) : null;
+                if (model == null) {
+                    model = Session.canonical(rowMapper.mapRow(resultSet, plan));
+                    models.put(key != null ? key : new Object(), model);
+                }
+
+                Map<Object, DatabaseModel>[] targets = targetsByModel.computeIfAbsent(model, _ -> new Map[size]);
+                for (int i = 0; i < size; i++) {
+                    if (targets[i] == null) {
+                        targets[i] = new LinkedHashMap<>();
+                    }
+                    // a LEFT JOIN without a match leaves the join column NULL
+                    if (joinColumns[i] == 0 || resultSet.getObject(joinColumns[i]) == null) continue;
+
+                    Object targetKey = primaryKey(resultSet, relations[i].target(), targetPlans[i]);
+                    if (targetKey != null && targets[i].containsKey(targetKey)) continue;
+
+                    DatabaseModel target = Session.canonical(targetMappers[i].mapRow(resultSet, targetPlans[i]));
+                    targets[i].put(targetKey != null ? targetKey : new Object(), target);
+                    allTargets.get(i).add(target);
+                }
+            }
+
+            for (Map.Entry<T, Map<Object, DatabaseModel>[]> entry : targetsByModel.entrySet()) {
+                for (int i = 0; i < size; i++) {
+                    EntityMetadata.RelationMetadata relation = relations[i].relation();
+                    Collection<DatabaseModel> targets = entry.getValue()[i].values();
+                    if (relation.get(entry.getKey()) instanceof RelationLazy<?> lazy) {
+                        lazy.complete(relation.list() ? new ArrayList<>(targets) : targets.stream().findFirst().orElse(null));
+                    }
+                }
+            }
+        } catch (FishSQLException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new FishSQLException(e);
+        }
+
+        List<T> list = new ArrayList<>(models.values());
+        LazyBatch.attach(list, metadata);
+        for (int i = 0; i < size; i++) {
+            LazyBatch.attach(allTargets.get(i), relations[i].target());
+        }
+        return list;
+    }
+
+    /**
+     * Decodes the result of a query fetching relations as JSON documents, see
+     * {@link de.bybackfish.sql.query.FetchMode#JSON}. Every row holds one model and one document per fetched relation.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends DatabaseModel> List<T> mapGraph(ResultSet resultSet, List<String> fetches) throws FishSQLException {
+        EntityMetadata<T> metadata = (EntityMetadata<T>) EntityMetadata.of(clazz);
+        RowMapper<T> rowMapper = rowMapper();
+        List<FetchGraph> graphs = List.copyOf(FetchGraph.of(metadata, fetches).values());
+
+        List<T> list = new ArrayList<>();
+        Map<FetchGraph, List<DatabaseModel>> loaded = new IdentityHashMap<>();
+        try {
+            ColumnPlan plan = resolvePlan(resultSet, metadata);
+            int[] documentIndexes = new int[graphs.size()];
+            for (int i = 0; i < graphs.size(); i++) {
+                documentIndexes[i] = resultSet.findColumn(graphs.get(i).relation().alias());
+            }
+
+            while (resultSet.next()) {
+                T model = Session.canonical(rowMapper.mapRow(resultSet, plan));
+                for (int i = 0; i < graphs.size(); i++) {
+                    graphs.get(i).complete(model, Json.parse(resultSet.getString(documentIndexes[i])), loaded);
+                }
+                list.add(model);
+            }
+        } catch (FishSQLException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new FishSQLException(e);
+        }
+
+        LazyBatch.attach(list, metadata);
+        loaded.forEach((graph, models) -> LazyBatch.attach(models, graph.relation().target()));
+        return list;
+    }
+
+    private ColumnPlan resolvePlan(ResultSet resultSet, EntityMetadata<?> metadata) throws SQLException {
+        return ColumnPlan.resolve(resultSet, metadata, metadata.tableName(), partial);
+    }
+
+    /**
+     * @return the primary key values of the current row, {@code null} if the model has no primary key
+     */
+    private static Object primaryKey(ResultSet resultSet, EntityMetadata<?> metadata, ColumnPlan plan) throws SQLException {
+        List<EntityMetadata.ColumnMetadata> primaryKeys = metadata.primaryKeys();
+        if (primaryKeys.isEmpty()) return null;
+
+        List<EntityMetadata.ColumnMetadata> columns = metadata.columns();
+        List<Object> key = new ArrayList<>(primaryKeys.size());
+        for (EntityMetadata.ColumnMetadata primaryKey : primaryKeys) {
+            int index = plan.index(columns.indexOf(primaryKey));
+            if (index == 0) return null;
+            key.add(resultSet.getObject(index));
+        }
+        return key.size() == 1 ? key.getFirst() : key;
+    }
+
+    /**
+     * Lazily decodes the rows of a forward-only result set. Closing the stream closes the result set. Relations of
+     * streamed models are loaded one model at a time.
+     */
+    public <T extends DatabaseModel> Stream<T> stream(ResultSet resultSet) throws FishSQLException {
+        RowMapper<T> rowMapper = rowMapper();
+
+        ColumnPlan plan;
+        try {
+            plan = resolvePlan(resultSet, EntityMetadata.of(clazz));
+        } catch (FishSQLException e) {
+            throw e;
+        } catch (SQLException e) {
+            throw new FishSQLException(e);
+        }
+
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!resultSet.next()) return false;
+                    action.accept(Session.canonical(rowMapper.mapRow(resultSet, plan)));
+                    return true;
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                resultSet.close();
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    /**
+     * Decodes one instance of every model from each row, reading the result set exactly once.
+     */
+    public static List<JointClasses.JointRow> mapJoint(ResultSet resultSet, List<Class<? extends DatabaseModel>> classes) throws FishSQLException {
+        int size = classes.size();
+        List<RowMapper<?>> rowMappers = new ArrayList<>(size);
+        for (Class<? extends DatabaseModel> clazz : classes) {
+            rowMappers.add(new ObjectMapper(clazz).rowMapper());
+        }
+
+        List<JointClasses.JointRow> list = new ArrayList<>();
+        try {
+            ColumnPlan[] plans = new ColumnPlan[size];
+            for (int i = 0; i < size; i++) {
+                plans[i] = ColumnPlan.resolve(resultSet, EntityMetadata.of(classes.get(i)));
+            }
+
+            while (resultSet.next()) {
+                DatabaseModel[] models = new DatabaseModel[size];
+                for (int i = 0; i < size; i++) {
+                    models[i] = Session.canonical(rowMappers.get(i).mapRow(resultSet, plans[i]));
+                }
+                list.add(new JointClasses.JointRow(List.of(models)));
+            }
+
+            for (int i = 0; i < size; i++) {
+                int column = i;
+                LazyBatch.attach(list.stream().map(row -> row.models().get(column)).toList(), EntityMetadata.of(classes.get(i)));
+            }
+        } catch (FishSQLException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new FishSQLException(e);
+        }
+
+        return list;
+    }
+
+    /**
+     * Creates the {@link Lazy} for a relation of {@code obj}. Lazies of models mapped by {@link #map(ResultSet)} are
+     * loaded together, see {@link LazyBatch}.
+     */
+    public static Lazy<?> createLazy(DatabaseModel obj, EntityMetadata.RelationMetadata relation) {
+        return new RelationLazy<>(obj, relation);
+    }
+
+    Object getDefaultValue(Field field, Default defaultValue) {
+        return defaultValueOf(field.getType(), defaultValue);
+    }
+
+    public Object getDefaultValue(Field field) {
+        return defaultValueOf(field.getType());
+    }
+
+    static Object defaultValueOf(Class<?> type, Default defaultValue) {
+        if (isNumber(type)) {
+            return defaultValue.numberValue();
+        } else if (type.equals(Boolean.class) || type.equals(boolean.class)) {
+            return defaultValue.booleanValue();
+        } else if (type.equals(String.class)) {
+            return defaultValue.stringValue();
+        }
+        return null;
+    }
+
+    static Object defaultValueOf(Class<?> type) {
+        if (isNumber(type)) {
+            return 0;
+        } else if (type.equals(Boolean.class) || type.equals(boolean.class)) {
+            return false;
+        } else if (type.equals(String.class)) {
+            return "";
+        }
+
+        return null;
+    }
+
+    public static boolean isListGeneric(Field field) {
+        Type fieldType = field.getGenericType();
+
+        if (fieldType instanceof ParameterizedType) {
+            ParameterizedType parameterizedType = (ParameterizedType) fieldType;
+            Type[] typeArguments = parameterizedType.getActualTypeArguments();
+
+            if (typeArguments.length > 0) {
+                Type firstTypeArgument = typeArguments[0];
+                if (firstTypeArgument instanceof ParameterizedType) {
+                    ParameterizedType innerParameterizedType = (ParameterizedType) firstTypeArgument;
+                    Type rawType = innerParameterizedType.getRawType();
+                    if (rawType instanceof Class && List.class.isAssignableFrom((Class<?>) rawType)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * How rows are written into model instances.
+     */
+    public enum Backend {
+        /**
+         * {@link java.lang.reflect.Field#set} per column.
+         */
+        REFLECTION,
+        /**
+         * A composed {@link java.lang.invoke.MethodHandle} per model, held as a constant by a hidden class, see
+         * {@link MethodHandleRowMapper}. Falls back to {@link #REFLECTION} when the model's fields cannot be
+         * unreflected.
+         */
+        METHOD_HANDLE,
+        /**
+         * The model's {@link GeneratedModel} mapper if the annotation processor generated one, otherwise
+         * {@link #METHOD_HANDLE}.
+         */
+        GENERATED
+    }
+}
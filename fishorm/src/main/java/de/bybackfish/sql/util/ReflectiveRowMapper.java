@@ -0,0 +1,51 @@
+package de.bybackfish.sql.util;
+
+import de.bybackfish.sql.core.DatabaseModel;
+import de.bybackfish.sql.core.FishSQLException;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Assigns every column through {@link java.lang.reflect.Field#set}, or the typed setters for {@code int},
+ * {@code long} and {@code double} fields. Used as the fallback backend.
+ */
+class ReflectiveRowMapper<T extends DatabaseModel> implements RowMapper<T> {
+    private final EntityMetadata<T> metadata;
+
+    ReflectiveRowMapper(EntityMetadata<T> metadata) {
+        this.metadata = metadata;
+    }
+
+    @Override
+    public T mapRow(ResultSet resultSet, ColumnPlan plan) throws FishSQLException {
+        try {
+            T obj = metadata.newInstance();
+
+            List<EntityMetadata.ColumnMetadata> columns = metadata.columns();
+            for (int i = 0; i < columns.size(); i++) {
+                EntityMetadata.ColumnMetadata column = columns.get(i);
+                Class<?> type = column.type();
+                int index = plan.index(i);
+                if (type == int.class) {
+                    column.field().setInt(obj, column.readInt(resultSet, index));
+                } else if (type == long.class) {
+                    column.field().setLong(obj, column.readLong(resultSet, index));
+                } else if (type == double.class) {
+                    column.field().setDouble(obj, column.readDouble(resultSet, index));
+                } else {
+                    column.field().set(obj, column.read(resultSet, index));
+                }
+            }
+
+            for (EntityMetadata.RelationMetadata relation : metadata.relations()) {
+                relation.field().set(obj, ObjectMapper.createLazy(obj, relation));
+            }
+
+            return obj;
+        } catch (ReflectiveOperationException | SQLException e) {
+            throw new FishSQLException(e);
+        }
+    }
+}
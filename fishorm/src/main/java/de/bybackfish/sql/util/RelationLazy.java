@@ -0,0 +1,101 @@
+package de.bybackfish.sql.util;
+
+import de.bybackfish.sql.core.DatabaseModel;
+import de.bybackfish.sql.core.FishSQLException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@link Lazy} behind a {@link de.bybackfish.sql.annotation.LazyLoaded} field. Once it is part of a
+ * {@link LazyBatch}, loading it loads the relation of every sibling that was mapped from the same result.
+ */
+final class RelationLazy<T> extends Lazy<T> {
+    private final DatabaseModel owner;
+    private final EntityMetadata.RelationMetadata relation;
+    // read without a lock, and completed by whichever thread loads the batch
+    private volatile LazyBatch batch;
+    private volatile T value;
+    private volatile boolean loaded;
+
+    RelationLazy(DatabaseModel owner, EntityMetadata.RelationMetadata relation) {
+        this.owner = owner;
+        this.relation = relation;
+    }
+
+    DatabaseModel owner() {
+        return owner;
+    }
+
+    void joinBatch(LazyBatch batch) {
+        if (!loaded) {
+            this.batch = batch;
+        }
+    }
+
+    @Override
+    public T get() {
+        if (!loaded) load();
+        return value;
+    }
+
+    @Override
+    void load() {
+        LazyBatch batch = this.batch;
+        if (batch != null) {
+            batch.load();
+            if (loaded) return;
+        }
+
+        try {
+            if (relation.linked()) {
+                complete(loadLinked());
+                return;
+            }
+            complete(relation.list()
+                    ? owner.linkMany(relation.targetClass(), relation.lazyLoaded().value())
+                    : owner.linkOne(relation.targetClass(), relation.lazyLoaded().value()));
+        } catch (FishSQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Object loadLinked() throws FishSQLException {
+        EntityMetadata<?> metadata = EntityMetadata.of(owner.getClass());
+        EntityMetadata.ColumnMetadata ownerColumn = LazyBatch.ownerColumn(metadata, relation)
+                .orElseThrow(() -> new FishSQLException(STR."\{owner.getClass().getName()} has no field \{relation.lazyLoaded().value()}"));
+
+        Object key;
+        try {
+            key = ownerColumn.get(owner);
+        } catch (IllegalAccessException e) {
+            throw new FishSQLException(e);
+        }
+
+        List<DatabaseModel> targets = key == null ? List.of()
+                : LazyBatch.loadTargets(metadata, relation, ownerColumn, List.of(key)).getOrDefault(LazyBatch.normalize(key), List.of());
+        return relation.list() ? new ArrayList<>(targets) : targets.isEmpty() ? null : targets.getFirst();
+    }
+
+    @SuppressWarnings("unchecked")
+    void complete(Object value) {
+        this.value = (T) value;
+        this.loaded = true;
+        this.batch = null;
+    }
+
+    /**
+     * Forgets the loaded value. The next {@link #get()} loads this relation on its own, outside of its batch.
+     */
+    @Override
+    public void reset() {
+        value = null;
+        loaded = false;
+        batch = null;
+    }
+
+    @Override
+    public boolean isLoaded() {
+        return loaded;
+    }
+}
@@ -0,0 +1,16 @@
+package de.bybackfish.sql.util;
+
+import de.bybackfish.sql.core.DatabaseModel;
+import de.bybackfish.sql.core.FishSQLException;
+
+import java.sql.ResultSet;
+
+/**
+ * Decodes the current row of a {@link ResultSet} into a new model instance.
+ *
+ * @see ObjectMapper.Backend
+ */
+@FunctionalInterface
+public interface RowMapper<T extends DatabaseModel> {
+    T mapRow(ResultSet resultSet, ColumnPlan plan) throws FishSQLException;
+}
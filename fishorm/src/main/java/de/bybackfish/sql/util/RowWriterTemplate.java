@@ -0,0 +1,36 @@
+package de.bybackfish.sql.util;
+
+import java.lang.constant.ConstantDescs;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.sql.ResultSet;
+
+/**
+ * The class file {@link MethodHandleRowMapper} defines once per model as a hidden class, with the model's handles as
+ * class data. Static finals of hidden classes are trusted as constants, so the JIT inlines the handles into
+ * {@link #newInstance()} and {@link #write(Object, ResultSet, ColumnPlan)}. The template itself is never loaded.
+ */
+final class RowWriterTemplate implements MethodHandleRowMapper.RowWriter {
+    private static final MethodHandle CONSTRUCTOR;
+    private static final MethodHandle WRITER;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            CONSTRUCTOR = MethodHandles.classDataAt(lookup, ConstantDescs.DEFAULT_NAME, MethodHandle.class, 0);
+            WRITER = MethodHandles.classDataAt(lookup, ConstantDescs.DEFAULT_NAME, MethodHandle.class, 1);
+        } catch (IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Override
+    public Object newInstance() throws Throwable {
+        return (Object) CONSTRUCTOR.invokeExact();
+    }
+
+    @Override
+    public void write(Object model, ResultSet resultSet, ColumnPlan plan) throws Throwable {
+        WRITER.invokeExact(model, resultSet, plan);
+    }
+}
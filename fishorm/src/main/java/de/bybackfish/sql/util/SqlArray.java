@@ -0,0 +1,66 @@
+package de.bybackfish.sql.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * A parameter bound as one typed SQL array through {@link java.sql.Connection#createArrayOf(String, Object[])}.
+ * <p>
+ * An array without element type is bound as an untyped array literal instead, which the server types after the
+ * column it is compared with. Enum constants are bound that way, since their SQL type is not known.
+ *
+ * @param elementType the SQL element type name, e.g. {@code int8}, or {@code null} for an untyped array
+ */
+public record SqlArray(String elementType, Object[] elements) {
+
+    /**
+     * Creates an array typed after its first non-null element, see {@link #of(Class, Collection)}.
+     */
+    public static SqlArray of(Collection<?> values) {
+        Class<?> elementClass = values.stream().filter(Objects::nonNull).findFirst().<Class<?>>map(Object::getClass).orElse(String.class);
+        return of(elementClass, values);
+    }
+
+    /**
+     * Creates an array of the SQL type of {@code elementClass}, see {@link SqlTypes#arrayElementType(Class)}, or an
+     * untyped array for enums.
+     */
+    public static SqlArray of(Class<?> elementClass, Collection<?> values) {
+        return of(elementClass.isEnum() ? null : SqlTypes.arrayElementType(elementClass), values);
+    }
+
+    public static SqlArray of(String elementType, Collection<?> values) {
+        Object[] elements = values.stream().map(value -> value instanceof Enum<?> enumValue ? enumValue.name() : value).toArray();
+        return new SqlArray(elementType, elements);
+    }
+
+    public int size() {
+        return elements.length;
+    }
+
+    public boolean typed() {
+        return elementType != null;
+    }
+
+    /**
+     * The elements as an array literal, e.g. {@code {"A","B",NULL}}.
+     */
+    public String literal() {
+        StringBuilder literal = new StringBuilder("{");
+        for (int i = 0; i < elements.length; i++) {
+            if (i > 0) literal.append(',');
+            if (elements[i] == null) {
+                literal.append("NULL");
+            } else {
+                literal.append('"').append(elements[i].toString().replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+            }
+        }
+        return literal.append('}').toString();
+    }
+
+    @Override
+    public String toString() {
+        return STR."\{typed() ? elementType : "untyped"}\{Arrays.toString(elements)}";
+    }
+}
@@ -0,0 +1,140 @@
+package de.bybackfish.sql.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.*;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Maps Java types to the SQL type names expected by {@link java.sql.Connection#createArrayOf(String, Object[])}, and
+ * renders values as SQL literals.
+ */
+public class SqlTypes {
+    private static final Map<Class<?>, String> ARRAY_ELEMENT_TYPES = Map.ofEntries(
+            Map.entry(Short.class, "int2"),
+            Map.entry(short.class, "int2"),
+            Map.entry(Integer.class, "int4"),
+            Map.entry(int.class, "int4"),
+            Map.entry(Long.class, "int8"),
+            Map.entry(long.class, "int8"),
+            Map.entry(Float.class, "float4"),
+            Map.entry(float.class, "float4"),
+            Map.entry(Double.class, "float8"),
+            Map.entry(double.class, "float8"),
+            Map.entry(Boolean.class, "bool"),
+            Map.entry(boolean.class, "bool"),
+            Map.entry(BigDecimal.class, "numeric"),
+            Map.entry(String.class, "text"),
+            Map.entry(UUID.class, "uuid"),
+            Map.entry(LocalDate.class, "date"),
+            Map.entry(LocalTime.class, "time"),
+            Map.entry(LocalDateTime.class, "timestamp"),
+            Map.entry(OffsetDateTime.class, "timestamptz"),
+            Map.entry(Instant.class, "timestamptz")
+    );
+
+    /**
+     * @return the element type name for an array of {@code type}, {@code text} for unknown types
+     */
+    public static String arrayElementType(Class<?> type) {
+        return ARRAY_ELEMENT_TYPES.getOrDefault(type, "text");
+    }
+
+    /**
+     * Renders {@code value} as a SQL literal, for statements that cannot bind parameters such as {@code COPY}.
+     * Strings are always quoted, never interpolated, so the result is safe to embed.
+     */
+    public static String literal(Object value) {
+        return switch (value) {
+            case null -> "NULL";
+            case Boolean bool -> bool ? "TRUE" : "FALSE";
+            case Short _, Integer _, Long _, BigInteger _, BigDecimal _ -> value.toString();
+            case Double number when Double.isFinite(number) -> value.toString();
+            case Float number when Float.isFinite(number) -> value.toString();
+            case Double _, Float _ -> STR."\{quote(value.toString())}::\{arrayElementType(value.getClass())}";
+            case byte[] bytes -> STR."E'\\\\x\{HexFormat.of().formatHex(bytes)}'::bytea";
+            case Enum<?> enumValue -> quote(enumValue.name());
+            case SqlArray array when !array.typed() -> quote(array.literal());
+            case SqlArray array -> STR."ARRAY[\{String.join(", ", Arrays.stream(array.elements()).map(SqlTypes::literal).toList())}]::\{array.elementType()}[]";
+            case String text -> quote(text);
+            default -> {
+                String type = ARRAY_ELEMENT_TYPES.get(value.getClass());
+                yield type != null ? STR."\{quote(value.toString())}::\{type}" : quote(value.toString());
+            }
+        };
+    }
+
+    private static String quote(String text) {
+        if (text.indexOf('\0') >= 0) {
+            throw new IllegalArgumentException("SQL literals cannot contain NUL characters");
+        }
+        String quoted = STR."'\{text.replace("'", "''")}'";
+        // E'' keeps backslashes literal regardless of standard_conforming_strings
+        return text.indexOf('\\') >= 0 ? STR."E\{quoted.replace("\\", "\\\\")}" : quoted;
+    }
+
+    /**
+     * @return the number of {@code ?} placeholders outside of quotes and identifiers
+     */
+    public static int countParameters(String sql) {
+        int count = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char character = sql.charAt(i);
+            if (character == '\'' || character == '"') {
+                i = closingQuote(sql, i);
+            } else if (character == '?') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Replaces every {@code ?} placeholder outside of quotes and identifiers with the literal of its parameter.
+     */
+    public static String inlineParameters(String sql, Object... params) {
+        StringBuilder inlined = new StringBuilder(sql.length());
+        int param = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char character = sql.charAt(i);
+            if (character == '\'' || character == '"') {
+                int end = Math.min(closingQuote(sql, i) + 1, sql.length());
+                inlined.append(sql, i, end);
+                i = end - 1;
+            } else if (character == '?') {
+                if (param >= params.length) {
+                    throw new IllegalArgumentException(STR."Not enough parameters for query: \{sql}");
+                }
+                inlined.append(literal(params[param++]));
+            } else {
+                inlined.append(character);
+            }
+        }
+        if (param != params.length) {
+            throw new IllegalArgumentException(STR."Too many parameters for query: \{sql}");
+        }
+        return inlined.toString();
+    }
+
+    /**
+     * @return the index of the quote closing the string or identifier opened at {@code start}, the length of
+     * {@code sql} if it is not closed. In {@code E''} strings, a backslash escapes the next character.
+     */
+    private static int closingQuote(String sql, int start) {
+        char quote = sql.charAt(start);
+        boolean escapes = quote == '\'' && start > 0 && Character.toUpperCase(sql.charAt(start - 1)) == 'E'
+                && (start == 1 || !Character.isJavaIdentifierPart(sql.charAt(start - 2)));
+        for (int i = start + 1; i < sql.length(); i++) {
+            char character = sql.charAt(i);
+            if (escapes && character == '\\') {
+                i++;
+            } else if (character == quote) {
+                return i;
+            }
+        }
+        return sql.length();
+    }
+}
@@ -1,9 +1,14 @@
 module de.bybackfish.fishorm {
     requires java.logging;
     requires java.sql;
+    requires static org.postgresql.jdbc;
 
     exports de.bybackfish.sql.annotation;
     exports de.bybackfish.sql.core;
     exports de.bybackfish.sql.util;
     exports de.bybackfish.sql.query;
+    exports de.bybackfish.sql.codec;
+    exports de.bybackfish.sql.cache;
+
+    uses de.bybackfish.sql.util.GeneratedModel;
 }
\ No newline at end of file
@@ -0,0 +1,148 @@
+package de.bybackfish.sql.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TinyLfuCacheTest {
+    private static TinyLfuCache<String, Integer> weighted(long maximumWeight) {
+        return new TinyLfuCache<>(maximumWeight, Duration.ZERO, (_, value) -> value);
+    }
+
+    @Test
+    void removalListenerSeesInvalidationsButNotReplacements() {
+        List<String> removed = new ArrayList<>();
+        TinyLfuCache<String, Integer> cache = new TinyLfuCache<>(10, Duration.ZERO, (_, value) -> value, removed::add);
+        cache.put("a", 1);
+        cache.put("a", 2);
+        cache.put("b", 1);
+        cache.invalidate("a");
+        cache.invalidateAll(key -> key.equals("b"));
+        cache.invalidate("missing");
+
+        assertEquals(List.of("a", "b"), removed);
+    }
+
+    @Test
+    void removalListenerSeesEvictionsAndRejectedValues() {
+        List<String> removed = new ArrayList<>();
+        TinyLfuCache<String, Integer> cache = new TinyLfuCache<>(5, Duration.ZERO, (_, value) -> value, removed::add);
+        for (int i = 0; i < 20; i++) {
+            cache.put(STR."k\{i}", 1);
+        }
+        assertEquals(15, removed.size());
+        for (String key : removed) {
+            assertNull(cache.get(key));
+        }
+
+        removed.clear();
+        cache.put("heavy", 6);
+        assertEquals(List.of("heavy"), removed);
+    }
+
+    @Test
+    void invalidateThenPutKeepsTheNewValue() {
+        TinyLfuCache<String, Integer> cache = weighted(10);
+        cache.put("a", 1);
+        cache.invalidate("a");
+        cache.put("a", 2);
+
+        assertEquals(2, cache.get("a"));
+        assertEquals(2, cache.weightedSize());
+    }
+
+    @Test
+    void putThenInvalidateRemovesTheValue() {
+        TinyLfuCache<String, Integer> cache = weighted(10);
+        cache.put("a", 1);
+        cache.put("a", 2);
+        cache.invalidate("a");
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.weightedSize());
+    }
+
+    @Test
+    void invalidateAllRemovesOnlyMatchingKeys() {
+        TinyLfuCache<String, Integer> cache = weighted(10);
+        cache.put("a1", 1);
+        cache.put("a2", 1);
+        cache.put("b1", 1);
+        cache.invalidateAll(key -> key.startsWith("a"));
+
+        assertNull(cache.get("a1"));
+        assertNull(cache.get("a2"));
+        assertEquals(1, cache.get("b1"));
+        assertEquals(1, cache.weightedSize());
+    }
+
+    @Test
+    void evictsDownToTheMaximumWeight() {
+        TinyLfuCache<String, Integer> cache = weighted(5);
+        for (int i = 0; i < 20; i++) {
+            cache.put(STR."k\{i}", 1);
+        }
+
+        assertEquals(5, cache.estimatedSize());
+        assertEquals(5, cache.weightedSize());
+        assertEquals(15, cache.stats().evictions());
+    }
+
+    @Test
+    void frequentlyReadEntrySurvivesAScan() {
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(10, Duration.ZERO);
+        cache.put(0, 0);
+        for (int i = 0; i < 5; i++) {
+            cache.get(0);
+        }
+        for (int i = 1; i <= 100; i++) {
+            cache.put(i, i);
+        }
+
+        assertEquals(0, cache.get(0));
+        assertEquals(10, cache.estimatedSize());
+    }
+
+    @Test
+    void candidateMoreFrequentThanTheVictimIsAdmitted() {
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(10, Duration.ZERO);
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, i);
+        }
+        // 100 was seen often before, so it replaces the least recently used entry once it leaves the window
+        for (int i = 0; i < 5; i++) {
+            cache.put(100, 100);
+        }
+        cache.put(101, 101);
+
+        assertEquals(100, cache.get(100));
+        assertEquals(10, cache.estimatedSize());
+    }
+
+    @Test
+    void valueHeavierThanTheMaximumIsNotCachedAndDropsThePreviousValue() {
+        TinyLfuCache<String, Integer> cache = weighted(10);
+        cache.put("a", 1);
+        cache.put("a", 11);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.weightedSize());
+    }
+
+    @Test
+    void expiredEntryIsRemovedOnRead() throws InterruptedException {
+        TinyLfuCache<String, Integer> cache = weighted(10);
+        cache.put("a", 1, Duration.ofNanos(1));
+        cache.put("b", 1);
+        Thread.sleep(1);
+
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.get("b"));
+        assertEquals(1, cache.estimatedSize());
+        assertEquals(new CacheStats(1, 1, 0), cache.stats());
+    }
+}
@@ -0,0 +1,160 @@
+package de.bybackfish.sql.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CopyEncoderTest {
+    private static final int HEADER_LENGTH = 19;
+
+    enum Color {RED}
+
+    @Test
+    void textEscapesAndEncodesNull() throws Exception {
+        assertEquals("1\t\\N\ta\\tb\\nc\\\\\tt\t\\\\x0aff\tRED\n",
+                text(CopyFormat.TEXT, 1, null, "a\tb\nc\\", true, new byte[]{0x0a, (byte) 0xff}, Color.RED));
+    }
+
+    @Test
+    void textWritesArrayLiterals() throws Exception {
+        // the literal escapes the quotes, then the text format escapes the literal's backslashes
+        assertEquals("{\"a\",NULL,\"say \\\\\"hi\\\\\"\"}\n", text(CopyFormat.TEXT, (Object) new String[]{"a", null, "say \"hi\""}));
+        assertEquals("{{\"1\"},{\"2\"}}\n", text(CopyFormat.TEXT, (Object) new Integer[][]{{1}, {2}}));
+    }
+
+    @Test
+    void csvQuotesOnlyWhereNeeded() throws Exception {
+        assertEquals("1,,\"\",\"a,b\",\"say \"\"hi\"\"\",plain\n",
+                text(CopyFormat.CSV, 1, null, "", "a,b", "say \"hi\"", "plain"));
+    }
+
+    @Test
+    void binaryWritesHeaderAndTrailer() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CopyEncoder encoder = CopyEncoder.of(CopyFormat.BINARY, out, List.of(), List.of());
+        encoder.start();
+        encoder.finish();
+
+        byte[] bytes = out.toByteArray();
+        assertEquals("PGCOPY\n\377\r\n\0", new String(bytes, 0, 11, StandardCharsets.ISO_8859_1));
+        assertEquals(HEADER_LENGTH + 2, bytes.length);
+        assertEquals(-1, (short) ((bytes[HEADER_LENGTH] << 8) | (bytes[HEADER_LENGTH + 1] & 0xff)));
+    }
+
+    @Test
+    void binaryEncodesIntegersAndNull() throws Exception {
+        DataInputStream field = binary("int2", (short) -2);
+        assertEquals(2, field.readInt());
+        assertEquals(-2, field.readShort());
+
+        field = binary("int8", 1L << 40);
+        assertEquals(8, field.readInt());
+        assertEquals(1L << 40, field.readLong());
+
+        assertEquals(-1, binary("int4", null).readInt());
+        assertThrows(ArithmeticException.class, () -> binary("int2", 40_000));
+    }
+
+    @Test
+    void binaryEncodesDatesRelativeToThePostgresEpoch() throws Exception {
+        DataInputStream field = binary("date", LocalDate.of(2000, 1, 2));
+        assertEquals(4, field.readInt());
+        assertEquals(1, field.readInt());
+
+        field = binary("date", LocalDate.of(1999, 12, 31));
+        field.readInt();
+        assertEquals(-1, field.readInt());
+
+        field = binary("timestamp", LocalDateTime.of(2000, 1, 1, 0, 0, 1));
+        assertEquals(8, field.readInt());
+        assertEquals(1_000_000, field.readLong());
+
+        field = binary("timestamptz", Instant.parse("1999-12-31T23:59:59.999999Z"));
+        field.readInt();
+        assertEquals(-1, field.readLong());
+    }
+
+    @Test
+    void binaryEncodesNumericInBase10000() throws Exception {
+        assertNumeric(new BigDecimal("12345.678"), 1, 0, 3, 1, 2345, 6780);
+        assertNumeric(new BigDecimal("0.0001"), -1, 0, 4, 1);
+        assertNumeric(-100_000_000L, 2, 0x4000, 0, 1);
+        assertNumeric(0.5, -1, 0, 1, 5000);
+        assertNumeric(BigDecimal.ZERO, 0, 0, 0);
+        assertNumeric(Double.NaN, 0, 0xC000, 0);
+        assertThrows(ArithmeticException.class, () -> binary("numeric", Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    void binaryEncodesUuidsAndJsonb() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        DataInputStream field = binary("uuid", uuid);
+        assertEquals(16, field.readInt());
+        assertEquals(uuid, new UUID(field.readLong(), field.readLong()));
+
+        field = binary("jsonb", "{}");
+        assertEquals(3, field.readInt());
+        assertEquals(1, field.readByte());
+        assertEquals("{}", new String(field.readNBytes(2), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void binaryRejectsValuesOfAnotherType() throws Exception {
+        assertThrows(FishSQLException.class, () -> binary("int4", "1"));
+        assertThrows(FishSQLException.class, () -> binary("float8", BigDecimal.ONE));
+        assertThrows(FishSQLException.class, () -> CopyEncoder.requireBinarySupport(List.of("location"), List.of("point")));
+        CopyEncoder.requireBinarySupport(List.of("id", "name"), List.of("int4", "text"));
+    }
+
+    private static void assertNumeric(Number value, int weight, int sign, int scale, int... digits) throws Exception {
+        DataInputStream field = binary("numeric", value);
+        assertEquals(8 + 2 * digits.length, field.readInt());
+        assertEquals(digits.length, field.readShort());
+        assertEquals(weight, field.readShort());
+        assertEquals(sign, field.readShort() & 0xffff);
+        assertEquals(scale, field.readShort());
+        int[] actual = new int[digits.length];
+        for (int i = 0; i < digits.length; i++) {
+            actual[i] = field.readShort();
+        }
+        assertArrayEquals(digits, actual, Arrays.toString(actual));
+    }
+
+    /**
+     * Encodes a single value as {@code type} and returns the row's field, starting at its length.
+     */
+    private static DataInputStream binary(String type, Object value) throws IOException, FishSQLException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CopyEncoder encoder = CopyEncoder.of(CopyFormat.BINARY, out, List.of("value"), List.of(type));
+        encoder.start();
+        encoder.writeRow(Arrays.asList(value));
+        encoder.finish();
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        in.skipNBytes(HEADER_LENGTH);
+        assertEquals(1, in.readShort());
+        return in;
+    }
+
+    private static String text(CopyFormat format, Object... values) throws IOException, FishSQLException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CopyEncoder encoder = CopyEncoder.of(format, out, List.of(), List.of());
+        encoder.start();
+        encoder.writeRow(Arrays.asList(values));
+        encoder.finish();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
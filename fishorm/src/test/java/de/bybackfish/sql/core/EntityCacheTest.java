@@ -0,0 +1,170 @@
+package de.bybackfish.sql.core;
+
+import de.bybackfish.sql.annotation.Cacheable;
+import de.bybackfish.sql.annotation.PrimaryKey;
+import de.bybackfish.sql.annotation.Table;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityCacheTest {
+    @Cacheable
+    @Table("cached_item")
+    public static class CachedItem extends DatabaseModel {
+        @PrimaryKey
+        public int id;
+        public byte[] data;
+        public List<String> tags;
+    }
+
+    private static CachedItem item(int id) {
+        CachedItem item = new CachedItem();
+        item.id = id;
+        item.data = new byte[]{1, 2};
+        item.tags = new ArrayList<>(List.of("a"));
+        return item;
+    }
+
+    /**
+     * Runs while a statement executes, e.g. a reader loading a row the statement is about to delete.
+     */
+    private Runnable duringWrite = () -> {
+    };
+
+    @BeforeEach
+    void setUp() {
+        EntityCache.of(CachedItem.class).orElseThrow().invalidateAll();
+
+        Connection connection = connection();
+        DatabaseProvider.setup(new DatabaseAdapter() {
+            @Override
+            public void connect(DatabaseOptions databaseOptions) {
+            }
+
+            @Override
+            public void disconnect() {
+            }
+
+            @Override
+            public Connection getConnection() {
+                return connection;
+            }
+        });
+    }
+
+    @Test
+    void storesWithAnUnchangedVersion() {
+        EntityCache.store(item(1), EntityCache.version(CachedItem.class));
+
+        assertTrue(EntityCache.find(CachedItem.class, 1).isPresent());
+        assertTrue(EntityCache.find(CachedItem.class, 1L).isPresent());
+    }
+
+    @Test
+    void skipsStoreAfterAnInvalidationSinceTheVersionWasRead() {
+        long version = EntityCache.version(CachedItem.class);
+        EntityCache.invalidate(item(2));
+        EntityCache.store(item(1), version);
+
+        assertTrue(EntityCache.find(CachedItem.class, 1).isEmpty());
+    }
+
+    @Test
+    void invalidateDropsTheEntry() {
+        EntityCache.store(item(1), EntityCache.version(CachedItem.class));
+        EntityCache.invalidate(item(1));
+
+        assertTrue(EntityCache.find(CachedItem.class, 1).isEmpty());
+    }
+
+    @Test
+    void hitsDoNotShareMutableValues() {
+        CachedItem stored = item(1);
+        EntityCache.store(stored, EntityCache.version(CachedItem.class));
+        stored.data[0] = 9;
+        stored.tags.add("b");
+
+        CachedItem first = EntityCache.find(CachedItem.class, 1).orElseThrow();
+        first.data[1] = 9;
+        first.tags.clear();
+        CachedItem second = EntityCache.find(CachedItem.class, 1).orElseThrow();
+
+        assertNotSame(first, second);
+        assertArrayEquals(new byte[]{1, 2}, second.data);
+        assertEquals(List.of("a"), second.tags);
+    }
+
+    @Test
+    void deleteDropsRowsLoadedWhileItRan() throws FishSQLException {
+        CachedItem item = item(1);
+        EntityCache.store(item, EntityCache.version(CachedItem.class));
+        duringWrite = () -> EntityCache.store(item(1), EntityCache.version(CachedItem.class));
+
+        item.delete();
+        assertTrue(EntityCache.find(CachedItem.class, 1).isEmpty());
+    }
+
+    @Test
+    void deleteAllDropsRowsLoadedWhileItRan() throws FishSQLException {
+        duringWrite = () -> {
+            EntityCache.store(item(1), EntityCache.version(CachedItem.class));
+            EntityCache.store(item(2), EntityCache.version(CachedItem.class));
+        };
+
+        CachedItem.deleteAll(List.of(item(1), item(2)));
+        assertTrue(EntityCache.find(CachedItem.class, 1).isEmpty());
+        assertTrue(EntityCache.find(CachedItem.class, 2).isEmpty());
+    }
+
+    @Test
+    void updateDropsRowsLoadedWhileItRan() throws FishSQLException {
+        duringWrite = () -> EntityCache.store(item(1), EntityCache.version(CachedItem.class));
+
+        item(1).update();
+        assertTrue(EntityCache.find(CachedItem.class, 1).isEmpty());
+    }
+
+    private Connection connection() {
+        Connection[] connection = new Connection[1];
+        connection[0] = proxy(Connection.class, (proxy, method, args) -> switch (method.getName()) {
+            case "prepareStatement" -> statement(connection[0]);
+            case "getAutoCommit" -> true;
+            case "isClosed" -> false;
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            default -> null;
+        });
+        return connection[0];
+    }
+
+    private PreparedStatement statement(Connection connection) {
+        return proxy(PreparedStatement.class, (proxy, method, args) -> switch (method.getName()) {
+            case "executeUpdate" -> {
+                duringWrite.run();
+                yield 1;
+            }
+            case "executeBatch" -> {
+                duringWrite.run();
+                yield new int[0];
+            }
+            case "getConnection" -> connection;
+            case "getFetchSize", "getMaxRows" -> 0;
+            case "isClosed" -> false;
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            default -> null;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, java.lang.reflect.InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(EntityCacheTest.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
@@ -0,0 +1,100 @@
+package de.bybackfish.sql.core;
+
+import de.bybackfish.sql.annotation.AutoGenerated;
+import de.bybackfish.sql.annotation.PrimaryKey;
+import de.bybackfish.sql.annotation.Table;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InsertTest {
+    private static final Map<String, Object> GENERATED = Map.of("id", 7, "revision", 3);
+
+    @Table("generated_item")
+    public static class GeneratedItem extends DatabaseModel {
+        @PrimaryKey
+        @AutoGenerated
+        public int id;
+        @AutoGenerated
+        public Optional<Integer> revision;
+        public String name;
+    }
+
+    @BeforeEach
+    void setUp() {
+        Connection connection = connection();
+        DatabaseProvider.setup(new DatabaseAdapter() {
+            @Override
+            public void connect(DatabaseOptions databaseOptions) {
+            }
+
+            @Override
+            public void disconnect() {
+            }
+
+            @Override
+            public Connection getConnection() {
+                return connection;
+            }
+        });
+    }
+
+    @Test
+    void decodesGeneratedKeysIntoTheModel() throws FishSQLException {
+        GeneratedItem item = new GeneratedItem();
+        item.name = "first";
+        item.insertAndUpdateModel();
+
+        assertEquals(7, item.id);
+        assertEquals(Optional.of(3), item.revision);
+    }
+
+    private static Connection connection() {
+        Connection[] connection = new Connection[1];
+        connection[0] = proxy(Connection.class, (proxy, method, args) -> switch (method.getName()) {
+            case "prepareStatement" -> statement(connection[0]);
+            case "getAutoCommit" -> true;
+            case "isClosed" -> false;
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            default -> null;
+        });
+        return connection[0];
+    }
+
+    private static PreparedStatement statement(Connection connection) {
+        return proxy(PreparedStatement.class, (proxy, method, args) -> switch (method.getName()) {
+            case "executeQuery" -> keys();
+            case "getConnection" -> connection;
+            case "executeUpdate", "getFetchSize", "getMaxRows" -> 0;
+            case "isClosed" -> false;
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            default -> null;
+        });
+    }
+
+    private static ResultSet keys() {
+        int[] row = {-1};
+        return proxy(ResultSet.class, (proxy, method, args) -> switch (method.getName()) {
+            case "next" -> ++row[0] < 1;
+            case "getObject" -> GENERATED.get((String) args[0]);
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            default -> null;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, java.lang.reflect.InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(InsertTest.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
@@ -0,0 +1,112 @@
+package de.bybackfish.sql.core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PooledDatabaseAdapterTest {
+    private static final DatabaseOptions OPTIONS = new DatabaseOptions("localhost", 5432, "fish", "fish", "fish");
+
+    private final AtomicInteger created = new AtomicInteger();
+    private PooledDatabaseAdapter pool;
+
+    @AfterEach
+    void tearDown() throws FishSQLException {
+        if (pool != null) {
+            pool.disconnect();
+        }
+    }
+
+    @Test
+    void fillsToMinimumOnConnect() throws FishSQLException {
+        pool = pool(PoolOptions.defaults().withSize(2, 4));
+        pool.connect(OPTIONS);
+
+        assertEquals(2, pool.getOpenCount());
+        assertEquals(2, pool.getIdleCount());
+        assertEquals(2, created.get());
+    }
+
+    @Test
+    void reusesReleasedConnections() throws FishSQLException {
+        pool = pool(PoolOptions.defaults().withSize(0, 1).withLeaseTimeout(Duration.ofMillis(50)));
+        pool.connect(OPTIONS);
+
+        Connection connection = pool.getConnection();
+        assertEquals(1, pool.getLeasedCount());
+        assertThrows(FishSQLException.class, pool::getConnection);
+
+        pool.releaseConnection(connection);
+        assertEquals(0, pool.getLeasedCount());
+        assertSame(connection, pool.getConnection());
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    void disconnectReturnsThePermitsOfLeasedConnections() throws FishSQLException {
+        pool = pool(PoolOptions.defaults().withSize(0, 1).withLeaseTimeout(Duration.ofMillis(50)));
+        pool.connect(OPTIONS);
+        Connection leased = pool.getConnection();
+
+        pool.disconnect();
+        assertEquals(0, pool.getOpenCount());
+        assertEquals(0, pool.getLeasedCount());
+
+        pool.connect(OPTIONS);
+        Connection connection = pool.getConnection();
+        assertNotSame(leased, connection);
+
+        // handing back the destroyed lease late must not free a second permit
+        pool.releaseConnection(leased);
+        assertThrows(FishSQLException.class, pool::getConnection);
+    }
+
+    @Test
+    void reconnectingKeepsOneHousekeeper() throws Exception {
+        pool = pool(PoolOptions.defaults().withSize(0, 1));
+        pool.connect(OPTIONS);
+        pool.connect(OPTIONS);
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (housekeepers() > 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, housekeepers());
+    }
+
+    private static long housekeepers() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("FishORM-pool-housekeeper") && thread.isAlive())
+                .count();
+    }
+
+    private PooledDatabaseAdapter pool(PoolOptions poolOptions) {
+        return new PooledDatabaseAdapter(_ -> {
+            created.incrementAndGet();
+            return connection();
+        }, poolOptions);
+    }
+
+    private static Connection connection() {
+        boolean[] closed = {false};
+        return (Connection) Proxy.newProxyInstance(PooledDatabaseAdapterTest.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "close" -> {
+                        closed[0] = true;
+                        yield null;
+                    }
+                    case "isClosed" -> closed[0];
+                    case "isValid" -> !closed[0];
+                    case "getAutoCommit" -> true;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+}
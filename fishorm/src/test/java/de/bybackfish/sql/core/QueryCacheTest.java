@@ -0,0 +1,212 @@
+package de.bybackfish.sql.core;
+
+import de.bybackfish.sql.annotation.PrimaryKey;
+import de.bybackfish.sql.annotation.Table;
+import de.bybackfish.sql.query.QueryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCacheTest {
+    private static final List<String> LABELS = List.of("id", "name");
+    private static final List<List<Object>> ROWS = List.of(List.of(1, "first"), List.of(2, "second"));
+
+    private final AtomicInteger queries = new AtomicInteger();
+    private FishDatabase fishDatabase;
+
+    @Table("item")
+    public static class Item extends DatabaseModel {
+        @PrimaryKey
+        public int id;
+        public String name;
+    }
+
+    @BeforeEach
+    void setUp() {
+        Connection connection = connection();
+        DatabaseProvider.setup(new DatabaseAdapter() {
+            @Override
+            public void connect(DatabaseOptions databaseOptions) {
+            }
+
+            @Override
+            public void disconnect() {
+            }
+
+            @Override
+            public Connection getConnection() {
+                return connection;
+            }
+        });
+        fishDatabase = DatabaseProvider.getDatabase();
+    }
+
+    @Test
+    void cachesUntilItsTableIsWritten() throws Exception {
+        assertEquals(1, queriesOf(this::items));
+        assertEquals(0, queriesOf(this::items));
+
+        fishDatabase.nativeUpdate("UPDATE other SET name = ?", "x");
+        assertEquals(0, queriesOf(this::items));
+
+        fishDatabase.nativeUpdate("UPDATE item SET name = ?", "x");
+        assertEquals(1, queriesOf(this::items));
+        assertEquals(0, queriesOf(this::items));
+    }
+
+    @Test
+    void dropsResultsOfEveryTableTheyDependOn() throws Exception {
+        assertEquals(1, queriesOf(this::joinedItems));
+
+        fishDatabase.getQueryCache().invalidate("\"Joined\"");
+        assertEquals(1, queriesOf(this::joinedItems));
+
+        fishDatabase.getQueryCache().invalidate("public.item");
+        assertEquals(1, queriesOf(this::joinedItems));
+    }
+
+    @Test
+    void writeOnlyDropsDependentResults() throws Exception {
+        items();
+        joinedItems();
+        assertEquals(2, fishDatabase.getQueryCache().size());
+
+        fishDatabase.getQueryCache().invalidate("joined");
+        assertEquals(1, fishDatabase.getQueryCache().size());
+        assertEquals(0, queriesOf(this::items));
+
+        fishDatabase.getQueryCache().invalidateAll();
+        assertEquals(0, fishDatabase.getQueryCache().size());
+    }
+
+    @Test
+    void compiledUpdateDropsResultsOfItsTable() throws Exception {
+        items();
+
+        QueryBuilder.update("other").set("name", QueryBuilder.param("name")).compile().executeUpdate("x");
+        assertEquals(0, queriesOf(this::items));
+
+        QueryBuilder.update("item").set("name", QueryBuilder.param("name")).compile().executeUpdate("x");
+        assertEquals(1, queriesOf(this::items));
+    }
+
+    @Test
+    void hitsReturnNewInstances() throws Exception {
+        List<Item> first = items();
+        List<Item> second = items();
+
+        assertNotSame(first.getFirst(), second.getFirst());
+        assertEquals("second", second.get(1).name);
+    }
+
+    @Test
+    void transactionsBypassTheCache() throws Exception {
+        items();
+
+        int[] inTransaction = new int[2];
+        fishDatabase.openTransaction(() -> {
+            inTransaction[0] = queriesOf(this::items);
+            inTransaction[1] = queriesOf(this::items);
+            return true;
+        });
+
+        assertArrayEquals(new int[]{1, 1}, inTransaction);
+        assertEquals(0, queriesOf(this::items));
+    }
+
+    private List<Item> items() throws FishSQLException {
+        return DatabaseModel.findMany(Item.class, QueryBuilder.select("*").cached(Duration.ofMinutes(1)));
+    }
+
+    /**
+     * A query whose result also depends on the {@code joined} table, e.g. through a subquery.
+     */
+    private List<Item> joinedItems() throws FishSQLException {
+        return DatabaseModel.findMany(Item.class, QueryBuilder.select("*")
+                .where(where -> where.and("id IN (SELECT item_id FROM joined)"))
+                .cached(Duration.ofMinutes(1), "joined"));
+    }
+
+    private int queriesOf(Query query) throws Exception {
+        int before = queries.get();
+        query.run();
+        return queries.get() - before;
+    }
+
+    @FunctionalInterface
+    private interface Query {
+        void run() throws Exception;
+    }
+
+    private Connection connection() {
+        Connection[] connection = new Connection[1];
+        connection[0] = proxy(Connection.class, (proxy, method, args) -> switch (method.getName()) {
+            case "prepareStatement" -> statement(connection[0]);
+            case "getAutoCommit" -> true;
+            case "isClosed" -> false;
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            default -> null;
+        });
+        return connection[0];
+    }
+
+    private PreparedStatement statement(Connection connection) {
+        ResultSet[] resultSet = new ResultSet[1];
+        return proxy(PreparedStatement.class, (proxy, method, args) -> switch (method.getName()) {
+            case "executeQuery" -> {
+                queries.incrementAndGet();
+                resultSet[0] = resultSet();
+                yield resultSet[0];
+            }
+            case "getResultSet" -> resultSet[0];
+            case "getConnection" -> connection;
+            case "executeUpdate", "getFetchSize", "getMaxRows" -> 0;
+            case "isClosed" -> false;
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            default -> null;
+        });
+    }
+
+    private static ResultSet resultSet() {
+        int[] row = {-1};
+        boolean[] wasNull = {false};
+        ResultSetMetaData metaData = proxy(ResultSetMetaData.class, (_, method, args) -> switch (method.getName()) {
+            case "getColumnCount" -> LABELS.size();
+            case "getColumnLabel", "getColumnName" -> LABELS.get((Integer) args[0] - 1);
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+        return proxy(ResultSet.class, (proxy, method, args) -> switch (method.getName()) {
+            case "next" -> ++row[0] < ROWS.size();
+            case "findColumn" -> LABELS.indexOf((String) args[0]) + 1;
+            case "getMetaData" -> metaData;
+            case "wasNull" -> wasNull[0];
+            case "getObject", "getString", "getInt" -> {
+                Object value = ROWS.get(row[0]).get((Integer) args[0] - 1);
+                wasNull[0] = value == null;
+                yield method.getName().equals("getInt") ? (value == null ? 0 : value)
+                        : method.getName().equals("getString") && value != null ? value.toString() : value;
+            }
+            case "close" -> null;
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, java.lang.reflect.InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(QueryCacheTest.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
@@ -0,0 +1,122 @@
+package de.bybackfish.sql.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementCacheTest {
+    private final AtomicInteger prepared = new AtomicInteger();
+    private final Set<PreparedStatement> closed = new HashSet<>();
+    private final StatementCache cache = new StatementCache(connection(), 2);
+
+    @Test
+    void reusesCheckedInStatements() throws SQLException {
+        PreparedStatement statement = checkout("SELECT 1");
+        assertTrue(cache.checkin(statement));
+
+        assertSame(statement, checkout("SELECT 1"));
+        assertEquals(1, prepared.get());
+    }
+
+    @Test
+    void neverHandsOutACheckedOutStatement() throws SQLException {
+        PreparedStatement first = checkout("SELECT 1");
+        PreparedStatement second = checkout("SELECT 1");
+        assertNotSame(first, second);
+
+        // the second checkin replaces the first statement of the same key, which is closed
+        cache.checkin(first);
+        cache.checkin(second);
+        assertEquals(1, cache.size());
+        assertEquals(Set.of(first), closed);
+    }
+
+    @Test
+    void keysByResultSetType() throws SQLException {
+        cache.checkin(checkout("SELECT 1"));
+
+        PreparedStatement scrollable = cache.checkout("SELECT 1", ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        assertEquals(2, prepared.get());
+        assertTrue(cache.checkin(scrollable));
+    }
+
+    @Test
+    void evictsAndClosesTheLeastRecentlyUsed() throws SQLException {
+        PreparedStatement first = checkout("SELECT 1");
+        PreparedStatement second = checkout("SELECT 2");
+        PreparedStatement third = checkout("SELECT 3");
+        cache.checkin(first);
+        cache.checkin(second);
+
+        // touching the first makes the second the eldest
+        cache.checkin(checkout("SELECT 1"));
+        cache.checkin(third);
+
+        assertEquals(2, cache.size());
+        assertEquals(Set.of(second), closed);
+        assertSame(first, checkout("SELECT 1"));
+    }
+
+    @Test
+    void ignoresForeignStatements() throws SQLException {
+        assertFalse(cache.checkin(statement()));
+    }
+
+    @Test
+    void closesIdleStatementsAndLaterCheckins() throws SQLException {
+        PreparedStatement idle = checkout("SELECT 1");
+        PreparedStatement inUse = checkout("SELECT 2");
+        cache.checkin(idle);
+
+        cache.close();
+        assertEquals(Set.of(idle), closed);
+
+        assertTrue(cache.checkin(inUse));
+        assertEquals(Set.of(idle, inUse), closed);
+        assertEquals(0, cache.size());
+    }
+
+    private PreparedStatement checkout(String sql) throws SQLException {
+        return cache.checkout(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+    }
+
+    private Connection connection() {
+        return proxy(Connection.class, (proxy, method, args) -> switch (method.getName()) {
+            case "prepareStatement" -> {
+                prepared.incrementAndGet();
+                yield statement();
+            }
+            case "isClosed" -> false;
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            default -> null;
+        });
+    }
+
+    private PreparedStatement statement() {
+        return proxy(PreparedStatement.class, (proxy, method, args) -> switch (method.getName()) {
+            case "close" -> {
+                closed.add((PreparedStatement) proxy);
+                yield null;
+            }
+            case "isClosed" -> closed.contains(proxy);
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            default -> null;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, java.lang.reflect.InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(StatementCacheTest.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
@@ -0,0 +1,76 @@
+package de.bybackfish.sql.core;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionTest {
+    private final List<Connection> released = new ArrayList<>();
+    private Connection connection;
+    private FishDatabase fishDatabase;
+
+    @BeforeEach
+    void setUp() {
+        connection = connection();
+        DatabaseProvider.setup(new DatabaseAdapter() {
+            @Override
+            public void connect(DatabaseOptions databaseOptions) {
+            }
+
+            @Override
+            public void disconnect() {
+            }
+
+            @Override
+            public Connection getConnection() {
+                return connection;
+            }
+
+            @Override
+            public void releaseConnection(Connection connection) {
+                released.add(connection);
+            }
+        });
+        fishDatabase = DatabaseProvider.getDatabase();
+    }
+
+    @Test
+    void releasesTheConnectionWhenRestoringItFails() {
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> fishDatabase.openTransaction(() -> true));
+
+        assertEquals("restore failed", exception.getCause().getMessage());
+        assertEquals(List.of(connection), released);
+    }
+
+    @Test
+    void keepsTheTransactionsFailureAndSuppressesTheRestoreFailure() {
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> fishDatabase.openTransaction(() -> {
+            throw new IllegalStateException("callable failed");
+        }));
+
+        assertEquals("callable failed", exception.getCause().getCause().getMessage());
+        assertEquals(1, exception.getSuppressed().length);
+        assertEquals("restore failed", exception.getSuppressed()[0].getMessage());
+        assertEquals(List.of(connection), released);
+    }
+
+    private static Connection connection() {
+        return (Connection) Proxy.newProxyInstance(TransactionTest.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "setAutoCommit" -> {
+                        if ((Boolean) args[0]) throw new SQLException("restore failed");
+                        yield null;
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+}
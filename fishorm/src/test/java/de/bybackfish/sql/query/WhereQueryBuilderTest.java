@@ -0,0 +1,129 @@
+package de.bybackfish.sql.query;
+
+import de.bybackfish.sql.util.SqlArray;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WhereQueryBuilderTest {
+
+    @Test
+    void joinsConditionsWithTheirOwnOperators() {
+        WhereQueryBuilder where = new WhereQueryBuilder()
+                .and("a = ?", 1)
+                .or("b = ?", 2)
+                .and("c IS NULL");
+
+        assertRenders("(a = ?) OR (b = ?) AND (c IS NULL)", List.of(1, 2), where);
+    }
+
+    @Test
+    void joinsNestedBuildersWithTheBuildersOperator() {
+        WhereQueryBuilder where = new WhereQueryBuilder()
+                .and("a = ?", 1)
+                .or()
+                .nested(new WhereQueryBuilder().and("b = ?", 2).and("c = ?", 3))
+                .nested(new WhereQueryBuilder().and("d = ?", 4));
+
+        assertRenders("(a = ?) OR ((b = ?) AND (c = ?)) OR ((d = ?))", List.of(1, 2, 3, 4), where);
+    }
+
+    @Test
+    void skipsEmptyNestedBuilders() {
+        WhereQueryBuilder where = new WhereQueryBuilder()
+                .nested(new WhereQueryBuilder().nested(new WhereQueryBuilder()))
+                .nested(new WhereQueryBuilder().and("a = ?", 1));
+
+        assertTrue(new WhereQueryBuilder().nested(new WhereQueryBuilder()).isEmpty());
+        assertRenders("((a = ?))", List.of(1), where);
+    }
+
+    @Test
+    void rendersDeepNestingInOrder() {
+        WhereQueryBuilder where = new WhereQueryBuilder().and("level = ?", 0);
+        WhereQueryBuilder innermost = where;
+        for (int level = 1; level <= 3; level++) {
+            WhereQueryBuilder nested = new WhereQueryBuilder().and("level = ?", level);
+            innermost.nested(nested);
+            innermost = nested;
+        }
+
+        assertRenders("(level = ?) AND ((level = ?) AND ((level = ?) AND ((level = ?))))", List.of(0, 1, 2, 3), where);
+    }
+
+    @Test
+    void buildsTheWhereNode() {
+        AbstractQueryBuilder.QueryNode node = new WhereQueryBuilder().and("a = ?", 1).buildNode();
+
+        assertEquals("WHERE (a = ?)", node.sql());
+        assertArrayEquals(new Object[]{1}, node.params());
+    }
+
+    @Test
+    void bindsInValuesAsOneArray() {
+        WhereQueryBuilder where = new WhereQueryBuilder().in("id", List.of(1L, 2L)).orIn("name", List.of("a"));
+
+        StringBuilder whereClause = new StringBuilder();
+        List<Object> parameters = new ArrayList<>();
+        where.renderTo(whereClause, parameters);
+
+        assertEquals("(id = ANY(?)) OR (name = ANY(?))", whereClause.toString());
+        assertEquals("int8", ((SqlArray) parameters.get(0)).elementType());
+        assertEquals("text", ((SqlArray) parameters.get(1)).elementType());
+    }
+
+    @Test
+    void bindsTheGivenElementType() {
+        WhereQueryBuilder where = new WhereQueryBuilder().in("mood", List.of("happy"), "mood").orIn("mood", List.of("sad"), "mood");
+
+        List<Object> parameters = new ArrayList<>();
+        where.renderTo(new StringBuilder(), parameters);
+
+        assertEquals(List.of("mood", "mood"), parameters.stream().map(array -> ((SqlArray) array).elementType()).toList());
+    }
+
+    @Test
+    void unnestsLargeTypedArrays() {
+        List<Integer> values = IntStream.range(0, WhereQueryBuilder.UNNEST_THRESHOLD).boxed().toList();
+
+        assertRendersArray("(id IN (SELECT unnest(?)))", SqlArray.of(values), new WhereQueryBuilder().in("id", values));
+        List<Integer> fewer = values.subList(1, values.size());
+        assertRendersArray("(id = ANY(?))", SqlArray.of(fewer), new WhereQueryBuilder().in("id", fewer));
+        // unnest cannot type an untyped array
+        SqlArray untyped = SqlArray.of((String) null, values);
+        assertRendersArray("(mood = ANY(?))", untyped, new WhereQueryBuilder().in("mood", untyped));
+    }
+
+    @Test
+    void emptyInMatchesNothing() {
+        assertRenders("(FALSE)", List.of(), new WhereQueryBuilder().in("id", Collections.emptyList()));
+        assertRenders("(a = ?) OR (FALSE)", List.of(1), new WhereQueryBuilder().and("a = ?", 1).orIn("id", List.of()));
+        assertRenders("(FALSE)", List.of(), new WhereQueryBuilder().in("mood", List.of(), "mood"));
+    }
+
+    private static void assertRendersArray(String sql, SqlArray array, WhereQueryBuilder where) {
+        StringBuilder whereClause = new StringBuilder();
+        List<Object> parameters = new ArrayList<>();
+        where.renderTo(whereClause, parameters);
+
+        assertEquals(sql, whereClause.toString());
+        assertEquals(1, parameters.size());
+        SqlArray actual = (SqlArray) parameters.getFirst();
+        assertEquals(array.elementType(), actual.elementType());
+        assertArrayEquals(array.elements(), actual.elements());
+    }
+
+    private static void assertRenders(String sql, List<Object> parameters, WhereQueryBuilder where) {
+        StringBuilder whereClause = new StringBuilder();
+        List<Object> actualParameters = new ArrayList<>();
+        where.renderTo(whereClause, actualParameters);
+
+        assertEquals(sql, whereClause.toString());
+        assertEquals(parameters, actualParameters);
+    }
+}
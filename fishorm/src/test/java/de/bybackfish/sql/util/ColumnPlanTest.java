@@ -0,0 +1,90 @@
+package de.bybackfish.sql.util;
+
+import de.bybackfish.sql.annotation.PrimaryKey;
+import de.bybackfish.sql.annotation.Table;
+import de.bybackfish.sql.core.DatabaseModel;
+import de.bybackfish.sql.core.FishSQLException;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnPlanTest {
+    private static final EntityMetadata<Item> METADATA = EntityMetadata.of(Item.class);
+
+    @Table("item")
+    public static class Item extends DatabaseModel {
+        @PrimaryKey
+        public int id;
+        public String name;
+    }
+
+    @Test
+    void matchesBareLabelsCaseInsensitively() throws SQLException {
+        assertIndexes(new int[]{2, 1}, ColumnPlan.resolve(resultSet(List.of("NAME", "Id")), METADATA));
+    }
+
+    @Test
+    void prefersAliasedAndQualifiedLabels() throws SQLException {
+        assertIndexes(new int[]{3, 4}, ColumnPlan.resolve(resultSet(List.of("id", "name", "item__id", "item__name")), METADATA));
+        assertIndexes(new int[]{3, 4}, ColumnPlan.resolve(resultSet(List.of("id", "name", "item.id", "item.name")), METADATA));
+    }
+
+    @Test
+    void resolvesJoinedAliasesOnlyByTheirPrefix() throws SQLException {
+        ResultSet joined = resultSet(List.of("id", "name", "other__id", "other__name"));
+        assertIndexes(new int[]{3, 4}, ColumnPlan.resolve(joined, METADATA, "other"));
+
+        assertThrows(FishSQLException.class, () -> ColumnPlan.resolve(resultSet(List.of("id", "name")), METADATA, "other"));
+    }
+
+    @Test
+    void disambiguatesRepeatedLabelsByTable() throws SQLException {
+        ResultSet resultSet = resultSet(List.of("id", "name", "id"), List.of("other", "item", "item"));
+
+        assertIndexes(new int[]{3, 2}, ColumnPlan.resolve(resultSet, METADATA));
+    }
+
+    @Test
+    void missingColumnsFailUnlessPartial() throws SQLException {
+        assertThrows(FishSQLException.class, () -> ColumnPlan.resolve(resultSet(List.of("id")), METADATA));
+
+        assertIndexes(new int[]{1, 0}, ColumnPlan.resolve(resultSet(List.of("id")), METADATA, "item", true));
+    }
+
+    private static void assertIndexes(int[] expected, ColumnPlan plan) {
+        int[] actual = new int[expected.length];
+        for (int i = 0; i < expected.length; i++) {
+            actual[i] = plan.index(i);
+        }
+        assertArrayEquals(expected, actual);
+    }
+
+    private static ResultSet resultSet(List<String> labels) {
+        return resultSet(labels, Collections.nCopies(labels.size(), ""));
+    }
+
+    private static ResultSet resultSet(List<String> labels, List<String> tables) {
+        ResultSetMetaData metaData = proxy(ResultSetMetaData.class, (_, method, args) -> switch (method.getName()) {
+            case "getColumnCount" -> labels.size();
+            case "getColumnLabel", "getColumnName" -> labels.get((Integer) args[0] - 1);
+            case "getTableName" -> tables.get((Integer) args[0] - 1);
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+        return proxy(ResultSet.class, (_, method, _) -> switch (method.getName()) {
+            case "getMetaData" -> metaData;
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, java.lang.reflect.InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(ColumnPlanTest.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
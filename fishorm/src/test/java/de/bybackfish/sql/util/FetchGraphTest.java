@@ -0,0 +1,50 @@
+package de.bybackfish.sql.util;
+
+import de.bybackfish.sql.annotation.Field;
+import de.bybackfish.sql.annotation.LazyLoaded;
+import de.bybackfish.sql.annotation.PrimaryKey;
+import de.bybackfish.sql.annotation.Table;
+import de.bybackfish.sql.core.DatabaseModel;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FetchGraphTest {
+
+    @Table("owner")
+    public static class Owner extends DatabaseModel {
+        @PrimaryKey
+        public int id;
+        @LazyLoaded(value = "id", linkTable = "owner_child")
+        public Lazy<List<Child>> children;
+    }
+
+    @Table("child")
+    public static class Child extends DatabaseModel {
+        @PrimaryKey
+        public int id;
+        @Field("displayName")
+        public String displayName;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void matchesKeysCaseInsensitively() throws Exception {
+        EntityMetadata<Owner> metadata = EntityMetadata.of(Owner.class);
+        FetchGraph graph = FetchGraph.of(metadata, List.of("children")).get("children");
+
+        Owner owner = new Owner();
+        owner.children = (Lazy<List<Child>>) ObjectMapper.createLazy(owner, metadata.relation("children").orElseThrow());
+        // an unquoted column comes back lower case from to_jsonb
+        graph.complete(owner, List.of(Map.of("ID", 1, "displayname", "first")), new HashMap<>());
+
+        assertTrue(owner.children.isLoaded());
+        Child child = owner.children.get().getFirst();
+        assertEquals(1, child.id);
+        assertEquals("first", child.displayName);
+    }
+}
@@ -0,0 +1,158 @@
+package de.bybackfish.sql.util;
+
+import de.bybackfish.sql.annotation.Field;
+import de.bybackfish.sql.annotation.ForeignKey;
+import de.bybackfish.sql.annotation.LazyLoaded;
+import de.bybackfish.sql.annotation.PrimaryKey;
+import de.bybackfish.sql.annotation.Table;
+import de.bybackfish.sql.core.DatabaseAdapter;
+import de.bybackfish.sql.core.DatabaseModel;
+import de.bybackfish.sql.core.DatabaseOptions;
+import de.bybackfish.sql.core.DatabaseProvider;
+import de.bybackfish.sql.core.FishSQLException;
+import de.bybackfish.sql.query.QueryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyBatchTest {
+    private final List<String> queries = new ArrayList<>();
+    private final List<Object[]> boundArrays = new ArrayList<>();
+
+    @Table("batch_department")
+    public static class Department extends DatabaseModel {
+        @PrimaryKey
+        public int id;
+        public String name;
+    }
+
+    @Table("batch_employee")
+    public static class Employee extends DatabaseModel {
+        @PrimaryKey
+        public int id;
+        @Field("department_id")
+        @ForeignKey(targetTable = "batch_department", targetColumn = "id")
+        public int departmentId;
+        @LazyLoaded("departmentId")
+        public Lazy<Department> department;
+    }
+
+    @BeforeEach
+    void setUp() {
+        Connection connection = connection();
+        DatabaseProvider.setup(new DatabaseAdapter() {
+            @Override
+            public void connect(DatabaseOptions databaseOptions) {
+            }
+
+            @Override
+            public void disconnect() {
+            }
+
+            @Override
+            public Connection getConnection() {
+                return connection;
+            }
+        });
+    }
+
+    @Test
+    void loadsTheRelationOfEverySiblingWithOneQuery() throws FishSQLException {
+        List<Employee> employees = DatabaseModel.findMany(Employee.class, QueryBuilder.select("*"));
+        assertEquals(1, queries.size());
+
+        assertEquals("sales", employees.getFirst().department.get().name);
+        assertEquals(2, queries.size());
+        assertArrayEquals(new Object[]{1, 2, 3}, boundArrays.getFirst());
+
+        assertTrue(employees.stream().allMatch(employee -> employee.department.isLoaded()));
+        assertSame(employees.get(0).department.get(), employees.get(1).department.get());
+        assertEquals("support", employees.get(2).department.get().name);
+        assertNull(employees.get(3).department.get());
+        assertEquals(2, queries.size());
+    }
+
+    @Test
+    void matchesKeysOfDifferentIntegralTypes() {
+        assertEquals(LazyBatch.normalize(1), LazyBatch.normalize(1L));
+        assertEquals(LazyBatch.normalize((short) 1), LazyBatch.normalize(1L));
+        assertEquals("1", LazyBatch.normalize("1"));
+    }
+
+    private Connection connection() {
+        Connection[] connection = new Connection[1];
+        connection[0] = proxy(Connection.class, (proxy, method, args) -> switch (method.getName()) {
+            case "prepareStatement" -> statement(connection[0], (String) args[0]);
+            case "createArrayOf" -> {
+                boundArrays.add((Object[]) args[1]);
+                yield null;
+            }
+            case "getAutoCommit" -> true;
+            case "isClosed" -> false;
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            default -> null;
+        });
+        return connection[0];
+    }
+
+    private PreparedStatement statement(Connection connection, String sql) {
+        ResultSet[] resultSet = new ResultSet[1];
+        return proxy(PreparedStatement.class, (proxy, method, args) -> switch (method.getName()) {
+            case "executeQuery" -> {
+                queries.add(sql);
+                resultSet[0] = sql.contains("batch_employee")
+                        // department 3 does not exist
+                        ? resultSet(List.of("id", "department_id"), List.of(List.of(1, 1), List.of(2, 1), List.of(3, 2), List.of(4, 3)))
+                        : resultSet(List.of("id", "name"), List.of(List.of(1, "sales"), List.of(2, "support")));
+                yield resultSet[0];
+            }
+            case "getResultSet" -> resultSet[0];
+            case "getConnection" -> connection;
+            case "executeUpdate", "getFetchSize", "getMaxRows" -> 0;
+            case "isClosed" -> false;
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            default -> null;
+        });
+    }
+
+    private static ResultSet resultSet(List<String> labels, List<List<Object>> rows) {
+        int[] row = {-1};
+        boolean[] wasNull = {false};
+        ResultSetMetaData metaData = proxy(ResultSetMetaData.class, (_, method, args) -> switch (method.getName()) {
+            case "getColumnCount" -> labels.size();
+            case "getColumnLabel", "getColumnName" -> labels.get((Integer) args[0] - 1);
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+        return proxy(ResultSet.class, (proxy, method, args) -> switch (method.getName()) {
+            case "next" -> ++row[0] < rows.size();
+            case "findColumn" -> labels.indexOf((String) args[0]) + 1;
+            case "getMetaData" -> metaData;
+            case "wasNull" -> wasNull[0];
+            case "getObject", "getString", "getInt" -> {
+                Object value = rows.get(row[0]).get((Integer) args[0] - 1);
+                wasNull[0] = value == null;
+                yield value;
+            }
+            case "close" -> null;
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, java.lang.reflect.InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(LazyBatchTest.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
@@ -0,0 +1,133 @@
+package de.bybackfish.sql.util;
+
+import de.bybackfish.sql.annotation.Field;
+import de.bybackfish.sql.annotation.PrimaryKey;
+import de.bybackfish.sql.annotation.Table;
+import de.bybackfish.sql.core.DatabaseModel;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MethodHandleRowMapperTest {
+    private static final List<String> LABELS = List.of("id", "count", "ratio", "label", "kind", "note");
+
+    enum Kind {A, B}
+
+    @Table("mapped")
+    public static class Mapped extends DatabaseModel {
+        @PrimaryKey
+        public int id;
+        public long count;
+        public double ratio;
+        @Field("label")
+        public String name;
+        public Kind kind;
+        public Optional<String> note;
+    }
+
+    @Test
+    void writesEveryColumnThroughAHiddenClass() throws Exception {
+        RowMapper<Mapped> mapper = ObjectMapper.rowMapper(EntityMetadata.of(Mapped.class), ObjectMapper.Backend.METHOD_HANDLE);
+        assertInstanceOf(MethodHandleRowMapper.class, mapper);
+
+        ResultSet resultSet = resultSet(List.of(
+                Arrays.asList(1, 2L, 0.5, "first", "B", "x"),
+                Arrays.asList(2, null, null, null, null, null)));
+        ColumnPlan plan = ColumnPlan.resolve(resultSet, EntityMetadata.of(Mapped.class));
+
+        List<Mapped> rows = new ArrayList<>();
+        while (resultSet.next()) {
+            rows.add(mapper.mapRow(resultSet, plan));
+        }
+
+        Mapped first = rows.getFirst();
+        assertEquals(1, first.id);
+        assertEquals(2L, first.count);
+        assertEquals(0.5, first.ratio);
+        assertEquals("first", first.name);
+        assertEquals(Kind.B, first.kind);
+        assertEquals(Optional.of("x"), first.note);
+
+        Mapped second = rows.get(1);
+        assertEquals(0L, second.count);
+        assertNull(second.kind);
+        assertEquals(Optional.empty(), second.note);
+    }
+
+    @Test
+    void mapsLikeTheReflectiveBackend() throws Exception {
+        EntityMetadata<Mapped> metadata = EntityMetadata.of(Mapped.class);
+        RowMapper<Mapped> methodHandle = ObjectMapper.rowMapper(metadata, ObjectMapper.Backend.METHOD_HANDLE);
+        RowMapper<Mapped> reflective = ObjectMapper.rowMapper(metadata, ObjectMapper.Backend.REFLECTION);
+
+        ResultSet resultSet = resultSet(List.of(Arrays.asList(2, null, null, null, null, null)));
+        ColumnPlan plan = ColumnPlan.resolve(resultSet, metadata);
+        assertTrue(resultSet.next());
+
+        Mapped expected = reflective.mapRow(resultSet, plan);
+        Mapped actual = methodHandle.mapRow(resultSet, plan);
+        assertEquals(expected.id, actual.id);
+        assertEquals(expected.count, actual.count);
+        assertEquals(expected.ratio, actual.ratio);
+        assertEquals(expected.name, actual.name);
+        assertEquals(expected.kind, actual.kind);
+        assertEquals(expected.note, actual.note);
+    }
+
+    @Test
+    void definesOneHiddenClassPerModel() throws Exception {
+        MethodHandleRowMapper<Mapped> mapper = new MethodHandleRowMapper<>(EntityMetadata.of(Mapped.class));
+        java.lang.reflect.Field writer = MethodHandleRowMapper.class.getDeclaredField("writer");
+        writer.setAccessible(true);
+
+        Class<?> writerClass = writer.get(mapper).getClass();
+        assertTrue(writerClass.isHidden());
+        assertNotEquals(RowWriterTemplate.class, writerClass);
+    }
+
+    @Test
+    void reflectionBackendIsKept() {
+        assertInstanceOf(ReflectiveRowMapper.class, ObjectMapper.rowMapper(EntityMetadata.of(Mapped.class), ObjectMapper.Backend.REFLECTION));
+    }
+
+    private static ResultSet resultSet(List<List<Object>> rows) {
+        int[] row = {-1};
+        boolean[] wasNull = {false};
+        ResultSetMetaData metaData = proxy(ResultSetMetaData.class, (_, method, args) -> switch (method.getName()) {
+            case "getColumnCount" -> LABELS.size();
+            case "getColumnLabel", "getColumnName" -> LABELS.get((Integer) args[0] - 1);
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+        return proxy(ResultSet.class, (proxy, method, args) -> switch (method.getName()) {
+            case "next" -> ++row[0] < rows.size();
+            case "getMetaData" -> metaData;
+            case "wasNull" -> wasNull[0];
+            case "getObject", "getString", "getInt", "getLong", "getDouble" -> {
+                Object value = rows.get(row[0]).get((Integer) args[0] - 1);
+                wasNull[0] = value == null;
+                yield switch (method.getName()) {
+                    case "getInt" -> value == null ? 0 : ((Number) value).intValue();
+                    case "getLong" -> value == null ? 0L : ((Number) value).longValue();
+                    case "getDouble" -> value == null ? 0.0 : ((Number) value).doubleValue();
+                    default -> value;
+                };
+            }
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, java.lang.reflect.InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(MethodHandleRowMapperTest.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
@@ -0,0 +1,46 @@
+package de.bybackfish.sql.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlArrayTest {
+    enum Mood {HAPPY, SAD}
+
+    @Test
+    void typesAfterTheFirstNonNullElement() {
+        assertEquals("int4", SqlArray.of(Arrays.asList(null, 1, 2)).elementType());
+        assertEquals("int8", SqlArray.of(List.of(1L)).elementType());
+        assertEquals("uuid", SqlArray.of(List.of(UUID.randomUUID())).elementType());
+        assertEquals("text", SqlArray.of(List.of("a")).elementType());
+    }
+
+    @Test
+    void bindsEnumsUntypedByName() {
+        SqlArray array = SqlArray.of(List.of(Mood.HAPPY, Mood.SAD));
+
+        assertFalse(array.typed());
+        assertArrayEquals(new Object[]{"HAPPY", "SAD"}, array.elements());
+        assertEquals("{\"HAPPY\",\"SAD\"}", array.literal());
+    }
+
+    @Test
+    void keepsAnExplicitElementType() {
+        SqlArray array = SqlArray.of("mood", List.of(Mood.HAPPY));
+
+        assertEquals("mood", array.elementType());
+        assertArrayEquals(new Object[]{"HAPPY"}, array.elements());
+    }
+
+    @Test
+    void quotesLiteralElements() {
+        SqlArray array = SqlArray.of((String) null, Arrays.asList("a\"b", "c\\d", null));
+
+        assertEquals("{\"a\\\"b\",\"c\\\\d\",NULL}", array.literal());
+        assertEquals(3, array.size());
+    }
+}
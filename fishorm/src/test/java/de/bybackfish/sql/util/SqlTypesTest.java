@@ -0,0 +1,73 @@
+package de.bybackfish.sql.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlTypesTest {
+    enum Kind {ADMIN}
+
+    @Test
+    void literalDoublesQuotes() {
+        assertEquals("'it''s'", SqlTypes.literal("it's"));
+        assertEquals("''''''", SqlTypes.literal("''"));
+    }
+
+    @Test
+    void literalEscapesBackslashesInEscapeString() {
+        assertEquals("E'a\\\\b'", SqlTypes.literal("a\\b"));
+        assertEquals("E'it''s \\\\'", SqlTypes.literal("it's \\"));
+    }
+
+    @Test
+    void literalKeepsPlaceholdersQuoted() {
+        assertEquals("'?'", SqlTypes.literal("?"));
+        assertEquals(0, SqlTypes.countParameters(SqlTypes.literal("a ? b ' ? \\ ?")));
+    }
+
+    @Test
+    void literalRejectsNul() {
+        assertThrows(IllegalArgumentException.class, () -> SqlTypes.literal("a\0b"));
+    }
+
+    @Test
+    void literalOfOtherTypes() {
+        assertEquals("NULL", SqlTypes.literal(null));
+        assertEquals("TRUE", SqlTypes.literal(true));
+        assertEquals("42", SqlTypes.literal(42L));
+        assertEquals("'NaN'::float8", SqlTypes.literal(Double.NaN));
+        assertEquals("'ADMIN'", SqlTypes.literal(Kind.ADMIN));
+        assertEquals("E'\\\\x01ab'::bytea", SqlTypes.literal(new byte[]{1, (byte) 0xab}));
+    }
+
+    @Test
+    void countParametersSkipsStringsAndIdentifiers() {
+        assertEquals(2, SqlTypes.countParameters("SELECT * FROM t WHERE a = ? AND b = ?"));
+        assertEquals(1, SqlTypes.countParameters("SELECT * FROM t WHERE b = '?' AND a = ?"));
+        assertEquals(1, SqlTypes.countParameters("SELECT * FROM t WHERE b = 'it''s ?' AND a = ?"));
+        assertEquals(1, SqlTypes.countParameters("SELECT \"col?\" FROM t WHERE a = ?"));
+        assertEquals(0, SqlTypes.countParameters("SELECT 'unterminated ?"));
+    }
+
+    @Test
+    void countParametersHonoursBackslashesOnlyInEscapeStrings() {
+        assertEquals(2, SqlTypes.countParameters("SELECT E'\\'?' = ? AND b = ?"));
+        assertEquals(1, SqlTypes.countParameters("SELECT e'\\\\' = ?"));
+        assertEquals(2, SqlTypes.countParameters("SELECT 'a\\' = ? AND b = ?"));
+        assertEquals(2, SqlTypes.countParameters("SELECT TYPE'a\\' = ? AND b = ?"));
+    }
+
+    @Test
+    void inlineParametersQuotesValues() {
+        String inlined = SqlTypes.inlineParameters("UPDATE t SET a = ?, b = '?' WHERE c = ?", "x?'\\", 3);
+
+        assertEquals("UPDATE t SET a = E'x?''\\\\', b = '?' WHERE c = 3", inlined);
+        assertEquals(0, SqlTypes.countParameters(inlined));
+    }
+
+    @Test
+    void inlineParametersRequiresMatchingCount() {
+        assertThrows(IllegalArgumentException.class, () -> SqlTypes.inlineParameters("a = ? AND b = ?", 1));
+        assertThrows(IllegalArgumentException.class, () -> SqlTypes.inlineParameters("a = '?'", 1));
+    }
+}
@@ -1,15 +0,0 @@
-package de.bybackfish.sql.annotation;
-
-import java.lang.annotation.ElementType;
-import java.lang.annotation.Retention;
-import java.lang.annotation.RetentionPolicy;
-import java.lang.annotation.Target;
-
-@Retention(RetentionPolicy.RUNTIME)
-@Target(ElementType.FIELD)
-public @interface LazyLoaded {
-    String value();
-
-    String linkTable() default "";
-
-}